@@ -0,0 +1,114 @@
+package com.analyzer.bench;
+
+import com.analyzer.WebsiteAnalyzerApplication;
+import com.analyzer.controller.AnalyzerController;
+import com.analyzer.model.Result;
+import com.analyzer.model.URLRequest;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Full {@code POST /analyze} path (fetch, decode, parse, score) against a local stub
+ * server, so results reflect this code rather than the network. The result cache is
+ * disabled to make every invocation fetch.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnalyzeEndToEndBenchmark {
+
+    @Param({"102400"})
+    public int pageBytes;
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ConfigurableApplicationContext context;
+    private AnalyzerController controller;
+    private URLRequest request;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] page = gzip(HtmlCorpus.page(pageBytes).getBytes(StandardCharsets.UTF_8));
+        // Without TCP_NODELAY the stub's separate header/body writes hit delayed ACKs (~40 ms each).
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 512);
+        serverExecutor = Executors.newFixedThreadPool(16);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.getResponseHeaders().add("Cache-Control", "max-age=60");
+            exchange.getResponseHeaders().add("X-Content-Type-Options", "nosniff");
+            exchange.sendResponseHeaders(200, page.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(page);
+            }
+        });
+        server.start();
+
+        context = new SpringApplicationBuilder(WebsiteAnalyzerApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--analyzer.cache.enabled=false", "--analyzer.history.enabled=false",
+                        "--spring.main.banner-mode=off");
+        controller = context.getBean(AnalyzerController.class);
+
+        List<String> urls = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            urls.add("http://127.0.0.1:" + server.getAddress().getPort() + "/page/" + i);
+        }
+        request = new URLRequest();
+        request.setUrls(urls);
+
+        Result probe = results(controller.analyze(request, "full")).get(0);
+        if (!probe.getSeoDetails().isHasPageTitle()) {
+            throw new IllegalStateException("Stub page was not fetched and scored");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public List<Result> analyzeBatch() {
+        return results(controller.analyze(request, "full"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Result> results(MappingJacksonValue response) {
+        return (List<Result>) response.getValue();
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+}
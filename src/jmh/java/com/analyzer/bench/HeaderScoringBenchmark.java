@@ -0,0 +1,74 @@
+package com.analyzer.bench;
+
+import com.analyzer.model.PerformanceDetails;
+import com.analyzer.model.SecurityDetails;
+import com.analyzer.service.AnalyzerMetrics;
+import com.analyzer.service.FetcherService;
+import com.analyzer.service.HttpClientFactory;
+import com.analyzer.service.HttpClientProperties;
+import com.analyzer.service.RetryPolicy;
+import com.analyzer.service.ScorerService;
+import com.analyzer.service.ScoringProperties;
+import com.analyzer.service.ScoringRules;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** Header-only scoring and URL normalization: the per-URL work that is not network or HTML. */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HeaderScoringBenchmark {
+
+    private ScorerService scorerService;
+    private FetcherService fetcherService;
+    private BasicHttpResponse response;
+
+    @Setup
+    public void setUp() {
+        AnalyzerMetrics metrics = new AnalyzerMetrics(new SimpleMeterRegistry());
+        scorerService = new ScorerService(metrics, new ScoringRules(new ScoringProperties(), "", 0));
+        fetcherService = new FetcherService(metrics, new HttpClientFactory(new HttpClientProperties(), metrics),
+                new RetryPolicy(metrics, 3, 250, 4000, 0.1, 50, 5, 30000, 10000));
+
+        response = new BasicHttpResponse(200, "OK");
+        response.addHeader("Server", "nginx/1.25.3");
+        response.addHeader("X-Powered-By", "Express");
+        response.addHeader("Content-Type", "text/html; charset=utf-8");
+        response.addHeader("Content-Encoding", "br");
+        response.addHeader("Content-Length", "48213");
+        response.addHeader("Cache-Control", "public, max-age=600");
+        response.addHeader("Strict-Transport-Security", "max-age=63072000; includeSubDomains; preload");
+        response.addHeader("Content-Security-Policy", "default-src 'self'; frame-ancestors 'none'");
+        response.addHeader("X-Content-Type-Options", "nosniff");
+        response.addHeader("Referrer-Policy", "strict-origin-when-cross-origin");
+        for (int i = 0; i < 12; i++) {
+            response.addHeader("X-Custom-" + i, "value-" + i);
+        }
+    }
+
+    @Benchmark
+    public ScorerService.ScoringResult<PerformanceDetails> scorePerformance() {
+        return scorerService.scorePerformance(183.4, response, 48213, 196120);
+    }
+
+    @Benchmark
+    public ScorerService.ScoringResult<SecurityDetails> scoreSecurity() {
+        return scorerService.scoreSecurity("https://bench.example/", response);
+    }
+
+    @Benchmark
+    public String normalizeBareHost() {
+        return fetcherService.normalizeUrl("  bench.example/path?q=1  ");
+    }
+
+    @Benchmark
+    public String normalizeFullUrl() {
+        return fetcherService.normalizeUrl("https://bench.example/path?q=1");
+    }
+}
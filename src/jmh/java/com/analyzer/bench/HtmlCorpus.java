@@ -0,0 +1,88 @@
+package com.analyzer.bench;
+
+import java.util.Random;
+
+/**
+ * Deterministic synthetic pages shaped like real-world HTML: a head full of meta,
+ * link and script tags, inline scripts and styles, navigation, and repeated article
+ * blocks with headings, paragraphs, links, images and comments.
+ */
+final class HtmlCorpus {
+
+    private static final String[] WORDS = {
+        "performance", "latency", "server", "cache", "browser", "request", "network",
+        "render", "content", "security", "header", "policy", "image", "script", "layout",
+        "the", "and", "of", "to", "with", "for", "on", "in", "a", "is"
+    };
+
+    private HtmlCorpus() {
+    }
+
+    static String page(int targetBytes) {
+        Random random = new Random(targetBytes);
+        StringBuilder html = new StringBuilder(targetBytes + 4096);
+
+        html.append("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n")
+            .append("<meta charset=\"utf-8\">\n")
+            .append("<title>Benchmark corpus page &amp; friends - ").append(targetBytes).append("</title>\n")
+            .append("<meta name=\"viewport\" content=\"width=device-width, initial-scale=1\">\n")
+            .append("<meta name=\"description\" content=\"");
+        words(html, random, 22);
+        html.append("\">\n<meta property=\"og:type\" content=\"website\">\n")
+            .append("<link rel=\"canonical\" href=\"https://bench.example/page\">\n");
+        for (int i = 0; i < 8; i++) {
+            html.append("<link rel=\"stylesheet\" href=\"/static/css/chunk-").append(i).append(".css\">\n");
+            html.append("<script defer src=\"/static/js/chunk-").append(i).append(".js\"></script>\n");
+        }
+        html.append("<style>body{margin:0;font-family:sans-serif}.nav a{padding:4px}</style>\n")
+            .append("<script>window.dataLayer=window.dataLayer||[];function gtag(){dataLayer.push(arguments)}")
+            .append("if (a < b && c > d) { document.write('<h1>not a heading</h1>'); }</script>\n")
+            .append("</head>\n<body class=\"page\">\n<!-- navigation -->\n<nav class=\"nav\"><ul>\n");
+        for (int i = 0; i < 40; i++) {
+            html.append("<li><a href=\"/section/").append(i).append("\" class=\"nav-link\">");
+            words(html, random, 2);
+            html.append("</a></li>\n");
+        }
+        html.append("</ul></nav>\n<main>\n<h1>");
+        words(html, random, 6);
+        html.append("</h1>\n");
+
+        int block = 0;
+        while (html.length() < targetBytes) {
+            html.append("<article id=\"a").append(block).append("\" data-index=").append(block).append(">\n<h2>");
+            words(html, random, 5);
+            html.append("</h2>\n");
+            for (int p = 0; p < 3; p++) {
+                html.append("<p>");
+                words(html, random, 30);
+                html.append(" <a href=\"https://external.example/").append(block).append('/').append(p)
+                    .append("?utm_source=bench\">read more</a></p>\n");
+            }
+            if (block % 2 == 0) {
+                html.append("<img src=\"/img/").append(block).append(".webp\" alt=\"");
+                words(html, random, 3);
+                html.append("\" loading=\"lazy\" width=640 height=360>\n");
+            } else {
+                html.append("<img src=\"/img/").append(block).append(".png\">\n");
+            }
+            if (block % 5 == 0) {
+                html.append("<!-- ad slot ").append(block).append(" -->\n<table><tr><td>");
+                words(html, random, 4);
+                html.append("</td><td>&nbsp;&copy;</td></tr></table>\n");
+            }
+            html.append("</article>\n");
+            block++;
+        }
+        html.append("</main>\n<footer><p>&copy; bench</p></footer>\n</body>\n</html>\n");
+        return html.toString();
+    }
+
+    private static void words(StringBuilder out, Random random, int count) {
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                out.append(' ');
+            }
+            out.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.analyzer.bench;
+
+import com.analyzer.html.HtmlScanner;
+import com.analyzer.html.SeoSignals;
+import com.analyzer.model.SEODetails;
+import com.analyzer.service.AnalyzerMetrics;
+import com.analyzer.service.ScorerService;
+import com.analyzer.service.ScoringProperties;
+import com.analyzer.service.ScoringRules;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** DOM-based versus single-pass SEO scoring across page sizes from 10 KB to 5 MB. */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SeoScoringBenchmark {
+
+    @Param({"10240", "102400", "1048576", "5242880"})
+    public int pageBytes;
+
+    private String html;
+    private ScorerService scorerService;
+
+    @Setup
+    public void setUp() {
+        html = HtmlCorpus.page(pageBytes);
+        scorerService = new ScorerService(new AnalyzerMetrics(new SimpleMeterRegistry()), new ScoringRules(new ScoringProperties(), "", 0));
+    }
+
+    @Benchmark
+    public ScorerService.ScoringResult<SEODetails> domScoreSeo() {
+        return scorerService.scoreSEO(html);
+    }
+
+    @Benchmark
+    public ScorerService.ScoringResult<SEODetails> streamingScoreSeo() {
+        SeoSignals signals = new SeoSignals();
+        HtmlScanner.scan(html, signals);
+        return scorerService.scoreSEO(signals);
+    }
+}
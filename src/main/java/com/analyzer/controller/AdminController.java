@@ -0,0 +1,69 @@
+package com.analyzer.controller;
+
+import com.analyzer.model.PoolStatus;
+import com.analyzer.model.ScoringRulesStatus;
+import com.analyzer.service.HttpClientFactory;
+import com.analyzer.service.ScoringRules;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Runtime tuning of the HTTP clients. Changes apply to both connection pools at once and
+ * last until restart; {@code http.client.*} in application.properties sets the startup values.
+ * Also reports and reloads the scoring rules.
+ */
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+    private final HttpClientFactory httpClientFactory;
+    private final ScoringRules scoringRules;
+
+    @Autowired
+    public AdminController(HttpClientFactory httpClientFactory, ScoringRules scoringRules) {
+        this.httpClientFactory = httpClientFactory;
+        this.scoringRules = scoringRules;
+    }
+
+    @GetMapping("/pool")
+    public List<PoolStatus> pool() {
+        return httpClientFactory.poolStatus();
+    }
+
+    /** Changes the total and default per-host connection limits; omitted ones are kept. */
+    @PutMapping("/pool")
+    public List<PoolStatus> resize(@RequestParam(name = "max_total", required = false) Integer maxTotal,
+                                   @RequestParam(name = "max_per_route", required = false) Integer maxPerRoute) {
+        httpClientFactory.resize(maxTotal, maxPerRoute);
+        return httpClientFactory.poolStatus();
+    }
+
+    /** Gives one host its own connection limit. */
+    @PutMapping("/pool/hosts/{host}")
+    public List<PoolStatus> setHostLimit(@PathVariable String host, @RequestParam int max) {
+        httpClientFactory.setHostLimit(host, max);
+        return httpClientFactory.poolStatus();
+    }
+
+    /** Returns a host to the default per-host limit. */
+    @DeleteMapping("/pool/hosts/{host}")
+    public List<PoolStatus> clearHostLimit(@PathVariable String host) {
+        httpClientFactory.setHostLimit(host, null);
+        return httpClientFactory.poolStatus();
+    }
+
+    @GetMapping("/scoring")
+    public ScoringRulesStatus scoring() {
+        return scoringRules.status();
+    }
+
+    /** Reloads the scoring rules now instead of waiting for the file check; 400 if they were rejected. */
+    @PostMapping("/scoring/reload")
+    public ResponseEntity<ScoringRulesStatus> reloadScoring() {
+        ScoringRulesStatus status = scoringRules.reload();
+        return status.getError() == null ? ResponseEntity.ok(status) : ResponseEntity.badRequest().body(status);
+    }
+}
@@ -1,13 +1,21 @@
 package com.analyzer.controller;
 
 import com.analyzer.model.*;
-import com.analyzer.service.FetcherService;
-import com.analyzer.service.ScorerService;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import com.analyzer.service.AnalysisExecutor;
+import com.analyzer.service.AnalyzerMetrics;
+import com.analyzer.service.ResultCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.List;
 
 
@@ -15,95 +23,100 @@ import java.util.List;
 @RequestMapping("/analyze")
 public class AnalyzerController {
 
-    private final FetcherService fetcherService;
-    private final ScorerService scorerService;
+    private static final String VIEW_FULL = "full";
+    private static final String VIEW_SUMMARY = "summary";
+
+    private final AnalysisExecutor analysisExecutor;
+    private final ResultCache resultCache;
+    private final ObjectMapper objectMapper;
+    private final AnalyzerMetrics metrics;
+    private final long asyncTimeoutMs;
 
     @Autowired
-    public AnalyzerController(FetcherService fetcherService, ScorerService scorerService) {
-        this.fetcherService = fetcherService;
-        this.scorerService = scorerService;
+    public AnalyzerController(AnalysisExecutor analysisExecutor, ResultCache resultCache,
+                              ObjectMapper objectMapper, AnalyzerMetrics metrics,
+                              @Value("${analyzer.async.timeout-ms:300000}") long asyncTimeoutMs) {
+        this.analysisExecutor = analysisExecutor;
+        this.resultCache = resultCache;
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.asyncTimeoutMs = asyncTimeoutMs;
     }
 
-        /** Main API endpoint for analyzing multiple websites. */
+        /**
+     * Main API endpoint for analyzing multiple websites. Responds in JSON, CBOR or Smile
+     * depending on {@code Accept}; {@code view=summary} leaves out the detail objects.
+     */
     @PostMapping
-    public List<Result> analyze(@RequestBody URLRequest urlRequest) {
-        
-        List<Result> results = new ArrayList<>();
-
-        for (String rawUrl : urlRequest.getUrls()) {
-            String url = fetcherService.normalizeUrl(rawUrl);
-
-            FetcherService.FetchResult fetchResult = fetcherService.fetchPage(url);
-            CloseableHttpResponse response = fetchResult.response;
-            Double elapsedMs = fetchResult.elapsedMs;
-            String error = fetchResult.error;
-
-            Result result;
-
-            if (response != null && error == null) {
-                ScorerService.BackendProtocol backendProtocol = 
-                        scorerService.getBackendAndProtocol(response, url);
-                String responseTimeText = String.format("%.0f ms", elapsedMs);
-
-                ScorerService.ScoringResult<PerformanceDetails> perfResult = 
-                        scorerService.scorePerformance(elapsedMs, response, fetchResult.htmlContent, url);
-                ScorerService.ScoringResult<SecurityDetails> secResult = 
-                        scorerService.scoreSecurity(url, response);
-                ScorerService.ScoringResult<SEODetails> seoResult = 
-                        scorerService.scoreSEO(fetchResult.htmlContent);
-
-                int performance = perfResult.score;
-                int security = secResult.score;
-                int seo = seoResult.score;
-                int total = Math.round((performance + security + seo) / 3.0f);
+    public MappingJacksonValue analyze(@RequestBody URLRequest urlRequest,
+                                       @RequestParam(defaultValue = VIEW_FULL) String view) {
+        long startTime = System.nanoTime();
+        List<Result> results = analysisExecutor.analyzeAll(urlRequest.getUrls());
+        metrics.recordBatch("sync", results.size(), System.nanoTime() - startTime);
+        return inView(results, view);
+    }
 
-                result = new Result(
-                    url,
-                    performance,
-                    security,
-                    seo,
-                    total,
-                    backendProtocol.backend,
-                    backendProtocol.protocol,
-                    responseTimeText,
-                    perfResult.details,
-                    secResult.details,
-                    seoResult.details
-                );
+    /** Same as {@link #analyze} but releases the servlet thread while the batch is in flight. */
+    @PostMapping("/async")
+    public DeferredResult<MappingJacksonValue> analyzeAsync(@RequestBody URLRequest urlRequest,
+                                                            @RequestParam(defaultValue = VIEW_FULL) String view) {
+        long startTime = System.nanoTime();
+        DeferredResult<MappingJacksonValue> deferred = new DeferredResult<>(asyncTimeoutMs);
+        analysisExecutor.analyzeAllAsync(urlRequest.getUrls())
+                .whenComplete((results, ex) -> {
+                    if (ex != null) {
+                        deferred.setErrorResult(ex);
+                    } else {
+                        metrics.recordBatch("async", results.size(), System.nanoTime() - startTime);
+                        deferred.setResult(inView(results, view));
+                    }
+                });
+        return deferred;
+    }
 
-                try {
-                    response.close();
-                } catch (Exception e) {
-                }
-            } else {
-                PerformanceDetails perfDetails = new PerformanceDetails(
-                    0, 0, "N/A", "", 0, 0, 0, 0
-                );
-                SecurityDetails secDetails = new SecurityDetails(
-                    false, false, false, false, false, false, 0
-                );
-                SEODetails seoDetails = new SEODetails(
-                    false, false, false, false, false, false, 0, false, false, 0
-                );
+    /**
+     * Streams results as newline-delimited JSON, one {@link Result} per line in completion
+     * order, so clients can render the first sites while slower ones are still running.
+     */
+    @PostMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> analyzeStream(@RequestBody URLRequest urlRequest,
+                                                             @RequestParam(defaultValue = VIEW_FULL) String view) {
+        long startTime = System.nanoTime();
+        int size = urlRequest.getUrls() != null ? urlRequest.getUrls().size() : 0;
+        ObjectWriter writer = objectMapper.writerWithView(viewClass(view));
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(asyncTimeoutMs);
+        analysisExecutor.analyzeEach(urlRequest.getUrls(), (index, result) -> {
+                    try {
+                        emitter.send(writer.writeValueAsString(result) + "\n", MediaType.APPLICATION_NDJSON);
+                    } catch (IOException | IllegalStateException e) {
+                        // Client went away; the remaining results are dropped as they arrive.
+                    }
+                })
+                .whenComplete((done, ex) -> {
+                    if (ex != null) {
+                        emitter.completeWithError(ex);
+                    } else {
+                        metrics.recordBatch("stream", size, System.nanoTime() - startTime);
+                        emitter.complete();
+                    }
+                });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
 
-                result = new Result(
-                    url,
-                    0,
-                    0,
-                    0,
-                    0,
-                    "N/A",
-                    "N/A",
-                    "Invalid URL",
-                    perfDetails,
-                    secDetails,
-                    seoDetails
-                );
-            }
+    private static MappingJacksonValue inView(List<Result> results, String view) {
+        MappingJacksonValue value = new MappingJacksonValue(results);
+        value.setSerializationView(viewClass(view));
+        return value;
+    }
 
-            results.add(result);
-        }
+    /** The Jackson view for a {@code view} parameter; anything but "summary" means everything. */
+    private static Class<?> viewClass(String view) {
+        return VIEW_SUMMARY.equalsIgnoreCase(view) ? Result.Summary.class : null;
+    }
 
-        return results;
+    /** Hit/miss/eviction counters of the result cache. */
+    @GetMapping("/cache")
+    public CacheStats cacheStats() {
+        return resultCache.stats();
     }
 }
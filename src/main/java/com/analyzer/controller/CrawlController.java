@@ -0,0 +1,53 @@
+package com.analyzer.controller;
+
+import com.analyzer.model.CrawlReport;
+import com.analyzer.model.CrawlRequest;
+import com.analyzer.service.CrawlService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Site crawls: starting from a seed URL, same-site pages are discovered and scored up to
+ * a page and depth limit. Starting returns a crawl id at once; the report is polled and
+ * fills in as pages complete.
+ */
+@RestController
+@RequestMapping("/crawl")
+public class CrawlController {
+
+    private final CrawlService crawlService;
+
+    @Autowired
+    public CrawlController(CrawlService crawlService) {
+        this.crawlService = crawlService;
+    }
+
+    @PostMapping
+    public ResponseEntity<CrawlReport> start(@RequestBody CrawlRequest crawlRequest) {
+        CrawlReport report = crawlService.start(crawlRequest);
+        if (report == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(report);
+    }
+
+    @GetMapping
+    public List<CrawlReport> list() {
+        return crawlService.list();
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<CrawlReport> report(@PathVariable String id) {
+        return ResponseEntity.of(Optional.ofNullable(crawlService.report(id)));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<CrawlReport> cancel(@PathVariable String id) {
+        return ResponseEntity.of(Optional.ofNullable(crawlService.cancel(id)));
+    }
+}
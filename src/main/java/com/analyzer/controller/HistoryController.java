@@ -0,0 +1,90 @@
+package com.analyzer.controller;
+
+import com.analyzer.model.HistoryBucket;
+import com.analyzer.model.HistoryPoint;
+import com.analyzer.service.FetcherService;
+import com.analyzer.service.HistoryStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Score and latency history of a URL, as recorded by each fresh analysis. Times are
+ * epoch milliseconds or ISO-8601 instants; the range defaults to the last seven days.
+ */
+@RestController
+@RequestMapping("/history")
+public class HistoryController {
+
+    private static final long DEFAULT_RANGE_MS = TimeUnit.DAYS.toMillis(7);
+
+    private final HistoryStore historyStore;
+    private final FetcherService fetcherService;
+    private final int maxPoints;
+
+    @Autowired
+    public HistoryController(HistoryStore historyStore, FetcherService fetcherService,
+                             @Value("${analyzer.history.max-points:10000}") int maxPoints) {
+        this.historyStore = historyStore;
+        this.fetcherService = fetcherService;
+        this.maxPoints = Math.max(1, maxPoints);
+    }
+
+    /** Recorded points, oldest first. */
+    @GetMapping
+    public ResponseEntity<List<HistoryPoint>> points(@RequestParam String url,
+                                                     @RequestParam(required = false) String from,
+                                                     @RequestParam(required = false) String to,
+                                                     @RequestParam(defaultValue = "1000") int limit) throws IOException {
+        long[] range = range(from, to);
+        if (range == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(historyStore.points(fetcherService.normalizeUrl(url), range[0], range[1],
+                Math.min(limit, maxPoints)));
+    }
+
+    /** Points summarized per hour or per day: medians, the lowest total and latency percentiles. */
+    @GetMapping("/rollup")
+    public ResponseEntity<List<HistoryBucket>> rollup(@RequestParam String url,
+                                                      @RequestParam(required = false) String from,
+                                                      @RequestParam(required = false) String to,
+                                                      @RequestParam(defaultValue = "hour") String step) throws IOException {
+        long[] range = range(from, to);
+        if (range == null || !(step.equals("hour") || step.equals("day"))) {
+            return ResponseEntity.badRequest().build();
+        }
+        long stepMs = step.equals("hour") ? HistoryStore.HOUR_MS : HistoryStore.DAY_MS;
+        return ResponseEntity.ok(historyStore.rollup(fetcherService.normalizeUrl(url), range[0], range[1], stepMs));
+    }
+
+    /** The requested range as {from, to}, or null if either bound does not parse. */
+    private static long[] range(String from, String to) {
+        long now = System.currentTimeMillis();
+        Long toMs = to == null ? Long.valueOf(now) : parseTime(to);
+        if (toMs == null) {
+            return null;
+        }
+        Long fromMs = from == null ? Long.valueOf(toMs - DEFAULT_RANGE_MS) : parseTime(from);
+        return fromMs == null ? null : new long[] {fromMs, toMs};
+    }
+
+    private static Long parseTime(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            try {
+                return Instant.parse(value.trim()).toEpochMilli();
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+}
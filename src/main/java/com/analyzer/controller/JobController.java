@@ -0,0 +1,75 @@
+package com.analyzer.controller;
+
+import com.analyzer.model.JobStatus;
+import com.analyzer.model.ResultPage;
+import com.analyzer.model.URLRequest;
+import com.analyzer.service.JobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Bulk analysis jobs for URL lists too large for a single request. Submitting returns
+ * a job id at once; progress is polled and results are paged in input order.
+ */
+@RestController
+@RequestMapping("/jobs")
+public class JobController {
+
+    private final JobService jobService;
+
+    @Autowired
+    public JobController(JobService jobService) {
+        this.jobService = jobService;
+    }
+
+    /** Submits a JSON URL list. */
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<JobStatus> submit(@RequestBody URLRequest urlRequest) throws IOException {
+        List<String> urls = urlRequest.getUrls() != null ? urlRequest.getUrls() : Collections.emptyList();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobService.submit(urls.iterator()));
+    }
+
+    /** Submits an uploaded text file with one URL per line; it is streamed to disk, not buffered. */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<JobStatus> upload(@RequestParam("file") MultipartFile file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobService.submit(reader.lines().iterator()));
+        }
+    }
+
+    @GetMapping
+    public List<JobStatus> list() throws IOException {
+        return jobService.list();
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<JobStatus> status(@PathVariable String id) {
+        return ResponseEntity.of(Optional.ofNullable(jobService.status(id)));
+    }
+
+    /** Results in input order; follow {@code next_offset} until it is null and the job is finished. */
+    @GetMapping("/{id}/results")
+    public ResponseEntity<ResultPage> results(@PathVariable String id,
+                                              @RequestParam(defaultValue = "0") long offset,
+                                              @RequestParam(defaultValue = "100") int limit) throws IOException {
+        return ResponseEntity.of(Optional.ofNullable(jobService.results(id, offset, limit)));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<JobStatus> cancel(@PathVariable String id) throws IOException {
+        return ResponseEntity.of(Optional.ofNullable(jobService.cancel(id)));
+    }
+}
@@ -0,0 +1,63 @@
+package com.analyzer.controller;
+
+import com.analyzer.model.MonitorEvent;
+import com.analyzer.model.MonitorReport;
+import com.analyzer.model.MonitorRequest;
+import com.analyzer.service.MonitorService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Continuous monitoring: named URL sets re-analyzed in the background every interval.
+ * Checks skip pages that have not changed; what did change is polled as events.
+ */
+@RestController
+@RequestMapping("/monitors")
+public class MonitorController {
+
+    private final MonitorService monitorService;
+
+    @Autowired
+    public MonitorController(MonitorService monitorService) {
+        this.monitorService = monitorService;
+    }
+
+    /** Registers or replaces a monitor. */
+    @PutMapping("/{name}")
+    public ResponseEntity<MonitorReport> register(@PathVariable String name,
+                                                  @RequestBody MonitorRequest monitorRequest) throws IOException {
+        MonitorReport report = monitorService.register(name, monitorRequest);
+        if (report == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    @GetMapping
+    public List<MonitorReport> list() {
+        return monitorService.list();
+    }
+
+    /** Events after {@code since} (epoch milliseconds), oldest first; poll with the last event's time. */
+    @GetMapping("/events")
+    public List<MonitorEvent> events(@RequestParam(required = false) String monitor,
+                                     @RequestParam(defaultValue = "0") long since,
+                                     @RequestParam(defaultValue = "100") int limit) {
+        return monitorService.events(monitor, since, Math.max(0, Math.min(limit, 1000)));
+    }
+
+    @GetMapping("/{name}")
+    public ResponseEntity<MonitorReport> report(@PathVariable String name) {
+        return ResponseEntity.of(Optional.ofNullable(monitorService.report(name)));
+    }
+
+    @DeleteMapping("/{name}")
+    public ResponseEntity<MonitorReport> remove(@PathVariable String name) throws IOException {
+        return ResponseEntity.of(Optional.ofNullable(monitorService.remove(name)));
+    }
+}
@@ -0,0 +1,100 @@
+package com.analyzer.html;
+
+import org.jsoup.parser.Parser;
+
+/**
+ * Attributes of the current start tag, stored as offsets into the source so that
+ * values are only materialized for the attributes a handler actually asks for.
+ * Instances are reused by the scanner and must not be retained.
+ */
+public final class Attributes {
+
+    private CharSequence source;
+    private int[] bounds = new int[32];
+    private int count;
+
+    void reset(CharSequence source) {
+        this.source = source;
+        this.count = 0;
+    }
+
+    void add(int nameStart, int nameEnd, int valueStart, int valueEnd) {
+        int offset = count * 4;
+        if (offset + 4 > bounds.length) {
+            int[] grown = new int[bounds.length * 2];
+            System.arraycopy(bounds, 0, grown, 0, bounds.length);
+            bounds = grown;
+        }
+        bounds[offset] = nameStart;
+        bounds[offset + 1] = nameEnd;
+        bounds[offset + 2] = valueStart;
+        bounds[offset + 3] = valueEnd;
+        count++;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean has(String name) {
+        return indexOf(name) >= 0;
+    }
+
+    /** Returns the entity-decoded value of the first attribute called {@code name}, "" if it has no value, or null. */
+    public String get(String name) {
+        int index = indexOf(name);
+        if (index < 0) {
+            return null;
+        }
+        int valueStart = bounds[index * 4 + 2];
+        int valueEnd = bounds[index * 4 + 3];
+        if (valueStart >= valueEnd) {
+            return "";
+        }
+        String raw = source.subSequence(valueStart, valueEnd).toString();
+        return raw.indexOf('&') >= 0 ? Parser.unescapeEntities(raw, true) : raw;
+    }
+
+    /** Case-insensitive comparison of an attribute value without materializing it. */
+    public boolean valueEquals(String name, String expected) {
+        int index = indexOf(name);
+        if (index < 0) {
+            return false;
+        }
+        int valueStart = bounds[index * 4 + 2];
+        int valueEnd = bounds[index * 4 + 3];
+        while (valueStart < valueEnd && Character.isWhitespace(source.charAt(valueStart))) {
+            valueStart++;
+        }
+        while (valueEnd > valueStart && Character.isWhitespace(source.charAt(valueEnd - 1))) {
+            valueEnd--;
+        }
+        return valueEnd - valueStart == expected.length()
+                && regionMatchesIgnoreCase(source, valueStart, expected);
+    }
+
+    private int indexOf(String name) {
+        for (int i = 0; i < count; i++) {
+            int start = bounds[i * 4];
+            int end = bounds[i * 4 + 1];
+            if (end - start == name.length() && regionMatchesIgnoreCase(source, start, name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static boolean regionMatchesIgnoreCase(CharSequence source, int offset, String expected) {
+        if (offset + expected.length() > source.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            char a = source.charAt(offset + i);
+            char b = expected.charAt(i);
+            if (a != b && Character.toLowerCase(a) != Character.toLowerCase(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
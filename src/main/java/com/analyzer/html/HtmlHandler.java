@@ -0,0 +1,19 @@
+package com.analyzer.html;
+
+/**
+ * Receives events from {@link HtmlScanner}. Several handlers can share one scan, so
+ * each consumer of a page's HTML pays for the tokenizing pass only once.
+ */
+public interface HtmlHandler {
+
+    /** Called for every start tag; {@code name} is lower-case and {@code attributes} is only valid during the call. */
+    default void startTag(String name, Attributes attributes) {
+    }
+
+    default void endTag(String name) {
+    }
+
+    /** Character data outside tags, as a range of the source; entities are not decoded. */
+    default void text(CharSequence source, int start, int end) {
+    }
+}
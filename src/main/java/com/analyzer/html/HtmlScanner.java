@@ -0,0 +1,256 @@
+package com.analyzer.html;
+
+/**
+ * Event-driven HTML tokenizer. Makes one forward pass over the source and reports
+ * start tags, end tags and text to any number of {@link HtmlHandler}s without
+ * building a document tree. It is lenient in the way browsers are: unterminated
+ * constructs run to the end of input, and stray {@code <} is treated as text.
+ */
+public final class HtmlScanner {
+
+    private final CharSequence source;
+    private final HtmlHandler[] handlers;
+    private final Attributes attributes = new Attributes();
+
+    private HtmlScanner(CharSequence source, HtmlHandler[] handlers) {
+        this.source = source;
+        this.handlers = handlers;
+    }
+
+    public static void scan(CharSequence html, HtmlHandler... handlers) {
+        if (html == null || html.length() == 0 || handlers.length == 0) {
+            return;
+        }
+        new HtmlScanner(html, handlers).run();
+    }
+
+    private void run() {
+        int length = source.length();
+        int pos = 0;
+        while (pos < length) {
+            int lt = indexOf('<', pos);
+            if (lt < 0) {
+                emitText(pos, length);
+                return;
+            }
+            if (lt > pos) {
+                emitText(pos, lt);
+            }
+            pos = markup(lt);
+        }
+    }
+
+    /** Consumes the construct starting at {@code lt} and returns the position after it. */
+    private int markup(int lt) {
+        int length = source.length();
+        if (lt + 1 >= length) {
+            emitText(lt, length);
+            return length;
+        }
+        char next = source.charAt(lt + 1);
+
+        if (next == '!') {
+            if (startsWith("<!--", lt)) {
+                int end = indexOf("-->", lt + 4);
+                return end < 0 ? length : end + 3;
+            }
+            return skipPast('>', lt + 2);
+        }
+        if (next == '?') {
+            return skipPast('>', lt + 2);
+        }
+        if (next == '/') {
+            int nameStart = lt + 2;
+            int nameEnd = scanName(nameStart);
+            if (nameEnd > nameStart) {
+                emitEndTag(lowerName(nameStart, nameEnd));
+            }
+            return skipPast('>', nameEnd);
+        }
+        if (isLetter(next)) {
+            return startTag(lt);
+        }
+
+        emitText(lt, lt + 1);
+        return lt + 1;
+    }
+
+    private int startTag(int lt) {
+        int length = source.length();
+        int nameStart = lt + 1;
+        int nameEnd = scanName(nameStart);
+        String name = lowerName(nameStart, nameEnd);
+
+        attributes.reset(source);
+        int pos = nameEnd;
+        while (pos < length) {
+            char c = source.charAt(pos);
+            if (c == '>') {
+                pos++;
+                break;
+            }
+            if (isWhitespace(c) || c == '/') {
+                pos++;
+                continue;
+            }
+            int attrNameStart = pos;
+            while (pos < length) {
+                c = source.charAt(pos);
+                if (isWhitespace(c) || c == '=' || c == '>' || (c == '/' && pos > attrNameStart)) {
+                    break;
+                }
+                pos++;
+            }
+            int attrNameEnd = pos;
+            pos = skipWhitespace(pos);
+            int valueStart = pos;
+            int valueEnd = pos;
+            if (pos < length && source.charAt(pos) == '=') {
+                pos = skipWhitespace(pos + 1);
+                if (pos < length && (source.charAt(pos) == '"' || source.charAt(pos) == '\'')) {
+                    char quote = source.charAt(pos);
+                    valueStart = pos + 1;
+                    int close = indexOf(quote, valueStart);
+                    valueEnd = close < 0 ? length : close;
+                    pos = close < 0 ? length : close + 1;
+                } else {
+                    valueStart = pos;
+                    while (pos < length && !isWhitespace(source.charAt(pos)) && source.charAt(pos) != '>') {
+                        pos++;
+                    }
+                    valueEnd = pos;
+                }
+            }
+            attributes.add(attrNameStart, attrNameEnd, valueStart, valueEnd);
+        }
+
+        for (HtmlHandler handler : handlers) {
+            handler.startTag(name, attributes);
+        }
+
+        if (isRawText(name)) {
+            return rawText(name, pos);
+        }
+        return pos;
+    }
+
+    /** Content of script/style/title/textarea runs to the matching end tag without markup. */
+    private int rawText(String name, int from) {
+        int length = source.length();
+        int pos = from;
+        while (true) {
+            int close = indexOf("</", pos);
+            if (close < 0) {
+                emitText(from, length);
+                emitEndTag(name);
+                return length;
+            }
+            int nameEnd = close + 2 + name.length();
+            if (Attributes.regionMatchesIgnoreCase(source, close + 2, name)
+                    && (nameEnd >= length || !isNameChar(source.charAt(nameEnd)))) {
+                emitText(from, close);
+                emitEndTag(name);
+                return skipPast('>', nameEnd);
+            }
+            pos = close + 2;
+        }
+    }
+
+    private static boolean isRawText(String name) {
+        switch (name) {
+            case "script":
+            case "style":
+            case "title":
+            case "textarea":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void emitText(int start, int end) {
+        for (HtmlHandler handler : handlers) {
+            handler.text(source, start, end);
+        }
+    }
+
+    private void emitEndTag(String name) {
+        for (HtmlHandler handler : handlers) {
+            handler.endTag(name);
+        }
+    }
+
+    private int scanName(int from) {
+        int pos = from;
+        while (pos < source.length() && isNameChar(source.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private String lowerName(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (Character.isUpperCase(source.charAt(i))) {
+                return source.subSequence(start, end).toString().toLowerCase();
+            }
+        }
+        return source.subSequence(start, end).toString();
+    }
+
+    private int skipWhitespace(int from) {
+        int pos = from;
+        while (pos < source.length() && isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private int skipPast(char c, int from) {
+        int found = indexOf(c, from);
+        return found < 0 ? source.length() : found + 1;
+    }
+
+    private int indexOf(char c, int from) {
+        for (int i = from; i < source.length(); i++) {
+            if (source.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOf(String s, int from) {
+        int last = source.length() - s.length();
+        char first = s.charAt(0);
+        for (int i = from; i <= last; i++) {
+            if (source.charAt(i) == first && startsWith(s, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean startsWith(String s, int at) {
+        if (at + s.length() > source.length()) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (source.charAt(at + i) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isNameChar(char c) {
+        return !isWhitespace(c) && c != '>' && c != '/' && c != '<';
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+}
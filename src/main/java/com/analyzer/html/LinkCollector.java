@@ -0,0 +1,152 @@
+package com.analyzer.html;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Collects the outgoing links of a page ({@code a[href]}, {@code img[src]}, {@code script[src]}
+ * and {@code link[href]}) resolved against the page URL, or its {@code <base href>}. Only
+ * http(s) targets are kept; fragments are dropped and duplicates removed, in document order.
+ */
+public class LinkCollector implements HtmlHandler {
+
+    private final int maxLinks;
+    private final boolean anchorsOnly;
+    private URI base;
+    private boolean baseSeen;
+    private final Set<String> links = new LinkedHashSet<>();
+
+    public LinkCollector(String pageUrl, int maxLinks) {
+        this(pageUrl, maxLinks, false);
+    }
+
+    private LinkCollector(String pageUrl, int maxLinks, boolean anchorsOnly) {
+        this.maxLinks = maxLinks;
+        this.anchorsOnly = anchorsOnly;
+        this.base = parse(pageUrl);
+    }
+
+    /** Collects only {@code a[href]} targets, i.e. the pages a crawler would follow. */
+    public static LinkCollector anchors(String pageUrl, int maxLinks) {
+        return new LinkCollector(pageUrl, maxLinks, true);
+    }
+
+    @Override
+    public void startTag(String name, Attributes attributes) {
+        switch (name) {
+            case "base":
+                // Only the first base element counts, and only for links after it.
+                if (!baseSeen) {
+                    baseSeen = true;
+                    URI resolved = resolve(base, attributes.get("href"));
+                    if (resolved != null) {
+                        base = resolved;
+                    }
+                }
+                break;
+            case "a":
+                add(attributes.get("href"));
+                break;
+            case "img":
+            case "script":
+                if (!anchorsOnly) {
+                    add(attributes.get("src"));
+                }
+                break;
+            case "link":
+                if (!anchorsOnly && !attributes.valueEquals("rel", "preconnect")
+                        && !attributes.valueEquals("rel", "dns-prefetch")) {
+                    add(attributes.get("href"));
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** Distinct absolute http(s) URLs, in document order, at most {@code maxLinks}. */
+    public List<String> getLinks() {
+        return new ArrayList<>(links);
+    }
+
+    private void add(String ref) {
+        if (links.size() >= maxLinks) {
+            return;
+        }
+        String link = httpUrl(base, ref);
+        if (link != null) {
+            links.add(link);
+        }
+    }
+
+    /**
+     * Resolves {@code ref} against {@code base} (which may be null) and returns it without
+     * its fragment, or null unless it is an absolute http(s) URL.
+     */
+    static String httpUrl(URI base, String ref) {
+        URI uri = resolve(base, ref);
+        if (uri == null) {
+            return null;
+        }
+        String scheme = uri.getScheme();
+        if (scheme == null || uri.getHost() == null) {
+            return null;
+        }
+        scheme = scheme.toLowerCase(Locale.ROOT);
+        if (!scheme.equals("http") && !scheme.equals("https")) {
+            return null;
+        }
+        String link = uri.toString();
+        int hash = link.indexOf('#');
+        return hash >= 0 ? link.substring(0, hash) : link;
+    }
+
+    /** Resolves {@code ref} against {@code base}; null for fragments, opaque URIs and garbage. */
+    static URI resolve(URI base, String ref) {
+        if (ref == null) {
+            return null;
+        }
+        ref = ref.trim();
+        if (ref.isEmpty() || ref.startsWith("#")) {
+            return null;
+        }
+        URI uri = parse(ref);
+        if (uri == null || uri.isOpaque()) {
+            // mailto:, javascript:, tel:, data: and similar.
+            return null;
+        }
+        if (uri.isAbsolute()) {
+            return uri;
+        }
+        if (base == null) {
+            return null;
+        }
+        try {
+            return base.resolve(uri);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static URI parse(String ref) {
+        if (ref == null) {
+            return null;
+        }
+        try {
+            URI uri = new URI(ref.replace(" ", "%20"));
+            // URI.resolve() drops the slash between host and relative path when the path is empty.
+            if (uri.getHost() != null && uri.getRawPath() != null && uri.getRawPath().isEmpty()) {
+                uri = new URI(uri.getScheme() + "://" + uri.getRawAuthority() + "/"
+                        + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : ""));
+            }
+            return uri;
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+}
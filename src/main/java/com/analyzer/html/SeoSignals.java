@@ -0,0 +1,119 @@
+package com.analyzer.html;
+
+import org.jsoup.parser.Parser;
+
+/** Collects the on-page SEO signals scored by {@code ScorerService} in a single scan. */
+public class SeoSignals implements HtmlHandler {
+
+    private StringBuilder titleText;
+    private boolean inTitle;
+    private boolean titleDone;
+    private String metaDescription;
+    private boolean hasViewport;
+    private boolean hasCanonical;
+    private int h1Count;
+    private int h2Count;
+    private int imageCount;
+    private int imagesWithAlt;
+
+    @Override
+    public void startTag(String name, Attributes attributes) {
+        switch (name) {
+            case "title":
+                if (!titleDone) {
+                    inTitle = true;
+                    titleText = new StringBuilder();
+                }
+                break;
+            case "meta":
+                if (metaDescription == null && attributes.valueEquals("name", "description")) {
+                    String content = attributes.get("content");
+                    metaDescription = content != null ? content : "";
+                }
+                if (!hasViewport && attributes.valueEquals("name", "viewport")) {
+                    hasViewport = true;
+                }
+                break;
+            case "link":
+                if (!hasCanonical && attributes.valueEquals("rel", "canonical")) {
+                    String href = attributes.get("href");
+                    hasCanonical = href != null && !href.trim().isEmpty();
+                }
+                break;
+            case "h1":
+                h1Count++;
+                break;
+            case "h2":
+                h2Count++;
+                break;
+            case "img":
+                imageCount++;
+                String alt = attributes.get("alt");
+                if (alt != null && !alt.isEmpty()) {
+                    imagesWithAlt++;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void endTag(String name) {
+        if (inTitle && name.equals("title")) {
+            inTitle = false;
+            titleDone = true;
+        }
+    }
+
+    @Override
+    public void text(CharSequence source, int start, int end) {
+        if (inTitle) {
+            titleText.append(source, start, end);
+        }
+    }
+
+    /** Title text as Jsoup's {@code Element.text()} would report it, or null if there is no title tag. */
+    public String getTitle() {
+        if (titleText == null) {
+            return null;
+        }
+        String raw = titleText.indexOf("&") >= 0
+                ? Parser.unescapeEntities(titleText.toString(), false) : titleText.toString();
+        return normaliseWhitespace(raw);
+    }
+
+    /** Content of the first {@code meta name=description}, or null if there is none. */
+    public String getMetaDescription() { return metaDescription; }
+
+    public boolean hasViewport() { return hasViewport; }
+
+    /** Whether the page has a {@code link rel=canonical} with a non-empty href. */
+    public boolean hasCanonical() { return hasCanonical; }
+
+    public int getH1Count() { return h1Count; }
+
+    public int getH2Count() { return h2Count; }
+
+    public int getImageCount() { return imageCount; }
+
+    public int getImagesWithAlt() { return imagesWithAlt; }
+
+    private static String normaliseWhitespace(String text) {
+        StringBuilder out = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r' || c == '\u00a0') {
+                pendingSpace = out.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    out.append(' ');
+                    pendingSpace = false;
+                }
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,154 @@
+package com.analyzer.html;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects the subresources a browser loads with a page: scripts, stylesheets, images and
+ * preloaded fonts, resolved like {@link LinkCollector} resolves links. Images marked
+ * {@code loading="lazy"} are left out since they are not fetched until scrolled to; an
+ * image without {@code src} contributes the first {@code srcset} candidate.
+ */
+public class SubresourceCollector implements HtmlHandler {
+
+    public static final String SCRIPT = "script";
+    public static final String STYLESHEET = "stylesheet";
+    public static final String IMAGE = "image";
+    public static final String FONT = "font";
+
+    private final int maxResources;
+    private URI base;
+    private boolean baseSeen;
+    /** Type by URL, in document order; a URL keeps the type it was first seen with. */
+    private final Map<String, String> resources = new LinkedHashMap<>();
+    private final Set<String> skipped = new HashSet<>();
+
+    public SubresourceCollector(String pageUrl, int maxResources) {
+        this.maxResources = maxResources;
+        this.base = LinkCollector.parse(pageUrl);
+    }
+
+    @Override
+    public void startTag(String name, Attributes attributes) {
+        switch (name) {
+            case "base":
+                if (!baseSeen) {
+                    baseSeen = true;
+                    URI resolved = LinkCollector.resolve(base, attributes.get("href"));
+                    if (resolved != null) {
+                        base = resolved;
+                    }
+                }
+                break;
+            case "script":
+                add(attributes.get("src"), SCRIPT);
+                break;
+            case "img":
+                if (!attributes.valueEquals("loading", "lazy")) {
+                    String src = attributes.get("src");
+                    add(src != null && !src.trim().isEmpty() ? src : firstCandidate(attributes.get("srcset")), IMAGE);
+                }
+                break;
+            case "link":
+                link(attributes);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** Distinct subresources in document order, at most {@code maxResources}. */
+    public List<Subresource> getResources() {
+        List<Subresource> list = new ArrayList<>(resources.size());
+        resources.forEach((url, type) -> list.add(new Subresource(url, type)));
+        return list;
+    }
+
+    /** Subresources found past {@code maxResources}. */
+    public int getSkipped() {
+        return skipped.size();
+    }
+
+    private void link(Attributes attributes) {
+        String rel = attributes.get("rel");
+        if (rel == null) {
+            return;
+        }
+        for (String token : rel.toLowerCase(Locale.ROOT).split("\\s+")) {
+            switch (token) {
+                case "stylesheet":
+                    add(attributes.get("href"), STYLESHEET);
+                    return;
+                case "modulepreload":
+                    add(attributes.get("href"), SCRIPT);
+                    return;
+                case "preload": {
+                    String as = attributes.get("as");
+                    String type = as == null ? null : preloadType(as.trim().toLowerCase(Locale.ROOT));
+                    if (type != null) {
+                        add(attributes.get("href"), type);
+                    }
+                    return;
+                }
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void add(String ref, String type) {
+        String url = LinkCollector.httpUrl(base, ref);
+        if (url == null || resources.containsKey(url)) {
+            return;
+        }
+        if (resources.size() >= maxResources) {
+            skipped.add(url);
+            return;
+        }
+        resources.put(url, type);
+    }
+
+    private static String preloadType(String as) {
+        switch (as) {
+            case "script":
+                return SCRIPT;
+            case "style":
+                return STYLESHEET;
+            case "image":
+                return IMAGE;
+            case "font":
+                return FONT;
+            default:
+                return null;
+        }
+    }
+
+    private static String firstCandidate(String srcset) {
+        if (srcset == null) {
+            return null;
+        }
+        String trimmed = srcset.trim();
+        int end = 0;
+        while (end < trimmed.length() && !Character.isWhitespace(trimmed.charAt(end)) && trimmed.charAt(end) != ',') {
+            end++;
+        }
+        return end > 0 ? trimmed.substring(0, end) : null;
+    }
+
+    /** An absolute subresource URL and what kind of resource it is. */
+    public static class Subresource {
+        public final String url;
+        public final String type;
+
+        public Subresource(String url, String type) {
+            this.url = url;
+            this.type = type;
+        }
+    }
+}
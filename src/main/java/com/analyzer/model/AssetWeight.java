@@ -0,0 +1,22 @@
+package com.analyzer.model;
+
+/** Requests and bytes of one kind of subresource on a page. */
+public class AssetWeight {
+    private int requests;
+    private long bytes;
+
+    public AssetWeight() {
+    }
+
+    public AssetWeight(int requests, long bytes) {
+        this.requests = requests;
+        this.bytes = bytes;
+    }
+
+    public int getRequests() { return requests; }
+    public void setRequests(int requests) { this.requests = requests; }
+
+    /** Bytes received on the wire, still compressed. */
+    public long getBytes() { return bytes; }
+    public void setBytes(long bytes) { this.bytes = bytes; }
+}
@@ -0,0 +1,42 @@
+package com.analyzer.model;
+
+/** Counters for the scored-result cache, used to size it. */
+public class CacheStats {
+    private int entries;
+    private long weightBytes;
+    private long hits;
+    private long misses;
+    private long revalidations;
+    private long evictions;
+
+    public CacheStats() {
+    }
+
+    public CacheStats(int entries, long weightBytes, long hits, long misses,
+                      long revalidations, long evictions) {
+        this.entries = entries;
+        this.weightBytes = weightBytes;
+        this.hits = hits;
+        this.misses = misses;
+        this.revalidations = revalidations;
+        this.evictions = evictions;
+    }
+
+    public int getEntries() { return entries; }
+    public void setEntries(int entries) { this.entries = entries; }
+
+    public long getWeightBytes() { return weightBytes; }
+    public void setWeightBytes(long weightBytes) { this.weightBytes = weightBytes; }
+
+    public long getHits() { return hits; }
+    public void setHits(long hits) { this.hits = hits; }
+
+    public long getMisses() { return misses; }
+    public void setMisses(long misses) { this.misses = misses; }
+
+    public long getRevalidations() { return revalidations; }
+    public void setRevalidations(long revalidations) { this.revalidations = revalidations; }
+
+    public long getEvictions() { return evictions; }
+    public void setEvictions(long evictions) { this.evictions = evictions; }
+}
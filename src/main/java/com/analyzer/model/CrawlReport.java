@@ -0,0 +1,107 @@
+package com.analyzer.model;
+
+import java.util.List;
+import java.util.Map;
+
+/** Site-level aggregate of a crawl, updated as pages are scored. */
+public class CrawlReport {
+    private String id;
+    private String seed;
+    private String status;
+    private int maxPages;
+    private int maxDepth;
+    private int pagesScored;
+    private int pagesFailed;
+    private int pagesQueued;
+    private double averageScore;
+    private Map<String, Integer> scoreDistribution;
+    private double latencyP50Ms;
+    private double latencyP95Ms;
+    private List<PageScore> worstPages;
+    private long createdAt;
+    private long updatedAt;
+    private String error;
+
+    public CrawlReport() {
+    }
+
+    public CrawlReport(String id, String seed, String status, int maxPages, int maxDepth,
+                       int pagesScored, int pagesFailed, int pagesQueued, double averageScore,
+                       Map<String, Integer> scoreDistribution, double latencyP50Ms, double latencyP95Ms,
+                       List<PageScore> worstPages, long createdAt, long updatedAt, String error) {
+        this.id = id;
+        this.seed = seed;
+        this.status = status;
+        this.maxPages = maxPages;
+        this.maxDepth = maxDepth;
+        this.pagesScored = pagesScored;
+        this.pagesFailed = pagesFailed;
+        this.pagesQueued = pagesQueued;
+        this.averageScore = averageScore;
+        this.scoreDistribution = scoreDistribution;
+        this.latencyP50Ms = latencyP50Ms;
+        this.latencyP95Ms = latencyP95Ms;
+        this.worstPages = worstPages;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.error = error;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    /** Canonical form of the submitted URL. */
+    public String getSeed() { return seed; }
+    public void setSeed(String seed) { this.seed = seed; }
+
+    /** One of the {@link JobStatus} states. */
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public int getMaxPages() { return maxPages; }
+    public void setMaxPages(int maxPages) { this.maxPages = maxPages; }
+
+    public int getMaxDepth() { return maxDepth; }
+    public void setMaxDepth(int maxDepth) { this.maxDepth = maxDepth; }
+
+    /** Pages fetched and scored. */
+    public int getPagesScored() { return pagesScored; }
+    public void setPagesScored(int pagesScored) { this.pagesScored = pagesScored; }
+
+    /** Pages that could not be fetched or returned an error status. */
+    public int getPagesFailed() { return pagesFailed; }
+    public void setPagesFailed(int pagesFailed) { this.pagesFailed = pagesFailed; }
+
+    /** Discovered pages not yet analyzed. */
+    public int getPagesQueued() { return pagesQueued; }
+    public void setPagesQueued(int pagesQueued) { this.pagesQueued = pagesQueued; }
+
+    /** Mean total score of the scored pages. */
+    public double getAverageScore() { return averageScore; }
+    public void setAverageScore(double averageScore) { this.averageScore = averageScore; }
+
+    /** Scored pages per total-score decile, "0-9" through "90-100". */
+    public Map<String, Integer> getScoreDistribution() { return scoreDistribution; }
+    public void setScoreDistribution(Map<String, Integer> scoreDistribution) { this.scoreDistribution = scoreDistribution; }
+
+    public double getLatencyP50Ms() { return latencyP50Ms; }
+    public void setLatencyP50Ms(double latencyP50Ms) { this.latencyP50Ms = latencyP50Ms; }
+
+    public double getLatencyP95Ms() { return latencyP95Ms; }
+    public void setLatencyP95Ms(double latencyP95Ms) { this.latencyP95Ms = latencyP95Ms; }
+
+    /** Lowest-scoring pages, worst first; failed pages count as zero. */
+    public List<PageScore> getWorstPages() { return worstPages; }
+    public void setWorstPages(List<PageScore> worstPages) { this.worstPages = worstPages; }
+
+    /** Epoch millis. */
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+
+    /** Epoch millis of the last scored page. */
+    public long getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,28 @@
+package com.analyzer.model;
+
+/** Seed and limits for a site crawl; unset limits take the configured defaults. */
+public class CrawlRequest {
+    private String url;
+    private Integer maxPages;
+    private Integer maxDepth;
+
+    public CrawlRequest() {
+    }
+
+    public CrawlRequest(String url, Integer maxPages, Integer maxDepth) {
+        this.url = url;
+        this.maxPages = maxPages;
+        this.maxDepth = maxDepth;
+    }
+
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+
+    /** Maximum number of pages to score, including the seed. */
+    public Integer getMaxPages() { return maxPages; }
+    public void setMaxPages(Integer maxPages) { this.maxPages = maxPages; }
+
+    /** Maximum number of links followed from the seed; 0 scores the seed only. */
+    public Integer getMaxDepth() { return maxDepth; }
+    public void setMaxDepth(Integer maxDepth) { this.maxDepth = maxDepth; }
+}
@@ -0,0 +1,64 @@
+package com.analyzer.model;
+
+/** Analyses of a URL within one hour or day, summarized. Scores are medians unless named otherwise. */
+public class HistoryBucket {
+    private long start;
+    private int count;
+    private int total;
+    private int totalMin;
+    private int performance;
+    private int security;
+    private int seo;
+    private double latencyP50Ms;
+    private double latencyP90Ms;
+    private double latencyP99Ms;
+
+    public HistoryBucket() {
+    }
+
+    public HistoryBucket(long start, int count, int total, int totalMin, int performance, int security, int seo,
+                         double latencyP50Ms, double latencyP90Ms, double latencyP99Ms) {
+        this.start = start;
+        this.count = count;
+        this.total = total;
+        this.totalMin = totalMin;
+        this.performance = performance;
+        this.security = security;
+        this.seo = seo;
+        this.latencyP50Ms = latencyP50Ms;
+        this.latencyP90Ms = latencyP90Ms;
+        this.latencyP99Ms = latencyP99Ms;
+    }
+
+    /** Start of the bucket, in epoch milliseconds (UTC hours and days). */
+    public long getStart() { return start; }
+    public void setStart(long start) { this.start = start; }
+
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
+
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+
+    /** Lowest total score in the bucket. */
+    public int getTotalMin() { return totalMin; }
+    public void setTotalMin(int totalMin) { this.totalMin = totalMin; }
+
+    public int getPerformance() { return performance; }
+    public void setPerformance(int performance) { this.performance = performance; }
+
+    public int getSecurity() { return security; }
+    public void setSecurity(int security) { this.security = security; }
+
+    public int getSeo() { return seo; }
+    public void setSeo(int seo) { this.seo = seo; }
+
+    public double getLatencyP50Ms() { return latencyP50Ms; }
+    public void setLatencyP50Ms(double latencyP50Ms) { this.latencyP50Ms = latencyP50Ms; }
+
+    public double getLatencyP90Ms() { return latencyP90Ms; }
+    public void setLatencyP90Ms(double latencyP90Ms) { this.latencyP90Ms = latencyP90Ms; }
+
+    public double getLatencyP99Ms() { return latencyP99Ms; }
+    public void setLatencyP99Ms(double latencyP99Ms) { this.latencyP99Ms = latencyP99Ms; }
+}
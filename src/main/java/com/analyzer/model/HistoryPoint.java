@@ -0,0 +1,43 @@
+package com.analyzer.model;
+
+/** One stored analysis of a URL. */
+public class HistoryPoint {
+    private long time;
+    private int total;
+    private int performance;
+    private int security;
+    private int seo;
+    private double latencyMs;
+
+    public HistoryPoint() {
+    }
+
+    public HistoryPoint(long time, int total, int performance, int security, int seo, double latencyMs) {
+        this.time = time;
+        this.total = total;
+        this.performance = performance;
+        this.security = security;
+        this.seo = seo;
+        this.latencyMs = latencyMs;
+    }
+
+    /** When the analysis finished, in epoch milliseconds. */
+    public long getTime() { return time; }
+    public void setTime(long time) { this.time = time; }
+
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+
+    public int getPerformance() { return performance; }
+    public void setPerformance(int performance) { this.performance = performance; }
+
+    public int getSecurity() { return security; }
+    public void setSecurity(int security) { this.security = security; }
+
+    public int getSeo() { return seo; }
+    public void setSeo(int seo) { this.seo = seo; }
+
+    /** The latency the performance score was based on. */
+    public double getLatencyMs() { return latencyMs; }
+    public void setLatencyMs(double latencyMs) { this.latencyMs = latencyMs; }
+}
@@ -0,0 +1,58 @@
+package com.analyzer.model;
+
+/** Progress of a bulk analysis job. */
+public class JobStatus {
+    public static final String QUEUED = "queued";
+    public static final String RUNNING = "running";
+    public static final String COMPLETED = "completed";
+    public static final String CANCELLED = "cancelled";
+    public static final String FAILED = "failed";
+
+    private String id;
+    private String status;
+    private long total;
+    private long processed;
+    private long createdAt;
+    private long updatedAt;
+    private String error;
+
+    public JobStatus() {
+    }
+
+    public JobStatus(String id, String status, long total, long processed,
+                     long createdAt, long updatedAt, String error) {
+        this.id = id;
+        this.status = status;
+        this.total = total;
+        this.processed = processed;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.error = error;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    /** One of queued, running, completed, cancelled or failed. */
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    /** Number of URLs submitted. */
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+
+    /** Number of results stored so far; results are pageable up to this index. */
+    public long getProcessed() { return processed; }
+    public void setProcessed(long processed) { this.processed = processed; }
+
+    /** Epoch millis. */
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+
+    /** Epoch millis of the last progress update. */
+    public long getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
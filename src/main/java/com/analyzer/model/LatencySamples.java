@@ -0,0 +1,55 @@
+package com.analyzer.model;
+
+/** Time to first byte over repeated requests on a warm connection, in milliseconds. */
+public class LatencySamples {
+    private int samples;
+    private int failed;
+    private double minMs;
+    private double medianMs;
+    private double p90Ms;
+    private double p99Ms;
+    private double maxMs;
+    private double jitterMs;
+
+    public LatencySamples() {
+    }
+
+    public LatencySamples(int samples, int failed, double minMs, double medianMs, double p90Ms, double p99Ms,
+                          double maxMs, double jitterMs) {
+        this.samples = samples;
+        this.failed = failed;
+        this.minMs = minMs;
+        this.medianMs = medianMs;
+        this.p90Ms = p90Ms;
+        this.p99Ms = p99Ms;
+        this.maxMs = maxMs;
+        this.jitterMs = jitterMs;
+    }
+
+    /** Samples that got a response. */
+    public int getSamples() { return samples; }
+    public void setSamples(int samples) { this.samples = samples; }
+
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+
+    public double getMinMs() { return minMs; }
+    public void setMinMs(double minMs) { this.minMs = minMs; }
+
+    /** What the latency score is based on. */
+    public double getMedianMs() { return medianMs; }
+    public void setMedianMs(double medianMs) { this.medianMs = medianMs; }
+
+    public double getP90Ms() { return p90Ms; }
+    public void setP90Ms(double p90Ms) { this.p90Ms = p90Ms; }
+
+    public double getP99Ms() { return p99Ms; }
+    public void setP99Ms(double p99Ms) { this.p99Ms = p99Ms; }
+
+    public double getMaxMs() { return maxMs; }
+    public void setMaxMs(double maxMs) { this.maxMs = maxMs; }
+
+    /** Mean difference between consecutive samples. */
+    public double getJitterMs() { return jitterMs; }
+    public void setJitterMs(double jitterMs) { this.jitterMs = jitterMs; }
+}
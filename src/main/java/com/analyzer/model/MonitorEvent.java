@@ -0,0 +1,55 @@
+package com.analyzer.model;
+
+/** A change a monitor noticed on one of its URLs. */
+public class MonitorEvent {
+    private long time;
+    private String monitor;
+    private String url;
+    private String type;
+    private String subject;
+    private String previous;
+    private String current;
+
+    public MonitorEvent() {
+    }
+
+    public MonitorEvent(long time, String monitor, String url, String type, String subject,
+                        String previous, String current) {
+        this.time = time;
+        this.monitor = monitor;
+        this.url = url;
+        this.type = type;
+        this.subject = subject;
+        this.previous = previous;
+        this.current = current;
+    }
+
+    /** When the check that noticed the change finished, in epoch milliseconds. */
+    public long getTime() { return time; }
+    public void setTime(long time) { this.time = time; }
+
+    public String getMonitor() { return monitor; }
+    public void setMonitor(String monitor) { this.monitor = monitor; }
+
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+
+    /**
+     * {@code score_dropped} or {@code score_recovered} across the threshold, {@code header_added}
+     * or {@code header_removed}, {@code unreachable} or {@code reachable}.
+     */
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    /** The score ({@code total}, {@code performance}, {@code security}, {@code seo}) or header concerned. */
+    public String getSubject() { return subject; }
+    public void setSubject(String subject) { this.subject = subject; }
+
+    /** Score or header value before the change; null if there was none. */
+    public String getPrevious() { return previous; }
+    public void setPrevious(String previous) { this.previous = previous; }
+
+    /** Score or header value after the change, or the fetch error; null if there is none. */
+    public String getCurrent() { return current; }
+    public void setCurrent(String current) { this.current = current; }
+}
@@ -0,0 +1,76 @@
+package com.analyzer.model;
+
+import java.util.List;
+
+/** A registered monitor and what its checks have found so far. */
+public class MonitorReport {
+    private String name;
+    private List<String> urls;
+    private long intervalMs;
+    private int threshold;
+    private long checks;
+    private long unchanged;
+    private long analyzed;
+    private long failed;
+    private long overrun;
+    private long events;
+    private long lastCheckAt;
+
+    public MonitorReport() {
+    }
+
+    public MonitorReport(String name, List<String> urls, long intervalMs, int threshold, long checks,
+                         long unchanged, long analyzed, long failed, long overrun, long events,
+                         long lastCheckAt) {
+        this.name = name;
+        this.urls = urls;
+        this.intervalMs = intervalMs;
+        this.threshold = threshold;
+        this.checks = checks;
+        this.unchanged = unchanged;
+        this.analyzed = analyzed;
+        this.failed = failed;
+        this.overrun = overrun;
+        this.events = events;
+        this.lastCheckAt = lastCheckAt;
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    /** Normalized, without duplicates. */
+    public List<String> getUrls() { return urls; }
+    public void setUrls(List<String> urls) { this.urls = urls; }
+
+    public long getIntervalMs() { return intervalMs; }
+    public void setIntervalMs(long intervalMs) { this.intervalMs = intervalMs; }
+
+    public int getThreshold() { return threshold; }
+    public void setThreshold(int threshold) { this.threshold = threshold; }
+
+    /** Checks completed since the monitor was registered or the service started. */
+    public long getChecks() { return checks; }
+    public void setChecks(long checks) { this.checks = checks; }
+
+    /** Checks that found the page unchanged (a 304, or the same body) and skipped scoring. */
+    public long getUnchanged() { return unchanged; }
+    public void setUnchanged(long unchanged) { this.unchanged = unchanged; }
+
+    /** Checks that found a changed page and scored it. */
+    public long getAnalyzed() { return analyzed; }
+    public void setAnalyzed(long analyzed) { this.analyzed = analyzed; }
+
+    public long getFailed() { return failed; }
+    public void setFailed(long failed) { this.failed = failed; }
+
+    /** Checks skipped because the URL's previous check was still running. */
+    public long getOverrun() { return overrun; }
+    public void setOverrun(long overrun) { this.overrun = overrun; }
+
+    public long getEvents() { return events; }
+    public void setEvents(long events) { this.events = events; }
+
+    /** When the last check finished, in epoch milliseconds; 0 before the first. */
+    public long getLastCheckAt() { return lastCheckAt; }
+    public void setLastCheckAt(long lastCheckAt) { this.lastCheckAt = lastCheckAt; }
+}
@@ -0,0 +1,36 @@
+package com.analyzer.model;
+
+import java.util.List;
+
+/** A named URL set to re-analyze every interval; unset fields take the configured defaults. */
+public class MonitorRequest {
+    private String name;
+    private List<String> urls;
+    private Long intervalMs;
+    private Integer threshold;
+
+    public MonitorRequest() {
+    }
+
+    public MonitorRequest(String name, List<String> urls, Long intervalMs, Integer threshold) {
+        this.name = name;
+        this.urls = urls;
+        this.intervalMs = intervalMs;
+        this.threshold = threshold;
+    }
+
+    /** Letters, digits, '.', '_' and '-', other than "events"; taken from the path when registering. */
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public List<String> getUrls() { return urls; }
+    public void setUrls(List<String> urls) { this.urls = urls; }
+
+    /** How often each URL is checked. */
+    public Long getIntervalMs() { return intervalMs; }
+    public void setIntervalMs(Long intervalMs) { this.intervalMs = intervalMs; }
+
+    /** Score whose crossing, in either direction, by the total or any category raises an event. */
+    public Integer getThreshold() { return threshold; }
+    public void setThreshold(Integer threshold) { this.threshold = threshold; }
+}
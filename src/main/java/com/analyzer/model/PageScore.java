@@ -0,0 +1,48 @@
+package com.analyzer.model;
+
+/** One crawled page in a {@link CrawlReport}. */
+public class PageScore {
+    private String url;
+    private int depth;
+    private int total;
+    private int performance;
+    private int security;
+    private int seo;
+    private double latencyMs;
+
+    public PageScore() {
+    }
+
+    public PageScore(String url, int depth, int total, int performance, int security, int seo, double latencyMs) {
+        this.url = url;
+        this.depth = depth;
+        this.total = total;
+        this.performance = performance;
+        this.security = security;
+        this.seo = seo;
+        this.latencyMs = latencyMs;
+    }
+
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+
+    /** Links followed from the seed to reach the page. */
+    public int getDepth() { return depth; }
+    public void setDepth(int depth) { this.depth = depth; }
+
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+
+    public int getPerformance() { return performance; }
+    public void setPerformance(int performance) { this.performance = performance; }
+
+    public int getSecurity() { return security; }
+    public void setSecurity(int security) { this.security = security; }
+
+    public int getSeo() { return seo; }
+    public void setSeo(int seo) { this.seo = seo; }
+
+    /** Fetch latency, or -1 if the page could not be fetched. */
+    public double getLatencyMs() { return latencyMs; }
+    public void setLatencyMs(double latencyMs) { this.latencyMs = latencyMs; }
+}
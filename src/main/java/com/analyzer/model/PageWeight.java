@@ -0,0 +1,62 @@
+package com.analyzer.model;
+
+import java.util.Map;
+
+/** What loading a page costs a browser: the document plus its scripts, stylesheets, images and fonts. */
+public class PageWeight {
+    private long totalBytes;
+    private int requests;
+    private Map<String, AssetWeight> byType;
+    private int assetsFailed;
+    private int assetsSkipped;
+    private int compressedPercent;
+    private int cacheablePercent;
+    private boolean truncated;
+
+    public PageWeight() {
+    }
+
+    public PageWeight(long totalBytes, int requests, Map<String, AssetWeight> byType, int assetsFailed,
+                      int assetsSkipped, int compressedPercent, int cacheablePercent, boolean truncated) {
+        this.totalBytes = totalBytes;
+        this.requests = requests;
+        this.byType = byType;
+        this.assetsFailed = assetsFailed;
+        this.assetsSkipped = assetsSkipped;
+        this.compressedPercent = compressedPercent;
+        this.cacheablePercent = cacheablePercent;
+        this.truncated = truncated;
+    }
+
+    /** Wire bytes of the document and every measured asset. */
+    public long getTotalBytes() { return totalBytes; }
+    public void setTotalBytes(long totalBytes) { this.totalBytes = totalBytes; }
+
+    /** The document plus the assets measured. */
+    public int getRequests() { return requests; }
+    public void setRequests(int requests) { this.requests = requests; }
+
+    /** Keyed by {@code script}, {@code stylesheet}, {@code image} and {@code font}. */
+    public Map<String, AssetWeight> getByType() { return byType; }
+    public void setByType(Map<String, AssetWeight> byType) { this.byType = byType; }
+
+    /** Assets that answered with an error status or could not be fetched. */
+    public int getAssetsFailed() { return assetsFailed; }
+    public void setAssetsFailed(int assetsFailed) { this.assetsFailed = assetsFailed; }
+
+    /** Assets not measured because a count, byte or time cap was reached. */
+    public int getAssetsSkipped() { return assetsSkipped; }
+    public void setAssetsSkipped(int assetsSkipped) { this.assetsSkipped = assetsSkipped; }
+
+    /** Share of text assets (scripts, stylesheets, SVG) served compressed, or -1 if there were none. */
+    public int getCompressedPercent() { return compressedPercent; }
+    public void setCompressedPercent(int compressedPercent) { this.compressedPercent = compressedPercent; }
+
+    /** Share of measured assets a browser may cache (max-age, public or immutable), or -1 if there were none. */
+    public int getCacheablePercent() { return cacheablePercent; }
+    public void setCacheablePercent(int cacheablePercent) { this.cacheablePercent = cacheablePercent; }
+
+    /** True if a cap stopped the measurement, so the page weighs at least {@link #getTotalBytes()}. */
+    public boolean isTruncated() { return truncated; }
+    public void setTruncated(boolean truncated) { this.truncated = truncated; }
+}
@@ -1,5 +1,7 @@
 package com.analyzer.model;
 
+import java.util.List;
+
 /** Performance metrics for a website. */
 public class PerformanceDetails {
     private double latencyMs;
@@ -10,6 +12,19 @@ public class PerformanceDetails {
     private int brokenLinks;
     private int totalLinks;
     private int overallScore;
+    private long transferBytes = -1;
+    private long decodedBytes = -1;
+    private double dnsMs = -1;
+    private double connectMs = -1;
+    private double tlsMs = -1;
+    private double ttfbMs = -1;
+    private double downloadMs = -1;
+    private boolean connectionReused;
+    private boolean dnsCached;
+    private boolean tlsResumed;
+    private PageWeight pageWeight;
+    private LatencySamples latencySamples;
+    private List<RuleCheck> checks;
 
     public PerformanceDetails() {
     }
@@ -30,6 +45,10 @@ public class PerformanceDetails {
     public double getLatencyMs() { return latencyMs; }
     public void setLatencyMs(double latencyMs) { this.latencyMs = latencyMs; }
 
+    /**
+     * Scored from the median of {@link #getLatencySamples()} when sampling is on, else from
+     * {@link #getTtfbMs()} when the breakdown is known, otherwise from {@link #getLatencyMs()}.
+     */
     public int getLatencyScore() { return latencyScore; }
     public void setLatencyScore(int latencyScore) { this.latencyScore = latencyScore; }
 
@@ -50,4 +69,56 @@ public class PerformanceDetails {
 
     public int getOverallScore() { return overallScore; }
     public void setOverallScore(int overallScore) { this.overallScore = overallScore; }
+
+    /** Body bytes received on the wire (still compressed), or -1 if unknown. */
+    public long getTransferBytes() { return transferBytes; }
+    public void setTransferBytes(long transferBytes) { this.transferBytes = transferBytes; }
+
+    /** Body bytes after content decoding, or -1 if unknown. */
+    public long getDecodedBytes() { return decodedBytes; }
+    public void setDecodedBytes(long decodedBytes) { this.decodedBytes = decodedBytes; }
+
+    /** Name resolution time, 0 if no lookup was needed, or -1 if unknown. */
+    public double getDnsMs() { return dnsMs; }
+    public void setDnsMs(double dnsMs) { this.dnsMs = dnsMs; }
+
+    /** TCP connect time, 0 on a reused connection, or -1 if unknown. */
+    public double getConnectMs() { return connectMs; }
+    public void setConnectMs(double connectMs) { this.connectMs = connectMs; }
+
+    /** TLS handshake time, 0 for plain HTTP or a reused connection, or -1 if unknown. */
+    public double getTlsMs() { return tlsMs; }
+    public void setTlsMs(double tlsMs) { this.tlsMs = tlsMs; }
+
+    /** Request sent until response headers received, or -1 if unknown. */
+    public double getTtfbMs() { return ttfbMs; }
+    public void setTtfbMs(double ttfbMs) { this.ttfbMs = ttfbMs; }
+
+    /** Time to read the body, or -1 if unknown. */
+    public double getDownloadMs() { return downloadMs; }
+    public void setDownloadMs(double downloadMs) { this.downloadMs = downloadMs; }
+
+    /** True when the request went out on a pooled keep-alive connection. */
+    public boolean isConnectionReused() { return connectionReused; }
+    public void setConnectionReused(boolean connectionReused) { this.connectionReused = connectionReused; }
+
+    /** True when the host name came from our resolver cache, so {@link #getDnsMs()} is our overhead only. */
+    public boolean isDnsCached() { return dnsCached; }
+    public void setDnsCached(boolean dnsCached) { this.dnsCached = dnsCached; }
+
+    /** True when the TLS handshake resumed a cached session, which is cheaper than a full one. */
+    public boolean isTlsResumed() { return tlsResumed; }
+    public void setTlsResumed(boolean tlsResumed) { this.tlsResumed = tlsResumed; }
+
+    /** Full page weight, or null unless {@code analyzer.page-weight.enabled} is set. */
+    public PageWeight getPageWeight() { return pageWeight; }
+    public void setPageWeight(PageWeight pageWeight) { this.pageWeight = pageWeight; }
+
+    /** Repeated time-to-first-byte samples, or null unless {@code analyzer.latency.samples} is above 1. */
+    public LatencySamples getLatencySamples() { return latencySamples; }
+    public void setLatencySamples(LatencySamples latencySamples) { this.latencySamples = latencySamples; }
+
+    /** Outcome of every scoring rule check of this category, in rule order. */
+    public List<RuleCheck> getChecks() { return checks; }
+    public void setChecks(List<RuleCheck> checks) { this.checks = checks; }
 }
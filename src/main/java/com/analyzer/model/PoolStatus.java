@@ -0,0 +1,54 @@
+package com.analyzer.model;
+
+import java.util.Map;
+
+/** Limits and usage of one HTTP client's connection pool. */
+public class PoolStatus {
+    private String client;
+    private int maxTotal;
+    private int defaultMaxPerRoute;
+    private Map<String, Integer> hostLimits;
+    private int leased;
+    private int available;
+    private int pending;
+
+    public PoolStatus() {
+    }
+
+    public PoolStatus(String client, int maxTotal, int defaultMaxPerRoute, Map<String, Integer> hostLimits,
+                      int leased, int available, int pending) {
+        this.client = client;
+        this.maxTotal = maxTotal;
+        this.defaultMaxPerRoute = defaultMaxPerRoute;
+        this.hostLimits = hostLimits;
+        this.leased = leased;
+        this.available = available;
+        this.pending = pending;
+    }
+
+    /** classic or async. */
+    public String getClient() { return client; }
+    public void setClient(String client) { this.client = client; }
+
+    public int getMaxTotal() { return maxTotal; }
+    public void setMaxTotal(int maxTotal) { this.maxTotal = maxTotal; }
+
+    public int getDefaultMaxPerRoute() { return defaultMaxPerRoute; }
+    public void setDefaultMaxPerRoute(int defaultMaxPerRoute) { this.defaultMaxPerRoute = defaultMaxPerRoute; }
+
+    /** Hosts with their own connection limit, overriding the default. */
+    public Map<String, Integer> getHostLimits() { return hostLimits; }
+    public void setHostLimits(Map<String, Integer> hostLimits) { this.hostLimits = hostLimits; }
+
+    /** Connections in use. */
+    public int getLeased() { return leased; }
+    public void setLeased(int leased) { this.leased = leased; }
+
+    /** Idle connections kept alive. */
+    public int getAvailable() { return available; }
+    public void setAvailable(int available) { this.available = available; }
+
+    /** Requests waiting for a connection. */
+    public int getPending() { return pending; }
+    public void setPending(int pending) { this.pending = pending; }
+}
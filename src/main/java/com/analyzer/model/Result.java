@@ -1,14 +1,29 @@
 package com.analyzer.model;
 
+import com.fasterxml.jackson.annotation.JsonView;
+
 /** Complete analysis result for a single website. */
 public class Result {
+
+    /** Jackson view with the scores only, leaving out the detail objects. */
+    public interface Summary {
+    }
+
+    @JsonView(Summary.class)
     private String url;
+    @JsonView(Summary.class)
     private int performance;
+    @JsonView(Summary.class)
     private int security;
+    @JsonView(Summary.class)
     private int seo;
+    @JsonView(Summary.class)
     private int total;
+    @JsonView(Summary.class)
     private String backend;
+    @JsonView(Summary.class)
     private String protocols;
+    @JsonView(Summary.class)
     private String responseTime;
     private PerformanceDetails performanceDetails;
     private SecurityDetails securityDetails;
@@ -0,0 +1,40 @@
+package com.analyzer.model;
+
+import java.util.List;
+
+/** One page of a bulk job's results, in input order. */
+public class ResultPage {
+    private String jobId;
+    private long offset;
+    private long processed;
+    private Long nextOffset;
+    private List<Result> results;
+
+    public ResultPage() {
+    }
+
+    public ResultPage(String jobId, long offset, long processed, Long nextOffset, List<Result> results) {
+        this.jobId = jobId;
+        this.offset = offset;
+        this.processed = processed;
+        this.nextOffset = nextOffset;
+        this.results = results;
+    }
+
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public long getOffset() { return offset; }
+    public void setOffset(long offset) { this.offset = offset; }
+
+    /** Results available when the page was read; the job may still be adding more. */
+    public long getProcessed() { return processed; }
+    public void setProcessed(long processed) { this.processed = processed; }
+
+    /** Offset of the next page, or null if this page reached the end of the stored results. */
+    public Long getNextOffset() { return nextOffset; }
+    public void setNextOffset(Long nextOffset) { this.nextOffset = nextOffset; }
+
+    public List<Result> getResults() { return results; }
+    public void setResults(List<Result> results) { this.results = results; }
+}
@@ -0,0 +1,35 @@
+package com.analyzer.model;
+
+/**
+ * Outcome of one scoring rule check. Instances are built when rules are loaded and shared
+ * by every result with the same outcome, so they must not be modified.
+ */
+public class RuleCheck {
+    private String id;
+    private int score;
+    private int weight;
+    private String rule;
+
+    public RuleCheck() {
+    }
+
+    public RuleCheck(String id, int score, int weight, String rule) {
+        this.id = id;
+        this.score = score;
+        this.weight = weight;
+        this.rule = rule;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public int getScore() { return score; }
+    public void setScore(int score) { this.score = score; }
+
+    public int getWeight() { return weight; }
+    public void setWeight(int weight) { this.weight = weight; }
+
+    /** The case that matched, e.g. {@code latency_ms <= 200}, or {@code otherwise}. */
+    public String getRule() { return rule; }
+    public void setRule(String rule) { this.rule = rule; }
+}
@@ -1,5 +1,7 @@
 package com.analyzer.model;
 
+import java.util.List;
+
 /** SEO (Search Engine Optimization) metrics for a website. */
 public class SEODetails {
     private boolean hasMetaTags;
@@ -12,6 +14,8 @@ public class SEODetails {
     private boolean hasPageTitle;
     private boolean hasMetaDescription;
     private int overallScore;
+    private long sitemapUrls = -1;
+    private List<RuleCheck> checks;
 
     public SEODetails() {
     }
@@ -62,4 +66,12 @@ public class SEODetails {
 
     public int getOverallScore() { return overallScore; }
     public void setOverallScore(int overallScore) { this.overallScore = overallScore; }
+
+    /** URLs listed in the origin's sitemaps (as far as they were read), or -1 if unknown. */
+    public long getSitemapUrls() { return sitemapUrls; }
+    public void setSitemapUrls(long sitemapUrls) { this.sitemapUrls = sitemapUrls; }
+
+    /** Outcome of every scoring rule check of this category, in rule order. */
+    public List<RuleCheck> getChecks() { return checks; }
+    public void setChecks(List<RuleCheck> checks) { this.checks = checks; }
 }
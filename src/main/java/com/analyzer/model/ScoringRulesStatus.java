@@ -0,0 +1,42 @@
+package com.analyzer.model;
+
+import java.util.Map;
+
+/** The scoring rules in use and the outcome of the last attempt to reload them. */
+public class ScoringRulesStatus {
+    private String source;
+    private long version;
+    private long loadedAt;
+    private Map<String, Integer> checks;
+    private String error;
+
+    public ScoringRulesStatus() {
+    }
+
+    public ScoringRulesStatus(String source, long version, long loadedAt, Map<String, Integer> checks, String error) {
+        this.source = source;
+        this.version = version;
+        this.loadedAt = loadedAt;
+        this.checks = checks;
+        this.error = error;
+    }
+
+    /** The rule file, or the built-in rules on the classpath. */
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
+
+    /** Incremented by every successful reload. */
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public long getLoadedAt() { return loadedAt; }
+    public void setLoadedAt(long loadedAt) { this.loadedAt = loadedAt; }
+
+    /** Number of checks by category. */
+    public Map<String, Integer> getChecks() { return checks; }
+    public void setChecks(Map<String, Integer> checks) { this.checks = checks; }
+
+    /** Why the last reload was rejected, while the previous rules stay in use; null after a good reload. */
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
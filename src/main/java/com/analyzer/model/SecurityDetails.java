@@ -1,5 +1,7 @@
 package com.analyzer.model;
 
+import java.util.List;
+
 /** Security assessment based on HTTPS and security headers. */
 public class SecurityDetails {
     private boolean https;
@@ -9,6 +11,7 @@ public class SecurityDetails {
     private boolean xFrameOptions;
     private boolean referrerPolicy;
     private int overallScore;
+    private List<RuleCheck> checks;
 
     public SecurityDetails() {
     }
@@ -47,4 +50,8 @@ public class SecurityDetails {
 
     public int getOverallScore() { return overallScore; }
     public void setOverallScore(int overallScore) { this.overallScore = overallScore; }
+
+    /** Outcome of every scoring rule check of this category, in rule order. */
+    public List<RuleCheck> getChecks() { return checks; }
+    public void setChecks(List<RuleCheck> checks) { this.checks = checks; }
 }
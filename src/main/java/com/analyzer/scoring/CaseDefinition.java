@@ -0,0 +1,22 @@
+package com.analyzer.scoring;
+
+import java.util.List;
+
+/**
+ * A condition with a score, matching when its own test and every condition in {@code all}
+ * match. The score is either fixed or read from a metric ({@code score_from}, clamped to 0-100).
+ */
+public class CaseDefinition extends ConditionDefinition {
+    private Integer score;
+    private String scoreFrom;
+    private List<ConditionDefinition> all;
+
+    public Integer getScore() { return score; }
+    public void setScore(Integer score) { this.score = score; }
+
+    public String getScoreFrom() { return scoreFrom; }
+    public void setScoreFrom(String scoreFrom) { this.scoreFrom = scoreFrom; }
+
+    public List<ConditionDefinition> getAll() { return all; }
+    public void setAll(List<ConditionDefinition> all) { this.all = all; }
+}
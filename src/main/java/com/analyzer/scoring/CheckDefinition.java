@@ -0,0 +1,39 @@
+package com.analyzer.scoring;
+
+import java.util.List;
+
+/**
+ * One scored check: the first case that matches gives its score, else {@code otherwise}.
+ * A category's score is the weighted mean of its checks' scores.
+ */
+public class CheckDefinition {
+    private String id;
+    private Integer weight;
+    private String metric;
+    private String header;
+    private List<CaseDefinition> cases;
+    private Integer otherwise;
+
+    /** Unique within the category; reported with the check's outcome. */
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    /** Defaults to 1; 0 reports the check without scoring it. */
+    public Integer getWeight() { return weight; }
+    public void setWeight(Integer weight) { this.weight = weight; }
+
+    /** Metric tested by conditions that name neither a metric nor a header. */
+    public String getMetric() { return metric; }
+    public void setMetric(String metric) { this.metric = metric; }
+
+    /** Header tested by conditions that name neither a metric nor a header. */
+    public String getHeader() { return header; }
+    public void setHeader(String header) { this.header = header; }
+
+    public List<CaseDefinition> getCases() { return cases; }
+    public void setCases(List<CaseDefinition> cases) { this.cases = cases; }
+
+    /** Score when no case matches; defaults to 0. */
+    public Integer getOtherwise() { return otherwise; }
+    public void setOtherwise(Integer otherwise) { this.otherwise = otherwise; }
+}
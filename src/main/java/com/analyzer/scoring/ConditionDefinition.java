@@ -0,0 +1,41 @@
+package com.analyzer.scoring;
+
+/**
+ * A test of one metric ({@code min}, {@code max}, {@code present}) or one response header
+ * ({@code present}, {@code equals}, {@code contains}; both compare case-insensitively).
+ * Without a metric or header of its own it tests the check's. A condition with no test
+ * always matches.
+ */
+public class ConditionDefinition {
+    private String metric;
+    private String header;
+    private Double min;
+    private Double max;
+    private Boolean present;
+    private String equals;
+    private String contains;
+
+    public String getMetric() { return metric; }
+    public void setMetric(String metric) { this.metric = metric; }
+
+    public String getHeader() { return header; }
+    public void setHeader(String header) { this.header = header; }
+
+    /** Inclusive lower bound. */
+    public Double getMin() { return min; }
+    public void setMin(Double min) { this.min = min; }
+
+    /** Inclusive upper bound. */
+    public Double getMax() { return max; }
+    public void setMax(Double max) { this.max = max; }
+
+    /** Whether the metric is known, or the header sent. */
+    public Boolean getPresent() { return present; }
+    public void setPresent(Boolean present) { this.present = present; }
+
+    public String getEquals() { return equals; }
+    public void setEquals(String equals) { this.equals = equals; }
+
+    public String getContains() { return contains; }
+    public void setContains(String contains) { this.contains = contains; }
+}
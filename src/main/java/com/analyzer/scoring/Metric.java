@@ -0,0 +1,59 @@
+package com.analyzer.scoring;
+
+import java.util.Locale;
+
+/**
+ * Values a rule can test, measured by the scorer of one category. A value that is not
+ * known for a page (no {@code Content-Length}, no title, page weight off) is missing and
+ * fails every {@code min}/{@code max} test. Flags are 1 when set and 0 otherwise.
+ */
+public enum Metric {
+    /** The latency performance is scored on: the sampled median, else TTFB, else the whole fetch. */
+    LATENCY_MS(ScoreCategory.PERFORMANCE),
+    /** Document size, the larger of the bytes received and {@code Content-Length}. */
+    CONTENT_BYTES(ScoreCategory.PERFORMANCE),
+    /** Document and subresources, when page weight is measured. */
+    PAGE_BYTES(ScoreCategory.PERFORMANCE),
+    BROKEN_LINKS(ScoreCategory.PERFORMANCE),
+    TOTAL_LINKS(ScoreCategory.PERFORMANCE),
+    HTTPS(ScoreCategory.SECURITY),
+    TITLE_LENGTH(ScoreCategory.SEO),
+    META_DESCRIPTION_LENGTH(ScoreCategory.SEO),
+    H1_COUNT(ScoreCategory.SEO),
+    H2_COUNT(ScoreCategory.SEO),
+    VIEWPORT(ScoreCategory.SEO),
+    CANONICAL(ScoreCategory.SEO),
+    IMAGE_COUNT(ScoreCategory.SEO),
+    /** Share of images with alt text, 0 to 100; 0 when there are no images. */
+    IMAGE_ALT_PERCENT(ScoreCategory.SEO),
+    ROBOTS_TXT(ScoreCategory.SEO),
+    SITEMAP(ScoreCategory.SEO);
+
+    static final int COUNT = values().length;
+
+    private final ScoreCategory category;
+
+    Metric(ScoreCategory category) {
+        this.category = category;
+    }
+
+    /** The category whose scorer measures this value; rules of other categories cannot use it. */
+    public ScoreCategory category() {
+        return category;
+    }
+
+    /** Name used in rule files. */
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /** The metric named {@code key} in a rule file, or null. */
+    static Metric byKey(String key) {
+        for (Metric metric : values()) {
+            if (metric.key().equals(key)) {
+                return metric;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,634 @@
+package com.analyzer.scoring;
+
+import com.analyzer.model.RuleCheck;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A compiled, immutable set of scoring rules. Names are resolved to array indexes when the
+ * rules are compiled, and every possible outcome of every check is built then too, so
+ * evaluating a page reads metrics and headers, compares and picks a prebuilt outcome.
+ * The list of outcomes handed to the result is interned too, so pages that score alike
+ * share one list and nothing is allocated per page once the common combinations are seen.
+ * Header values are looked up once per page and matched without lower-casing them.
+ */
+public final class RuleSet {
+
+    private static final int METRIC_RANGE = 0;
+    private static final int METRIC_PRESENT = 1;
+    private static final int METRIC_ABSENT = 2;
+    private static final int HEADER_PRESENT = 3;
+    private static final int HEADER_ABSENT = 4;
+    private static final int HEADER_EQUALS = 5;
+    private static final int HEADER_CONTAINS = 6;
+
+    private final String source;
+    private final long loadedAt;
+    /** Distinct outcome lists kept per category; past this, further combinations are copied per page. */
+    private static final int MAX_INTERNED = 4096;
+
+    /**
+     * Per thread, the inputs of the rule set that thread last scored with, by category. Shared
+     * by all rule sets, so a reload leaves at most one stale set per thread until it next scores.
+     */
+    private static final ThreadLocal<Inputs[]> SCRATCH = new ThreadLocal<>();
+
+    /** Checks by category ordinal, in evaluation order. */
+    private final Check[][] checks;
+    /** Header names by slot. */
+    private final String[] headers;
+    /** Outcome lists already handed out, by category ordinal. */
+    private final OutcomeLists[] interned;
+
+    private RuleSet(String source, long loadedAt, Check[][] checks, String[] headers) {
+        this.source = source;
+        this.loadedAt = loadedAt;
+        this.checks = checks;
+        this.headers = headers;
+        this.interned = new OutcomeLists[checks.length];
+        for (int i = 0; i < checks.length; i++) {
+            interned[i] = new OutcomeLists(checks[i]);
+        }
+    }
+
+    /**
+     * Compiles {@code definition}; {@code source} only names it in reports.
+     *
+     * @throws IllegalArgumentException naming the first invalid check
+     */
+    public static RuleSet compile(RuleSetDefinition definition, String source) {
+        if (definition == null) {
+            throw new IllegalArgumentException("empty rule set");
+        }
+        Compiler compiler = new Compiler();
+        ScoreCategory[] categories = ScoreCategory.values();
+        Check[][] checks = new Check[categories.length][];
+        for (ScoreCategory category : categories) {
+            checks[category.ordinal()] = compiler.category(category, definition.checks(category));
+        }
+        return new RuleSet(source, System.currentTimeMillis(), checks, compiler.headers.toArray(new String[0]));
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /** When the rules were compiled, in epoch milliseconds. */
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    public int checkCount(ScoreCategory category) {
+        return checks[category.ordinal()].length;
+    }
+
+    /**
+     * This thread's inputs for scoring one page in {@code category}, with every metric
+     * missing. They stay valid until the next call for the same category on this thread.
+     */
+    public Inputs inputs(ScoreCategory category, HttpResponse response) {
+        Inputs[] all = SCRATCH.get();
+        if (all == null || all[0].owner() != this) {
+            all = new Inputs[checks.length];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = new Inputs(i, checks[i]);
+            }
+            SCRATCH.set(all);
+        }
+        Inputs inputs = all[category.ordinal()];
+        inputs.reset(response);
+        return inputs;
+    }
+
+    /** One page's metrics and response, and the outcome of each check once evaluated. */
+    public final class Inputs {
+        private final int category;
+        private final Check[] checks;
+        private final double[] metrics = new double[Metric.COUNT];
+        private final String[] headerValues = new String[headers.length];
+        private final boolean[] headerLoaded = new boolean[headers.length];
+        private final RuleCheck[] outcomes;
+        private HttpResponse response;
+
+        private Inputs(int category, Check[] checks) {
+            this.category = category;
+            this.checks = checks;
+            this.outcomes = new RuleCheck[checks.length];
+        }
+
+        private RuleSet owner() {
+            return RuleSet.this;
+        }
+
+        private void reset(HttpResponse response) {
+            this.response = response;
+            Arrays.fill(metrics, Double.NaN);
+            Arrays.fill(headerValues, null);
+            Arrays.fill(headerLoaded, false);
+            Arrays.fill(outcomes, null);
+        }
+
+        public Inputs set(Metric metric, double value) {
+            metrics[metric.ordinal()] = value;
+            return this;
+        }
+
+        public Inputs set(Metric metric, boolean value) {
+            return set(metric, value ? 1 : 0);
+        }
+
+        /** Runs every check and returns the weighted mean of their scores, rounded down. */
+        public int evaluate() {
+            long weighted = 0;
+            long weights = 0;
+            for (int i = 0; i < checks.length; i++) {
+                RuleCheck outcome = checks[i].evaluate(this);
+                outcomes[i] = outcome;
+                weighted += (long) outcome.getScore() * outcome.getWeight();
+                weights += outcome.getWeight();
+            }
+            return weights > 0 ? (int) (weighted / weights) : 0;
+        }
+
+        /** Score of the check {@code id} in the last evaluation; 0 if there is no such check. */
+        public int score(String id) {
+            for (int i = 0; i < checks.length; i++) {
+                if (checks[i].id.equals(id) && outcomes[i] != null) {
+                    return outcomes[i].getScore();
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Outcomes of the last evaluation, in check order, as an unmodifiable list the caller
+         * may keep. Pages with the same outcomes get the same list.
+         */
+        public List<RuleCheck> checks() {
+            return interned[category].get(outcomes);
+        }
+
+        private String header(int slot) {
+            if (!headerLoaded[slot]) {
+                Header header = response != null ? response.getFirstHeader(headers[slot]) : null;
+                headerValues[slot] = header != null ? header.getValue() : null;
+                headerLoaded[slot] = true;
+            }
+            return headerValues[slot];
+        }
+    }
+
+    private static final class Check {
+        final String id;
+        final Case[] cases;
+        final RuleCheck otherwise;
+        /** Every outcome the check can have, identity-indexed by {@link #indexOf}. */
+        final RuleCheck[] outcomes;
+
+        Check(String id, Case[] cases, RuleCheck otherwise) {
+            this.id = id;
+            this.cases = cases;
+            this.otherwise = otherwise;
+            List<RuleCheck> all = new ArrayList<>();
+            for (Case c : cases) {
+                if (c.outcome != null) {
+                    all.add(c.outcome);
+                } else {
+                    all.addAll(Arrays.asList(c.byScore));
+                }
+            }
+            all.add(otherwise);
+            this.outcomes = all.toArray(new RuleCheck[0]);
+        }
+
+        /** Position of {@code outcome} among {@link #outcomes}, found from its case without a search. */
+        int indexOf(RuleCheck outcome) {
+            int base = 0;
+            for (Case c : cases) {
+                if (c.outcome != null) {
+                    if (c.outcome == outcome) {
+                        return base;
+                    }
+                    base++;
+                } else {
+                    if (c.byScore[outcome.getScore()] == outcome) {
+                        return base + outcome.getScore();
+                    }
+                    base += c.byScore.length;
+                }
+            }
+            return base;
+        }
+
+        RuleCheck evaluate(Inputs inputs) {
+            for (Case c : cases) {
+                if (c.matches(inputs)) {
+                    return c.outcome(inputs);
+                }
+            }
+            return otherwise;
+        }
+    }
+
+    private static final class Case {
+        final Condition[] conditions;
+        /** The outcome, or null when the score is read from {@link #scoreFrom}. */
+        final RuleCheck outcome;
+        final int scoreFrom;
+        /** Outcomes by score 0-100 when the score is read from a metric. */
+        final RuleCheck[] byScore;
+
+        Case(Condition[] conditions, RuleCheck outcome, int scoreFrom, RuleCheck[] byScore) {
+            this.conditions = conditions;
+            this.outcome = outcome;
+            this.scoreFrom = scoreFrom;
+            this.byScore = byScore;
+        }
+
+        boolean matches(Inputs inputs) {
+            for (Condition condition : conditions) {
+                if (!condition.test(inputs)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        RuleCheck outcome(Inputs inputs) {
+            if (outcome != null) {
+                return outcome;
+            }
+            double value = inputs.metrics[scoreFrom];
+            return byScore[Double.isNaN(value) ? 0 : (int) Math.max(0, Math.min(100, Math.round(value)))];
+        }
+    }
+
+    /** One test; a single class switching on {@code op} keeps the call site monomorphic. */
+    private static final class Condition {
+        final int op;
+        /** Metric ordinal or header slot. */
+        final int index;
+        final double min;
+        final double max;
+        final String literal;
+        final String text;
+
+        Condition(int op, int index, double min, double max, String literal, String text) {
+            this.op = op;
+            this.index = index;
+            this.min = min;
+            this.max = max;
+            this.literal = literal;
+            this.text = text;
+        }
+
+        boolean test(Inputs inputs) {
+            switch (op) {
+                case METRIC_RANGE: {
+                    // False for a missing (NaN) value.
+                    double value = inputs.metrics[index];
+                    return value >= min && value <= max;
+                }
+                case METRIC_PRESENT:
+                    return !Double.isNaN(inputs.metrics[index]);
+                case METRIC_ABSENT:
+                    return Double.isNaN(inputs.metrics[index]);
+                case HEADER_PRESENT:
+                    return inputs.header(index) != null;
+                case HEADER_ABSENT:
+                    return inputs.header(index) == null;
+                case HEADER_EQUALS: {
+                    String value = inputs.header(index);
+                    return value != null && value.equalsIgnoreCase(literal);
+                }
+                default: {
+                    String value = inputs.header(index);
+                    return value != null && containsIgnoreCase(value, literal);
+                }
+            }
+        }
+    }
+
+    /**
+     * The outcome lists of one category, interned by the combination of outcomes. A
+     * combination is numbered in mixed radix (each check contributes the index of its
+     * outcome), and looked up in an open-addressing table that is replaced, never changed,
+     * so reads take no lock. Categories whose combinations do not fit a long are not interned.
+     */
+    private static final class OutcomeLists {
+        private final Check[] checks;
+        private final long[] radix;
+        private volatile Table table = new Table(64);
+
+        OutcomeLists(Check[] checks) {
+            this.checks = checks;
+            long[] radix = new long[checks.length];
+            long combinations = 1;
+            for (int i = 0; i < checks.length && radix != null; i++) {
+                radix[i] = combinations;
+                int n = checks[i].outcomes.length;
+                if (combinations > Long.MAX_VALUE / n) {
+                    radix = null;
+                } else {
+                    combinations *= n;
+                }
+            }
+            this.radix = radix;
+        }
+
+        List<RuleCheck> get(RuleCheck[] outcomes) {
+            if (radix == null) {
+                return copy(outcomes);
+            }
+            long key = 0;
+            for (int i = 0; i < outcomes.length; i++) {
+                key += radix[i] * checks[i].indexOf(outcomes[i]);
+            }
+            List<RuleCheck> list = table.get(key);
+            return list != null ? list : add(key, outcomes);
+        }
+
+        private synchronized List<RuleCheck> add(long key, RuleCheck[] outcomes) {
+            Table current = table;
+            List<RuleCheck> list = current.get(key);
+            if (list != null) {
+                return list;
+            }
+            list = copy(outcomes);
+            if (current.size < MAX_INTERNED) {
+                table = current.with(key, list);
+            }
+            return list;
+        }
+
+        private static List<RuleCheck> copy(RuleCheck[] outcomes) {
+            return Collections.unmodifiableList(Arrays.asList(outcomes.clone()));
+        }
+    }
+
+    /** An immutable long-keyed hash table with linear probing, kept at most half full. */
+    private static final class Table {
+        final long[] keys;
+        final List<?>[] values;
+        final int size;
+
+        Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new List<?>[capacity];
+            this.size = 0;
+        }
+
+        private Table(long[] keys, List<?>[] values, int size) {
+            this.keys = keys;
+            this.values = values;
+            this.size = size;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<RuleCheck> get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return (List<RuleCheck>) values[i];
+                }
+            }
+            return null;
+        }
+
+        /** A copy with {@code key} added, grown when it would be more than half full. */
+        Table with(long key, List<RuleCheck> value) {
+            int capacity = (size + 1) * 2 > keys.length ? keys.length * 2 : keys.length;
+            long[] newKeys = new long[capacity];
+            List<?>[] newValues = new List<?>[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < keys.length; i++) {
+                if (values[i] != null) {
+                    put(newKeys, newValues, mask, keys[i], values[i]);
+                }
+            }
+            put(newKeys, newValues, mask, key, value);
+            return new Table(newKeys, newValues, size + 1);
+        }
+
+        private static void put(long[] keys, List<?>[] values, int mask, long key, List<?> value) {
+            int i = slot(key, mask);
+            while (values[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+
+    /**
+     * How a {@code contains} case matches a header value, without allocating. Public so that
+     * details derived from the same headers agree with the score.
+     */
+    public static boolean containsIgnoreCase(String value, String part) {
+        for (int i = 0, last = value.length() - part.length(); i <= last; i++) {
+            if (value.regionMatches(true, i, part, 0, part.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Validates definitions and resolves their names; collects the header slots as it goes. */
+    private static final class Compiler {
+        final List<String> headers = new ArrayList<>();
+
+        Check[] category(ScoreCategory category, List<CheckDefinition> definitions) {
+            if (definitions == null || definitions.isEmpty()) {
+                throw new IllegalArgumentException(category.key() + ": at least one check is required");
+            }
+            Set<String> ids = new HashSet<>();
+            Check[] checks = new Check[definitions.size()];
+            long weights = 0;
+            for (int i = 0; i < checks.length; i++) {
+                CheckDefinition definition = definitions.get(i);
+                String id = definition.getId();
+                String where = category.key() + "." + id;
+                if (id == null || id.trim().isEmpty()) {
+                    throw new IllegalArgumentException(category.key() + ": check " + (i + 1) + " has no id");
+                }
+                if (!ids.add(id)) {
+                    throw new IllegalArgumentException(where + ": duplicate id");
+                }
+                int weight = definition.getWeight() != null ? definition.getWeight() : 1;
+                if (weight < 0) {
+                    throw new IllegalArgumentException(where + ": weight must not be negative");
+                }
+                weights += weight;
+                if (definition.getCases() == null || definition.getCases().isEmpty()) {
+                    throw new IllegalArgumentException(where + ": at least one case is required");
+                }
+                Case[] cases = new Case[definition.getCases().size()];
+                for (int j = 0; j < cases.length; j++) {
+                    cases[j] = compileCase(category, definition, definition.getCases().get(j), id, weight,
+                            where + ".cases[" + j + "]");
+                }
+                int otherwise = definition.getOtherwise() != null ? definition.getOtherwise() : 0;
+                checkScore(otherwise, where + ".otherwise");
+                checks[i] = new Check(id, cases, new RuleCheck(id, otherwise, weight, "otherwise"));
+            }
+            if (weights == 0) {
+                throw new IllegalArgumentException(category.key() + ": at least one check needs a weight above 0");
+            }
+            return checks;
+        }
+
+        Case compileCase(ScoreCategory category, CheckDefinition check, CaseDefinition definition,
+                         String id, int weight, String where) {
+            List<Condition> conditions = new ArrayList<>();
+            condition(category, check, definition, where, conditions);
+            if (definition.getAll() != null) {
+                for (int k = 0; k < definition.getAll().size(); k++) {
+                    condition(category, check, definition.getAll().get(k), where + ".all[" + k + "]", conditions);
+                }
+            }
+            StringBuilder text = new StringBuilder();
+            for (Condition condition : conditions) {
+                text.append(text.length() > 0 ? " and " : "").append(condition.text);
+            }
+            Condition[] tests = conditions.toArray(new Condition[0]);
+
+            if ((definition.getScore() == null) == (definition.getScoreFrom() == null)) {
+                throw new IllegalArgumentException(where + ": exactly one of score and score_from is required");
+            }
+            if (definition.getScore() != null) {
+                checkScore(definition.getScore(), where + ".score");
+                String rule = text.length() > 0 ? text.toString() : "always";
+                return new Case(tests, new RuleCheck(id, definition.getScore(), weight, rule), -1, null);
+            }
+            Metric metric = metric(category, definition.getScoreFrom(), where + ".score_from");
+            String rule = (text.length() > 0 ? text + ", " : "") + "score from " + metric.key();
+            RuleCheck[] byScore = new RuleCheck[101];
+            for (int score = 0; score <= 100; score++) {
+                byScore[score] = new RuleCheck(id, score, weight, rule);
+            }
+            return new Case(tests, null, metric.ordinal(), byScore);
+        }
+
+        /** Adds the tests of {@code definition}, if any, to {@code conditions}. */
+        void condition(ScoreCategory category, CheckDefinition check, ConditionDefinition definition, String where,
+                       List<Condition> conditions) {
+            boolean ranged = definition.getMin() != null || definition.getMax() != null;
+            boolean matched = definition.getEquals() != null || definition.getContains() != null;
+            if (!ranged && !matched && definition.getPresent() == null) {
+                return;
+            }
+            String metricName = definition.getMetric();
+            String headerName = definition.getHeader();
+            if (metricName != null && headerName != null) {
+                throw new IllegalArgumentException(where + ": a condition tests either a metric or a header");
+            }
+            if (metricName == null && headerName == null) {
+                metricName = check.getMetric();
+                headerName = check.getHeader();
+                if (metricName == null && headerName == null) {
+                    throw new IllegalArgumentException(where + ": no metric or header to test");
+                }
+            }
+            boolean absent = Boolean.FALSE.equals(definition.getPresent());
+
+            if (metricName != null) {
+                Metric metric = metric(category, metricName, where);
+                if (matched) {
+                    throw new IllegalArgumentException(where + ": equals and contains apply to headers");
+                }
+                if (ranged) {
+                    if (absent) {
+                        throw new IllegalArgumentException(where + ": a missing metric has no range");
+                    }
+                    double min = definition.getMin() != null ? definition.getMin() : Double.NEGATIVE_INFINITY;
+                    double max = definition.getMax() != null ? definition.getMax() : Double.POSITIVE_INFINITY;
+                    if (min > max) {
+                        throw new IllegalArgumentException(where + ": min is above max");
+                    }
+                    conditions.add(new Condition(METRIC_RANGE, metric.ordinal(), min, max, null,
+                            rangeText(metric.key(), definition.getMin(), definition.getMax())));
+                } else {
+                    conditions.add(new Condition(absent ? METRIC_ABSENT : METRIC_PRESENT, metric.ordinal(), 0, 0, null,
+                            metric.key() + (absent ? " missing" : " present")));
+                }
+                return;
+            }
+
+            if (ranged) {
+                throw new IllegalArgumentException(where + ": min and max apply to metrics");
+            }
+            if (headerName.trim().isEmpty()) {
+                throw new IllegalArgumentException(where + ": empty header name");
+            }
+            int slot = slot(headerName.trim());
+            if (matched && absent) {
+                throw new IllegalArgumentException(where + ": an absent header has no value to match");
+            }
+            if (definition.getEquals() != null) {
+                conditions.add(new Condition(HEADER_EQUALS, slot, 0, 0, definition.getEquals(),
+                        headers.get(slot) + " = \"" + definition.getEquals() + "\""));
+            }
+            if (definition.getContains() != null) {
+                conditions.add(new Condition(HEADER_CONTAINS, slot, 0, 0, definition.getContains(),
+                        headers.get(slot) + " contains \"" + definition.getContains() + "\""));
+            }
+            if (!matched) {
+                conditions.add(new Condition(absent ? HEADER_ABSENT : HEADER_PRESENT, slot, 0, 0, null,
+                        headers.get(slot) + (absent ? " absent" : " present")));
+            }
+        }
+
+        Metric metric(ScoreCategory category, String name, String where) {
+            Metric metric = Metric.byKey(name);
+            if (metric == null) {
+                throw new IllegalArgumentException(where + ": unknown metric " + name);
+            }
+            if (metric.category() != category) {
+                throw new IllegalArgumentException(where + ": " + name + " is a " + metric.category().key()
+                        + " metric");
+            }
+            return metric;
+        }
+
+        /** Header names are case-insensitive; the first spelling seen names the slot. */
+        int slot(String header) {
+            for (int i = 0; i < headers.size(); i++) {
+                if (headers.get(i).equalsIgnoreCase(header)) {
+                    return i;
+                }
+            }
+            headers.add(header);
+            return headers.size() - 1;
+        }
+
+        static void checkScore(int score, String where) {
+            if (score < 0 || score > 100) {
+                throw new IllegalArgumentException(where + ": scores are 0 to 100");
+            }
+        }
+
+        static String rangeText(String metric, Double min, Double max) {
+            if (min != null && max != null) {
+                return number(min) + " <= " + metric + " <= " + number(max);
+            }
+            return min != null ? metric + " >= " + number(min) : metric + " <= " + number(max);
+        }
+
+        static String number(double value) {
+            return value == Math.rint(value) && Math.abs(value) < 1e15
+                    ? Long.toString((long) value) : Double.toString(value);
+        }
+    }
+}
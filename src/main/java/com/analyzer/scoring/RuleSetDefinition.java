@@ -0,0 +1,30 @@
+package com.analyzer.scoring;
+
+import java.util.List;
+
+/** A scoring rule file as written: the checks of each category, in evaluation order. */
+public class RuleSetDefinition {
+    private List<CheckDefinition> performance;
+    private List<CheckDefinition> security;
+    private List<CheckDefinition> seo;
+
+    public List<CheckDefinition> getPerformance() { return performance; }
+    public void setPerformance(List<CheckDefinition> performance) { this.performance = performance; }
+
+    public List<CheckDefinition> getSecurity() { return security; }
+    public void setSecurity(List<CheckDefinition> security) { this.security = security; }
+
+    public List<CheckDefinition> getSeo() { return seo; }
+    public void setSeo(List<CheckDefinition> seo) { this.seo = seo; }
+
+    List<CheckDefinition> checks(ScoreCategory category) {
+        switch (category) {
+            case PERFORMANCE:
+                return performance;
+            case SECURITY:
+                return security;
+            default:
+                return seo;
+        }
+    }
+}
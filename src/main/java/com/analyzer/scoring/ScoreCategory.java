@@ -0,0 +1,15 @@
+package com.analyzer.scoring;
+
+import java.util.Locale;
+
+/** The scored categories; each has its own list of checks in a rule set. */
+public enum ScoreCategory {
+    PERFORMANCE,
+    SECURITY,
+    SEO;
+
+    /** Name used in rule files and reports. */
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
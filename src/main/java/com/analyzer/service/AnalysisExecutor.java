@@ -0,0 +1,181 @@
+package com.analyzer.service;
+
+import com.analyzer.model.Result;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Fans a batch of URLs out over a bounded worker pool. Fetches are admitted by the
+ * {@link HostScheduler}, so hosts take turns and none is hit harder than it can take;
+ * queued work for a busy host waits there without holding a worker. Fresh cached
+ * results skip the scheduler entirely, and a URL already being analyzed for another
+ * request is not analyzed again: the later requests wait for the same result.
+ */
+@Component
+public class AnalysisExecutor implements DisposableBean {
+
+    private final AnalysisService analysisService;
+    private final FetcherService fetcherService;
+    private final HostScheduler hostScheduler;
+    private final AnalyzerMetrics metrics;
+    private final ExecutorService workers;
+    /** Analyses in progress by normalized URL, shared by the sync and async paths. */
+    private final ConcurrentHashMap<String, CompletableFuture<Result>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AnalysisExecutor(AnalysisService analysisService,
+                            FetcherService fetcherService,
+                            HostScheduler hostScheduler,
+                            AnalyzerMetrics metrics,
+                            @Value("${analyzer.executor.parallelism:32}") int parallelism) {
+        this.analysisService = analysisService;
+        this.fetcherService = fetcherService;
+        this.hostScheduler = hostScheduler;
+        this.metrics = metrics;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread t = new Thread(r, "analyzer-worker-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Analyzes every URL and returns results in the same order as the input. */
+    public List<Result> analyzeAll(List<String> rawUrls) {
+        if (rawUrls == null || rawUrls.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Result[] results = new Result[rawUrls.size()];
+        analyzeEach(rawUrls, (index, result) -> results[index] = result).join();
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Analyzes every URL, handing each result to {@code sink} with its input index
+     * as soon as it completes. The returned future completes once all URLs are done.
+     */
+    public CompletableFuture<Void> analyzeEach(List<String> rawUrls, BiConsumer<Integer, Result> sink) {
+        if (rawUrls == null || rawUrls.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[rawUrls.size()];
+        for (int i = 0; i < rawUrls.size(); i++) {
+            int index = i;
+            futures[i] = analyze(rawUrls.get(i)).thenAccept(result -> sink.accept(index, result));
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    /** Queues one URL behind its host in the scheduler; the future always completes normally. */
+    public CompletableFuture<Result> analyze(String rawUrl) {
+        Result cached = analysisService.cachedResult(rawUrl);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        String url = fetcherService.normalizeUrl(rawUrl);
+        return coalesce(url, () -> hostScheduler.submit(url, permit -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return analysisService.analyze(url, permit::release);
+            } catch (RuntimeException e) {
+                return AnalysisService.failedResult(url);
+            }
+        }, workers)));
+    }
+
+    /**
+     * Analyzes one URL bypassing the result cache, handing the fetch to {@code onFetch} on
+     * the worker thread before scoring. Used by the crawler, which needs every page's HTML.
+     */
+    public CompletableFuture<Result> analyzeFresh(String rawUrl, Consumer<FetcherService.FetchResult> onFetch) {
+        String url = fetcherService.normalizeUrl(rawUrl);
+        return hostScheduler.submit(url, permit -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return analysisService.refresh(url, fetchResult -> {
+                    permit.release(fetchResult);
+                    onFetch.accept(fetchResult);
+                });
+            } catch (RuntimeException e) {
+                return AnalysisService.failedResult(url);
+            }
+        }, workers));
+    }
+
+    /**
+     * Analyzes every URL on the async fetch path. No worker is held while a request is
+     * on the wire; workers are only used for scoring once a body has arrived.
+     */
+    public CompletableFuture<List<Result>> analyzeAllAsync(List<String> rawUrls) {
+        if (rawUrls == null || rawUrls.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        Result[] results = new Result[rawUrls.size()];
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[rawUrls.size()];
+        for (int i = 0; i < rawUrls.size(); i++) {
+            int index = i;
+            futures[i] = analyzeAsync(rawUrls.get(i)).thenAccept(result -> results[index] = result);
+        }
+        return CompletableFuture.allOf(futures).thenApply(done -> Arrays.asList(results));
+    }
+
+    private CompletableFuture<Result> analyzeAsync(String rawUrl) {
+        Result cached = analysisService.cachedResult(rawUrl);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        String url = fetcherService.normalizeUrl(rawUrl);
+        return coalesce(url, () -> hostScheduler.submit(url,
+                permit -> analysisService.analyzeAsync(url, workers, permit::release)));
+    }
+
+    /**
+     * Starts {@code analysis} of {@code url} unless it is already in progress, in which case
+     * the caller gets the running analysis's future instead. The entry is removed before the
+     * result is handed out; by then the result is cached, so later requests hit the cache.
+     */
+    private CompletableFuture<Result> coalesce(String url, Supplier<CompletableFuture<Result>> analysis) {
+        CompletableFuture<Result> shared = new CompletableFuture<>();
+        CompletableFuture<Result> running = inFlight.putIfAbsent(url, shared);
+        if (running != null) {
+            long startTime = System.nanoTime();
+            return running.whenComplete((result, ex) ->
+                    metrics.recordUrl(AnalyzerMetrics.OUTCOME_COALESCED, System.nanoTime() - startTime));
+        }
+        try {
+            analysis.get().whenComplete((result, ex) -> {
+                inFlight.remove(url, shared);
+                if (ex != null) {
+                    shared.completeExceptionally(ex);
+                } else {
+                    shared.complete(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(url, shared);
+            shared.completeExceptionally(e);
+        }
+        return shared;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        workers.shutdown();
+        workers.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,389 @@
+package com.analyzer.service;
+
+import com.analyzer.html.HtmlHandler;
+import com.analyzer.html.HtmlScanner;
+import com.analyzer.html.LinkCollector;
+import com.analyzer.html.SeoSignals;
+import com.analyzer.html.SubresourceCollector;
+import com.analyzer.model.*;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/** Runs the fetch and scoring pipeline for a single URL. */
+@Service
+public class AnalysisService {
+
+    private final FetcherService fetcherService;
+    private final AsyncFetcherService asyncFetcherService;
+    private final ScorerService scorerService;
+    private final ResultCache resultCache;
+    private final LinkCheckerService linkCheckerService;
+    private final OriginResourceService originResourceService;
+    private final PageWeightService pageWeightService;
+    private final LatencySampler latencySampler;
+    private final HistoryStore historyStore;
+    private final AnalyzerMetrics metrics;
+
+    @Autowired
+    public AnalysisService(FetcherService fetcherService, AsyncFetcherService asyncFetcherService,
+                           ScorerService scorerService, ResultCache resultCache,
+                           LinkCheckerService linkCheckerService, OriginResourceService originResourceService,
+                           PageWeightService pageWeightService, LatencySampler latencySampler,
+                           HistoryStore historyStore, AnalyzerMetrics metrics) {
+        this.fetcherService = fetcherService;
+        this.asyncFetcherService = asyncFetcherService;
+        this.scorerService = scorerService;
+        this.resultCache = resultCache;
+        this.linkCheckerService = linkCheckerService;
+        this.originResourceService = originResourceService;
+        this.pageWeightService = pageWeightService;
+        this.latencySampler = latencySampler;
+        this.historyStore = historyStore;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Fetches and scores one URL; never throws, failures map to a zero-score result.
+     * Fresh cached results are returned as-is and stale ones are revalidated.
+     */
+    public Result analyze(String rawUrl) {
+        return analyze(rawUrl, fetchResult -> { });
+    }
+
+    /** As above; {@code onFetch} sees the fetch outcome as soon as it arrives, before scoring. */
+    public Result analyze(String rawUrl, Consumer<FetcherService.FetchResult> onFetch) {
+        long startTime = System.nanoTime();
+        String url = fetcherService.normalizeUrl(rawUrl);
+        ResultCache.Entry cached = resultCache.get(url);
+        if (cached != null && cached.isFresh()) {
+            resultCache.recordHit();
+            metrics.recordUrl(AnalyzerMetrics.OUTCOME_CACHED, System.nanoTime() - startTime);
+            return cached.result;
+        }
+        FetcherService.FetchResult fetchResult = cached != null
+                ? fetcherService.fetchPage(url, cached.validators())
+                : fetcherService.fetchPage(url);
+        onFetch.accept(fetchResult);
+        return complete(url, cached, fetchResult, startTime);
+    }
+
+    /**
+     * Fetches and scores a URL unconditionally, without a conditional request, so the full
+     * body always reaches {@code onFetch}; the result replaces any cached one.
+     */
+    public Result refresh(String rawUrl, Consumer<FetcherService.FetchResult> onFetch) {
+        long startTime = System.nanoTime();
+        String url = fetcherService.normalizeUrl(rawUrl);
+        FetcherService.FetchResult fetchResult = fetcherService.fetchPage(url);
+        onFetch.accept(fetchResult);
+        return complete(url, null, fetchResult, startTime);
+    }
+
+    /** Returns the fresh cached result for a URL, counted as a hit, or null if it has to be fetched. */
+    public Result cachedResult(String rawUrl) {
+        long startTime = System.nanoTime();
+        ResultCache.Entry cached = resultCache.get(fetcherService.normalizeUrl(rawUrl));
+        if (cached == null || !cached.isFresh()) {
+            return null;
+        }
+        resultCache.recordHit();
+        metrics.recordUrl(AnalyzerMetrics.OUTCOME_CACHED, System.nanoTime() - startTime);
+        return cached.result;
+    }
+
+    /** Non-blocking variant of {@link #analyze}; scoring runs on {@code scoringExecutor}. */
+    public CompletableFuture<Result> analyzeAsync(String rawUrl, Executor scoringExecutor) {
+        return analyzeAsync(rawUrl, scoringExecutor, fetchResult -> { });
+    }
+
+    /** As above; {@code onFetch} runs on the I/O thread when the fetch completes, so it must not block. */
+    public CompletableFuture<Result> analyzeAsync(String rawUrl, Executor scoringExecutor,
+                                                  Consumer<FetcherService.FetchResult> onFetch) {
+        long startTime = System.nanoTime();
+        String url = fetcherService.normalizeUrl(rawUrl);
+        if (url.isEmpty()) {
+            metrics.recordUrl(AnalyzerMetrics.OUTCOME_FAILED, System.nanoTime() - startTime);
+            return CompletableFuture.completedFuture(failedResult(url));
+        }
+        ResultCache.Entry cached = resultCache.get(url);
+        if (cached != null && cached.isFresh()) {
+            resultCache.recordHit();
+            metrics.recordUrl(AnalyzerMetrics.OUTCOME_CACHED, System.nanoTime() - startTime);
+            return CompletableFuture.completedFuture(cached.result);
+        }
+        CompletableFuture<FetcherService.FetchResult> fetch = cached != null
+                ? asyncFetcherService.fetchPage(url, cached.validators())
+                : asyncFetcherService.fetchPage(url);
+        return fetch
+                .thenApply(fetchResult -> {
+                    onFetch.accept(fetchResult);
+                    return fetchResult;
+                })
+                .thenComposeAsync(fetchResult -> completeAsync(url, cached, fetchResult, startTime, scoringExecutor),
+                        scoringExecutor)
+                .exceptionally(ex -> {
+                    metrics.recordUrl(AnalyzerMetrics.OUTCOME_FAILED, System.nanoTime() - startTime);
+                    return failedResult(url);
+                });
+    }
+
+    /**
+     * Completion for the blocking fetch path, which already holds a worker: waits there for
+     * the link check, page weight and latency samples, then scores.
+     */
+    private Result complete(String url, ResultCache.Entry cached, FetcherService.FetchResult fetchResult,
+                            long startTime) {
+        if (isRevalidated(cached, fetchResult)) {
+            return revalidated(url, cached, fetchResult, sampleLatency(url).join(), startTime);
+        }
+        Page page = parse(url, fetchResult);
+        Measurements measured = measure(url, fetchResult, page).join();
+        return scored(url, fetchResult, score(url, fetchResult, page, measured), startTime);
+    }
+
+    /**
+     * Completion for the async path: parses on the current scoring thread, then scores on
+     * {@code scoringExecutor} once the link check, page weight and latency samples are in.
+     * No thread is held while they run.
+     */
+    private CompletableFuture<Result> completeAsync(String url, ResultCache.Entry cached,
+                                                    FetcherService.FetchResult fetchResult, long startTime,
+                                                    Executor scoringExecutor) {
+        if (isRevalidated(cached, fetchResult)) {
+            return sampleLatency(url).thenApplyAsync(
+                    samples -> revalidated(url, cached, fetchResult, samples, startTime), scoringExecutor);
+        }
+        Page page = parse(url, fetchResult);
+        return measure(url, fetchResult, page).thenApplyAsync(
+                measured -> scored(url, fetchResult, score(url, fetchResult, page, measured), startTime),
+                scoringExecutor);
+    }
+
+    private static boolean isRevalidated(ResultCache.Entry cached, FetcherService.FetchResult fetchResult) {
+        return cached != null && fetchResult.response != null
+                && fetchResult.response.getCode() == HttpStatus.SC_NOT_MODIFIED;
+    }
+
+    private Result revalidated(String url, ResultCache.Entry cached, FetcherService.FetchResult fetchResult,
+                               LatencySamples samples, long startTime) {
+        resultCache.recordRevalidation();
+        Result refreshed = rescoreLatency(url, cached, fetchResult, samples);
+        resultCache.put(url, refreshed, cached.response, cached.transferBytes, cached.decodedBytes);
+        historyStore.record(url, refreshed);
+        metrics.recordUrl(AnalyzerMetrics.OUTCOME_REVALIDATED, System.nanoTime() - startTime);
+        return refreshed;
+    }
+
+    private Result scored(String url, FetcherService.FetchResult fetchResult, Result result, long startTime) {
+        if (resultCache.isEnabled()) {
+            resultCache.recordMiss();
+        }
+        boolean fetched = fetchResult.response != null && fetchResult.error == null;
+        if (fetched) {
+            resultCache.put(url, result, fetchResult.response, fetchResult.wireBytes, fetchResult.decodedBytes);
+            historyStore.record(url, result);
+        }
+        metrics.recordUrl(fetched ? AnalyzerMetrics.OUTCOME_SCORED : AnalyzerMetrics.OUTCOME_FAILED,
+                System.nanoTime() - startTime);
+        return result;
+    }
+
+    /** Reuses a cached analysis after a 304, re-scoring performance with the new latency. */
+    private Result rescoreLatency(String url, ResultCache.Entry cached, FetcherService.FetchResult revalidation,
+                                  LatencySamples samples) {
+        Result previous = cached.result;
+        Double elapsedMs = revalidation.elapsedMs;
+        PerformanceDetails previousPerf = previous.getPerformanceDetails();
+        LinkCheckerService.LinkReport links = previousPerf != null
+                ? new LinkCheckerService.LinkReport(previousPerf.getTotalLinks(), previousPerf.getBrokenLinks())
+                : null;
+        ScorerService.ScoringResult<PerformanceDetails> perfResult =
+                scorerService.scorePerformance(elapsedMs, revalidation.timings, cached.response,
+                        cached.transferBytes, cached.decodedBytes, links,
+                        previousPerf != null ? previousPerf.getPageWeight() : null, samples);
+        int total = Math.round((perfResult.score + previous.getSecurity() + previous.getSeo()) / 3.0f);
+
+        return new Result(
+            url,
+            perfResult.score,
+            previous.getSecurity(),
+            previous.getSeo(),
+            total,
+            previous.getBackend(),
+            previous.getProtocols(),
+            String.format("%.0f ms", elapsedMs),
+            perfResult.details,
+            previous.getSecurityDetails(),
+            previous.getSeoDetails()
+        );
+    }
+
+    /**
+     * Scores a fetched page without caching or recording it. The link check, page weight and
+     * latency samples are composed into the returned future, which completes on
+     * {@code scoringExecutor}; no thread waits for them.
+     */
+    public CompletableFuture<Result> score(String url, FetcherService.FetchResult fetchResult,
+                                           Executor scoringExecutor) {
+        Page page = parse(url, fetchResult);
+        return measure(url, fetchResult, page).thenApplyAsync(
+                measured -> score(url, fetchResult, page, measured), scoringExecutor);
+    }
+
+    /** Runs the HTML handlers the enabled checks need over the body, in a single pass. */
+    private Page parse(String url, FetcherService.FetchResult fetchResult) {
+        Page page = new Page();
+        if (fetchResult.response == null || fetchResult.error != null
+                || fetchResult.htmlContent == null || fetchResult.htmlContent.isEmpty()) {
+            return page;
+        }
+        long parseStart = System.nanoTime();
+        List<HtmlHandler> handlers = new ArrayList<>(3);
+        page.seoSignals = new SeoSignals();
+        handlers.add(page.seoSignals);
+        if (linkCheckerService.isEnabled()) {
+            page.links = new LinkCollector(url, linkCheckerService.getMaxPerPage());
+            handlers.add(page.links);
+        }
+        if (pageWeightService.isEnabled()) {
+            page.subresources = new SubresourceCollector(url, pageWeightService.getMaxAssets());
+            handlers.add(page.subresources);
+        }
+        HtmlScanner.scan(fetchResult.htmlContent, handlers.toArray(new HtmlHandler[0]));
+        metrics.recordParse(AnalyzerMetrics.PARSER_STREAM, System.nanoTime() - parseStart);
+        return page;
+    }
+
+    /**
+     * Starts the link check, asset downloads and latency samples together on the async
+     * client, and the origin's robots.txt and sitemaps on their own pool if not cached; the
+     * future completes when the last of them does.
+     */
+    private CompletableFuture<Measurements> measure(String url, FetcherService.FetchResult fetchResult, Page page) {
+        if (fetchResult.response == null || fetchResult.error != null) {
+            return CompletableFuture.completedFuture(new Measurements(null, null));
+        }
+        CompletableFuture<LinkCheckerService.LinkReport> links = page.links != null
+                ? linkCheckerService.check(page.links.getLinks())
+                : CompletableFuture.completedFuture(null);
+        CompletableFuture<PageWeight> pageWeight = page.subresources != null
+                ? pageWeightService.measure(fetchResult.wireBytes, page.subresources.getResources(),
+                        page.subresources.getSkipped())
+                : CompletableFuture.completedFuture(null);
+        CompletableFuture<OriginResourceService.OriginResources> origin = page.seoSignals != null
+                ? originResourceService.resources(url)
+                : CompletableFuture.completedFuture(null);
+        return links.thenCombine(pageWeight, Measurements::new)
+                .thenCombine(sampleLatency(url), Measurements::withSamples)
+                .thenCombine(origin, Measurements::withOrigin);
+    }
+
+    private CompletableFuture<LatencySamples> sampleLatency(String url) {
+        return latencySampler.isEnabled() ? latencySampler.sample(url) : CompletableFuture.completedFuture(null);
+    }
+
+    private Result score(String url, FetcherService.FetchResult fetchResult, Page page, Measurements measured) {
+        HttpResponse response = fetchResult.response;
+        Double elapsedMs = fetchResult.elapsedMs;
+        String error = fetchResult.error;
+
+        if (response == null || error != null) {
+            return failedResult(url);
+        }
+
+        ScorerService.BackendProtocol backendProtocol =
+                scorerService.getBackendAndProtocol(response, url);
+        String responseTimeText = String.format("%.0f ms", elapsedMs);
+
+        ScorerService.ScoringResult<PerformanceDetails> perfResult =
+                scorerService.scorePerformance(elapsedMs, fetchResult.timings, response, fetchResult.wireBytes,
+                        fetchResult.decodedBytes, measured.links, measured.pageWeight, measured.samples);
+        ScorerService.ScoringResult<SecurityDetails> secResult =
+                scorerService.scoreSecurity(url, response);
+        ScorerService.ScoringResult<SEODetails> seoResult = scorerService.scoreSEO(page.seoSignals,
+                measured.origin, response);
+
+        int performance = perfResult.score;
+        int security = secResult.score;
+        int seo = seoResult.score;
+        int total = Math.round((performance + security + seo) / 3.0f);
+
+        return new Result(
+            url,
+            performance,
+            security,
+            seo,
+            total,
+            backendProtocol.backend,
+            backendProtocol.protocol,
+            responseTimeText,
+            perfResult.details,
+            secResult.details,
+            seoResult.details
+        );
+    }
+
+    /** What the single HTML pass collected; a field is null when there was no body or its check is off. */
+    private static class Page {
+        SeoSignals seoSignals;
+        LinkCollector links;
+        SubresourceCollector subresources;
+    }
+
+    /** Outcomes of the asynchronous checks a score waits for; null where a check did not run. */
+    private static class Measurements {
+        final LinkCheckerService.LinkReport links;
+        final PageWeight pageWeight;
+        LatencySamples samples;
+        OriginResourceService.OriginResources origin;
+
+        Measurements(LinkCheckerService.LinkReport links, PageWeight pageWeight) {
+            this.links = links;
+            this.pageWeight = pageWeight;
+        }
+
+        Measurements withSamples(LatencySamples samples) {
+            this.samples = samples;
+            return this;
+        }
+
+        Measurements withOrigin(OriginResourceService.OriginResources origin) {
+            this.origin = origin;
+            return this;
+        }
+    }
+
+    public static Result failedResult(String url) {
+        PerformanceDetails perfDetails = new PerformanceDetails(
+            0, 0, "N/A", "", 0, 0, 0, 0
+        );
+        SecurityDetails secDetails = new SecurityDetails(
+            false, false, false, false, false, false, 0
+        );
+        SEODetails seoDetails = new SEODetails(
+            false, false, false, false, false, false, 0, false, false, 0
+        );
+
+        return new Result(
+            url,
+            0,
+            0,
+            0,
+            0,
+            "N/A",
+            "N/A",
+            "Invalid URL",
+            perfDetails,
+            secDetails,
+            seoDetails
+        );
+    }
+}
@@ -0,0 +1,301 @@
+package com.analyzer.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters for the analysis pipeline. Every timer publishes a percentile
+ * histogram so latency distributions can be aggregated in Prometheus. Meters are
+ * created up front so recording on the hot path is a map lookup, not a registry lookup.
+ */
+@Component
+public class AnalyzerMetrics {
+
+    public static final String FETCH_DNS = "dns";
+    public static final String FETCH_CONNECT = "connect";
+    public static final String FETCH_TLS = "tls";
+    public static final String FETCH_TTFB = "ttfb";
+    public static final String FETCH_DOWNLOAD = "download";
+
+    public static final String PARSER_STREAM = "stream";
+    public static final String PARSER_JSOUP = "jsoup";
+
+    public static final String SCORER_PERFORMANCE = "performance";
+    public static final String SCORER_SECURITY = "security";
+    public static final String SCORER_SEO = "seo";
+
+    public static final String OUTCOME_SCORED = "scored";
+    public static final String OUTCOME_CACHED = "cached";
+    public static final String OUTCOME_REVALIDATED = "revalidated";
+    public static final String OUTCOME_FAILED = "failed";
+    /** Shared the result of an analysis of the same URL already in progress. */
+    public static final String OUTCOME_COALESCED = "coalesced";
+
+    /**
+     * Monitor check outcomes: a 304 or an identical body, a changed page that was scored, no
+     * response, or skipped because the URL's previous check was still running.
+     */
+    public static final String CHECK_UNCHANGED = "unchanged";
+    public static final String CHECK_ANALYZED = "analyzed";
+    public static final String CHECK_FAILED = "failed";
+    public static final String CHECK_OVERRUN = "overrun";
+
+    public static final String CLIENT_CLASSIC = "classic";
+    public static final String CLIENT_ASYNC = "async";
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> fetchStages = new HashMap<>();
+    private final Map<String, Timer> fetches = new HashMap<>();
+    private final Map<String, Timer> parsers = new HashMap<>();
+    private final Map<String, Timer> scorers = new HashMap<>();
+    private final Map<String, Timer> urls = new HashMap<>();
+    private final Map<String, Timer> batches = new HashMap<>();
+    private final DistributionSummary batchSize;
+    private final Timer linkProbe;
+    private final Counter linkCacheHits;
+    private final Counter linkCacheMisses;
+    private final Map<String, Counter> connections = new HashMap<>();
+    private final Counter warmupSuccesses;
+    private final Counter warmupFailures;
+    private final Counter dnsCacheHits;
+    private final Counter dnsCacheMisses;
+    private final Counter tlsResumed;
+    private final Counter tlsFull;
+    private final Map<RetryPolicy.Failure, Counter> retries = new HashMap<>();
+    private final Counter retriesDenied;
+    private final Counter shortCircuits;
+    private final Map<String, Counter> monitorChecks = new HashMap<>();
+    private final Map<String, Counter> monitorEvents = new HashMap<>();
+
+    @Autowired
+    public AnalyzerMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (String stage : new String[] {FETCH_DNS, FETCH_CONNECT, FETCH_TLS, FETCH_TTFB, FETCH_DOWNLOAD}) {
+            fetchStages.put(stage, timer("analyzer.fetch.stage", "Time spent in one phase of a classic fetch",
+                    "stage", stage));
+        }
+        for (String client : new String[] {CLIENT_CLASSIC, CLIENT_ASYNC}) {
+            for (String outcome : new String[] {"success", "error"}) {
+                fetches.put(client + outcome, timer("analyzer.fetch", "Total time to fetch a page, including the body",
+                        "client", client, "outcome", outcome));
+            }
+        }
+        for (String parser : new String[] {PARSER_STREAM, PARSER_JSOUP}) {
+            parsers.put(parser, timer("analyzer.parse", "Time to parse a page's HTML", "parser", parser));
+        }
+        for (String scorer : new String[] {SCORER_PERFORMANCE, SCORER_SECURITY, SCORER_SEO}) {
+            scorers.put(scorer, timer("analyzer.score", "Time spent in one scorer", "scorer", scorer));
+        }
+        for (String outcome : new String[] {OUTCOME_SCORED, OUTCOME_CACHED, OUTCOME_REVALIDATED, OUTCOME_FAILED,
+                OUTCOME_COALESCED}) {
+            urls.put(outcome, timer("analyzer.url", "Total time to analyze one URL", "outcome", outcome));
+        }
+        for (String mode : new String[] {"sync", "async", "stream"}) {
+            batches.put(mode, timer("analyzer.batch", "Total time to analyze one request's URLs", "mode", mode));
+        }
+        this.batchSize = DistributionSummary.builder("analyzer.batch.size")
+                .description("Number of URLs per analyze request")
+                .baseUnit("urls")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.linkProbe = timer("analyzer.links.probe", "Time to probe the status of one linked URL");
+        this.linkCacheHits = Counter.builder("analyzer.links.lookups")
+                .description("Link status lookups, by whether the shared cache answered them")
+                .tag("result", "hit").register(registry);
+        this.linkCacheMisses = Counter.builder("analyzer.links.lookups")
+                .description("Link status lookups, by whether the shared cache answered them")
+                .tag("result", "miss").register(registry);
+        for (String connection : new String[] {"reused", "new"}) {
+            for (String origin : new String[] {"warmed", "other"}) {
+                connections.put(connection + origin, Counter.builder("analyzer.fetch.connections")
+                        .description("Classic page fetches, by whether they went out on a pooled connection "
+                                + "and whether the origin is kept warm")
+                        .tags("connection", connection, "origin", origin).register(registry));
+            }
+        }
+        this.warmupSuccesses = Counter.builder("analyzer.pool.warmups")
+                .description("Keep-warm requests sent to configured origins")
+                .tag("result", "success").register(registry);
+        this.warmupFailures = Counter.builder("analyzer.pool.warmups")
+                .description("Keep-warm requests sent to configured origins")
+                .tag("result", "failure").register(registry);
+        this.dnsCacheHits = Counter.builder("analyzer.dns.lookups")
+                .description("Host name lookups, by whether the resolver cache answered them")
+                .tag("result", "hit").register(registry);
+        this.dnsCacheMisses = Counter.builder("analyzer.dns.lookups")
+                .description("Host name lookups, by whether the resolver cache answered them")
+                .tag("result", "miss").register(registry);
+        this.tlsResumed = Counter.builder("analyzer.tls.handshakes")
+                .description("TLS handshakes of the classic client, by whether a cached session was resumed")
+                .tag("result", "resumed").register(registry);
+        this.tlsFull = Counter.builder("analyzer.tls.handshakes")
+                .description("TLS handshakes of the classic client, by whether a cached session was resumed")
+                .tag("result", "full").register(registry);
+        for (RetryPolicy.Failure failure : RetryPolicy.Failure.values()) {
+            retries.put(failure, Counter.builder("analyzer.fetch.retries")
+                    .description("Page fetch attempts retried, by the failure that caused the retry")
+                    .tag("reason", failure.tag()).register(registry));
+        }
+        this.retriesDenied = Counter.builder("analyzer.fetch.retries.denied")
+                .description("Retryable page fetch failures not retried because the retry budget was spent")
+                .register(registry);
+        this.shortCircuits = Counter.builder("analyzer.fetch.short.circuited")
+                .description("Page fetches failed without a request because the host's circuit was open")
+                .register(registry);
+        for (String outcome : new String[] {CHECK_UNCHANGED, CHECK_ANALYZED, CHECK_FAILED, CHECK_OVERRUN}) {
+            monitorChecks.put(outcome, Counter.builder("analyzer.monitor.checks")
+                    .description("Background checks of monitored URLs, by outcome")
+                    .tag("outcome", outcome).register(registry));
+        }
+        for (String type : MonitorService.EVENT_TYPES) {
+            monitorEvents.put(type, Counter.builder("analyzer.monitor.events")
+                    .description("Changes raised by monitors, by type")
+                    .tag("type", type).register(registry));
+        }
+    }
+
+    private Timer timer(String name, String description, String... tags) {
+        return Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public void recordFetchStage(String stage, long nanos) {
+        fetchStages.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFetch(String client, boolean success, long nanos) {
+        fetches.get(client + (success ? "success" : "error")).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordParse(String parser, long nanos) {
+        parsers.get(parser).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public <T> T timeScorer(String scorer, Supplier<T> scoring) {
+        long start = System.nanoTime();
+        try {
+            return scoring.get();
+        } finally {
+            scorers.get(scorer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void recordUrl(String outcome, long nanos) {
+        urls.get(outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordBatch(String mode, int size, long nanos) {
+        batches.get(mode).record(nanos, TimeUnit.NANOSECONDS);
+        batchSize.record(size);
+    }
+
+    public void recordLinkProbe(long nanos) {
+        linkProbe.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordLinkLookup(boolean cached) {
+        (cached ? linkCacheHits : linkCacheMisses).increment();
+    }
+
+    /** Counts a page fetch as landing on a reused or a newly opened connection. */
+    public void recordConnection(boolean reused, boolean warmedOrigin) {
+        connections.get((reused ? "reused" : "new") + (warmedOrigin ? "warmed" : "other")).increment();
+    }
+
+    public void recordWarmup(boolean success) {
+        (success ? warmupSuccesses : warmupFailures).increment();
+    }
+
+    public void recordDnsLookup(boolean cached) {
+        (cached ? dnsCacheHits : dnsCacheMisses).increment();
+    }
+
+    public void recordTlsHandshake(boolean resumed) {
+        (resumed ? tlsResumed : tlsFull).increment();
+    }
+
+    public void recordRetry(RetryPolicy.Failure reason) {
+        retries.get(reason).increment();
+    }
+
+    public void recordRetryDenied() {
+        retriesDenied.increment();
+    }
+
+    public void recordShortCircuit() {
+        shortCircuits.increment();
+    }
+
+    public void recordMonitorCheck(String outcome) {
+        monitorChecks.get(outcome).increment();
+    }
+
+    public void recordMonitorEvent(String type) {
+        monitorEvents.get(type).increment();
+    }
+
+    /** Publishes the retry budget left and the number of hosts with an open circuit. */
+    public void monitorRetries(RetryPolicy policy) {
+        Gauge.builder("analyzer.retry.budget", policy, RetryPolicy::availableRetries)
+                .description("Retries that may be spent before first attempts earn more")
+                .register(registry);
+        Gauge.builder("analyzer.retry.circuits.open", policy, RetryPolicy::openCircuits)
+                .description("Hosts whose fetches currently fail fast after repeated transport failures")
+                .register(registry);
+    }
+
+    /** Publishes leased, available, pending and max connections of an HttpClient pool. */
+    public void monitorPool(String client, ConnPoolControl<?> pool) {
+        Gauge.builder("analyzer.http.pool.leased", pool, p -> p.getTotalStats().getLeased())
+                .description("Connections currently leased from the pool")
+                .tag("client", client).register(registry);
+        Gauge.builder("analyzer.http.pool.available", pool, p -> p.getTotalStats().getAvailable())
+                .description("Idle connections kept alive in the pool")
+                .tag("client", client).register(registry);
+        Gauge.builder("analyzer.http.pool.pending", pool, p -> p.getTotalStats().getPending())
+                .description("Requests waiting for a connection")
+                .tag("client", client).register(registry);
+        Gauge.builder("analyzer.http.pool.max", pool, p -> p.getTotalStats().getMax())
+                .description("Maximum total connections")
+                .tag("client", client).register(registry);
+    }
+
+    /** Publishes fetches running and queued in the host scheduler, and the hosts it tracks. */
+    public void monitorScheduler(HostScheduler scheduler) {
+        Gauge.builder("analyzer.scheduler.active", scheduler, HostScheduler::activeCount)
+                .description("Fetches started by the host scheduler and not yet answered")
+                .register(registry);
+        Gauge.builder("analyzer.scheduler.queued", scheduler, HostScheduler::queuedCount)
+                .description("Fetches waiting for their host's turn, limit, crawl delay or Retry-After")
+                .register(registry);
+        Gauge.builder("analyzer.scheduler.hosts", scheduler, HostScheduler::hostCount)
+                .description("Hosts whose adaptive limits the scheduler is tracking")
+                .register(registry);
+    }
+
+    /** Publishes the async client's in-flight count and the queue behind its limit. */
+    public void monitorInFlightLimit(AtomicInteger inFlight, Collection<?> waiting) {
+        Gauge.builder("analyzer.http.async.in.flight", inFlight, AtomicInteger::get)
+                .description("Async fetches currently executing")
+                .register(registry);
+        Gauge.builder("analyzer.http.async.waiting", waiting, Collection::size)
+                .description("Async fetches queued behind the in-flight limit")
+                .register(registry);
+    }
+}
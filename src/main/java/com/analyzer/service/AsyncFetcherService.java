@@ -0,0 +1,539 @@
+package com.analyzer.service;
+
+import org.apache.hc.client5.http.async.methods.AbstractBinResponseConsumer;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.Method;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.ZipException;
+
+/**
+ * Non-blocking counterpart of {@link FetcherService} built on the HttpClient 5 async
+ * client. Requests are multiplexed over a small I/O reactor (HTTP/1.1 or h2 via ALPN),
+ * so in-flight fetches do not hold a thread each.
+ */
+@Service
+public class AsyncFetcherService implements DisposableBean {
+
+    private final CloseableHttpAsyncClient httpClient;
+    private final AnalyzerMetrics metrics;
+    private final RetryPolicy retryPolicy;
+    private final int maxInFlight;
+    private final long maxBodyBytes;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ConcurrentLinkedQueue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    private final String httpUserAgent;
+    private final String httpAccept;
+    private final String httpAcceptLanguage;
+    private final String httpAcceptEncoding;
+
+    @Autowired
+    public AsyncFetcherService(AnalyzerMetrics metrics, HttpClientFactory httpClientFactory, RetryPolicy retryPolicy) {
+        HttpClientProperties properties = httpClientFactory.getProperties();
+        this.metrics = metrics;
+        this.retryPolicy = retryPolicy;
+        this.maxInFlight = Math.max(1, properties.getAsync().getMaxInFlight());
+        this.maxBodyBytes = properties.getMaxBodyBytes();
+        this.httpUserAgent = properties.getUserAgent();
+        this.httpAccept = properties.getAccept();
+        this.httpAcceptLanguage = properties.getAcceptLanguage();
+        this.httpAcceptEncoding = properties.getAcceptEncoding();
+        this.httpClient = httpClientFactory.createAsyncClient();
+        this.httpClient.start();
+        metrics.monitorInFlightLimit(inFlight, waiting);
+    }
+
+    /**
+     * Fetches a page without blocking the caller. Mirrors {@link FetcherService#fetchPage}:
+     * retries, HTTPS-to-HTTP fallback and the circuit breaker follow {@link RetryPolicy}, and
+     * the returned future always completes normally with either a response or an error message.
+     */
+    public CompletableFuture<FetcherService.FetchResult> fetchPage(String url) {
+        return fetchPage(url, Collections.emptyMap());
+    }
+
+    public CompletableFuture<FetcherService.FetchResult> fetchPage(String url, Map<String, String> extraHeaders) {
+        String host = HostScheduler.hostOf(url);
+        if (!retryPolicy.allowRequest(host)) {
+            return CompletableFuture.completedFuture(
+                    new FetcherService.FetchResult(null, null, null, FetcherService.CIRCUIT_OPEN));
+        }
+        retryPolicy.onFirstAttempt();
+        return fetchWithRetries(url, extraHeaders, 1)
+                .thenCompose(attempt -> attempt.result == null && retryPolicy.shouldFallBackToHttp(attempt.failure)
+                        && url.toLowerCase(Locale.ROOT).startsWith("https://")
+                        ? fetchWithRetries("http://" + url.substring(8), extraHeaders, 1)
+                        : CompletableFuture.completedFuture(attempt))
+                .handle((attempt, ex) -> {
+                    retryPolicy.recordOutcome(host, ex != null ? RetryPolicy.classify(ex) : attempt.failure);
+                    if (ex != null) {
+                        return new FetcherService.FetchResult(null, null, null, FetcherService.errorMessage(ex));
+                    }
+                    return attempt.result != null ? attempt.result
+                            : new FetcherService.FetchResult(null, null, null, attempt.error);
+                });
+    }
+
+    /** Attempt number {@code n} of {@code url}; retries are scheduled without holding a thread. */
+    private CompletableFuture<RetryPolicy.Attempt> fetchWithRetries(String url, Map<String, String> extraHeaders,
+                                                                    int n) {
+        return execute(url, extraHeaders)
+                .handle((result, ex) -> {
+                    RetryPolicy.Failure failure = ex != null
+                            ? RetryPolicy.classify(ex) : RetryPolicy.classify(result.response);
+                    long delayMs = retryPolicy.retryDelayMs(failure, n, result != null ? result.response : null);
+                    if (delayMs < 0) {
+                        return CompletableFuture.completedFuture(new RetryPolicy.Attempt(result, failure,
+                                ex != null ? FetcherService.errorMessage(ex) : null));
+                    }
+                    Executor later = CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS);
+                    return CompletableFuture.supplyAsync(() -> n + 1, later)
+                            .thenCompose(next -> fetchWithRetries(url, extraHeaders, next));
+                })
+                .thenCompose(future -> future);
+    }
+
+    private CompletableFuture<FetcherService.FetchResult> execute(String url, Map<String, String> extraHeaders) {
+        CompletableFuture<FetcherService.FetchResult> future = new CompletableFuture<>();
+        SimpleHttpRequest request;
+        try {
+            SimpleRequestBuilder builder = SimpleRequestBuilder.get(url)
+                    .setHeader(HttpHeaders.ACCEPT, httpAccept)
+                    .setHeader(HttpHeaders.ACCEPT_LANGUAGE, httpAcceptLanguage)
+                    .setHeader(HttpHeaders.ACCEPT_ENCODING, httpAcceptEncoding)
+                    .setHeader(HttpHeaders.USER_AGENT, httpUserAgent);
+            extraHeaders.forEach(builder::setHeader);
+            request = builder.build();
+        } catch (IllegalArgumentException e) {
+            future.complete(new FetcherService.FetchResult(null, null, null, "Invalid URL"));
+            return future;
+        }
+
+        Runnable start = () -> {
+            long startTime = System.nanoTime();
+            CappedResponseConsumer consumer = new CappedResponseConsumer(maxBodyBytes);
+            httpClient.execute(SimpleRequestProducer.create(request), consumer,
+                    new FutureCallback<CappedResponseConsumer>() {
+                        @Override
+                        public void completed(CappedResponseConsumer result) {
+                            release();
+                            complete(future, toFetchResult(result, startTime), startTime);
+                        }
+
+                        @Override
+                        public void failed(Exception ex) {
+                            release();
+                            if (consumer.truncated) {
+                                complete(future, toFetchResult(consumer, startTime), startTime);
+                            } else {
+                                consumer.discard();
+                                metrics.recordFetch(AnalyzerMetrics.CLIENT_ASYNC, false, System.nanoTime() - startTime);
+                                future.completeExceptionally(ex);
+                            }
+                        }
+
+                        @Override
+                        public void cancelled() {
+                            release();
+                            consumer.discard();
+                            metrics.recordFetch(AnalyzerMetrics.CLIENT_ASYNC, false, System.nanoTime() - startTime);
+                            future.cancel(false);
+                        }
+                    });
+        };
+
+        whenPermitted(start, future::completeExceptionally);
+        return future;
+    }
+
+    /**
+     * Returns the final status code of {@code url} without downloading its body, or -1 if
+     * it could not be reached. HEAD is tried first; an error status is confirmed with a GET
+     * that is aborted as soon as the headers arrive, since some servers reject HEAD outright.
+     */
+    public CompletableFuture<Integer> probe(String url, Timeout timeout) {
+        return probe(Method.HEAD, url, timeout)
+                .thenCompose(status -> status >= 400 || status < 0
+                        ? probe(Method.GET, url, timeout)
+                        : CompletableFuture.completedFuture(status));
+    }
+
+    private CompletableFuture<Integer> probe(Method method, String url, Timeout timeout) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        SimpleHttpRequest request = bareRequest(method, url, timeout);
+        if (request == null) {
+            future.complete(-1);
+            return future;
+        }
+
+        whenPermitted(() -> {
+            // A zero-byte cap aborts a GET on its first body chunk; the status is already known.
+            CappedResponseConsumer consumer = new CappedResponseConsumer(0);
+            httpClient.execute(SimpleRequestProducer.create(request), consumer,
+                    new FutureCallback<CappedResponseConsumer>() {
+                        @Override
+                        public void completed(CappedResponseConsumer result) {
+                            release();
+                            future.complete(result.response.getCode());
+                        }
+
+                        @Override
+                        public void failed(Exception ex) {
+                            release();
+                            future.complete(consumer.response != null ? consumer.response.getCode() : -1);
+                        }
+
+                        @Override
+                        public void cancelled() {
+                            release();
+                            future.complete(-1);
+                        }
+                    });
+        }, e -> future.complete(-1));
+        return future;
+    }
+
+    /**
+     * Returns the milliseconds from sending a HEAD for {@code url} to receiving its response
+     * headers, or -1 if none arrived. The connection stays open for the next request, so
+     * back-to-back calls measure the server rather than connection setup.
+     */
+    public CompletableFuture<Double> timeToHeaders(String url, Timeout timeout) {
+        CompletableFuture<Double> future = new CompletableFuture<>();
+        SimpleHttpRequest request = bareRequest(Method.HEAD, url, timeout);
+        if (request == null) {
+            future.complete(-1.0);
+            return future;
+        }
+
+        whenPermitted(() -> {
+            long startTime = System.nanoTime();
+            CappedResponseConsumer consumer = new CappedResponseConsumer(0);
+            httpClient.execute(SimpleRequestProducer.create(request), consumer,
+                    new FutureCallback<CappedResponseConsumer>() {
+                        @Override
+                        public void completed(CappedResponseConsumer result) {
+                            release();
+                            future.complete((result.headersAtNanos - startTime) / 1_000_000.0);
+                        }
+
+                        @Override
+                        public void failed(Exception ex) {
+                            release();
+                            future.complete(-1.0);
+                        }
+
+                        @Override
+                        public void cancelled() {
+                            release();
+                            future.complete(-1.0);
+                        }
+                    });
+        }, e -> future.complete(-1.0));
+        return future;
+    }
+
+    /** A bodiless request with only the identifying headers, or null if {@code url} is not valid. */
+    private SimpleHttpRequest bareRequest(Method method, String url, Timeout timeout) {
+        try {
+            return SimpleRequestBuilder.create(method)
+                    .setUri(url)
+                    .setHeader(HttpHeaders.ACCEPT, httpAccept)
+                    .setHeader(HttpHeaders.USER_AGENT, httpUserAgent)
+                    .setRequestConfig(RequestConfig.custom()
+                            .setConnectionRequestTimeout(timeout)
+                            .setResponseTimeout(timeout)
+                            .build())
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Downloads {@code url} the way a browser loads a subresource, counting the body's wire
+     * bytes and discarding them. Body bytes are drawn from {@code byteBudget}, which
+     * concurrent downloads may share; when it runs out the download is cut short and marked
+     * truncated. Not retried. The future always completes normally, with an error set when
+     * nothing was received.
+     */
+    public CompletableFuture<FetcherService.FetchResult> download(String url, AtomicLong byteBudget, Timeout timeout) {
+        CompletableFuture<FetcherService.FetchResult> future = new CompletableFuture<>();
+        SimpleHttpRequest request;
+        try {
+            request = SimpleRequestBuilder.get(url)
+                    .setHeader(HttpHeaders.ACCEPT, "*/*")
+                    .setHeader(HttpHeaders.ACCEPT_ENCODING, httpAcceptEncoding)
+                    .setHeader(HttpHeaders.USER_AGENT, httpUserAgent)
+                    .setRequestConfig(RequestConfig.custom()
+                            .setConnectionRequestTimeout(timeout)
+                            .setResponseTimeout(timeout)
+                            .build())
+                    .build();
+        } catch (IllegalArgumentException e) {
+            future.complete(new FetcherService.FetchResult(null, null, null, "Invalid URL"));
+            return future;
+        }
+
+        whenPermitted(() -> {
+            long startTime = System.nanoTime();
+            DiscardingResponseConsumer consumer = new DiscardingResponseConsumer(byteBudget);
+            httpClient.execute(SimpleRequestProducer.create(request), consumer,
+                    new FutureCallback<DiscardingResponseConsumer>() {
+                        @Override
+                        public void completed(DiscardingResponseConsumer result) {
+                            release();
+                            future.complete(consumer.toFetchResult(startTime, null));
+                        }
+
+                        @Override
+                        public void failed(Exception ex) {
+                            release();
+                            future.complete(consumer.toFetchResult(startTime, FetcherService.errorMessage(ex)));
+                        }
+
+                        @Override
+                        public void cancelled() {
+                            release();
+                            future.complete(consumer.toFetchResult(startTime, "Cancelled"));
+                        }
+                    });
+        }, e -> future.complete(new FetcherService.FetchResult(null, null, null, FetcherService.errorMessage(e))));
+        return future;
+    }
+
+    /**
+     * Runs {@code start} now or, past {@code max-in-flight}, once a slot frees up. If it
+     * throws, the request never reached the client and no callback will free its slot, so
+     * the slot is released here and the error handed to {@code onError}; a queued start run
+     * from another request's callback must not abort that callback either.
+     */
+    private void whenPermitted(Runnable start, Consumer<RuntimeException> onError) {
+        Runnable guarded = () -> {
+            try {
+                start.run();
+            } catch (RuntimeException e) {
+                release();
+                onError.accept(e);
+            }
+        };
+        if (inFlight.incrementAndGet() <= maxInFlight) {
+            guarded.run();
+        } else {
+            inFlight.decrementAndGet();
+            waiting.add(guarded);
+            drain();
+        }
+    }
+
+    private void complete(CompletableFuture<FetcherService.FetchResult> future,
+                          FetcherService.FetchResult result, long startTime) {
+        metrics.recordFetch(AnalyzerMetrics.CLIENT_ASYNC, result.error == null, System.nanoTime() - startTime);
+        future.complete(result);
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    private void drain() {
+        while (!waiting.isEmpty()) {
+            if (inFlight.incrementAndGet() > maxInFlight) {
+                inFlight.decrementAndGet();
+                return;
+            }
+            Runnable next = waiting.poll();
+            if (next == null) {
+                inFlight.decrementAndGet();
+                return;
+            }
+            next.run();
+        }
+    }
+
+    private FetcherService.FetchResult toFetchResult(CappedResponseConsumer consumer, long startTime) {
+        double elapsedMs = (System.nanoTime() - startTime) / 1_000_000.0;
+        HttpResponse response = consumer.response;
+        int statusCode = response.getCode();
+        if (statusCode < 200 || statusCode >= 400) {
+            return new FetcherService.FetchResult(response, elapsedMs, null, "HTTP Status: " + statusCode);
+        }
+        BodyReader.Decoder decoder = consumer.decoder;
+        if (decoder == null) {
+            return new FetcherService.FetchResult(response, elapsedMs, null, null);
+        }
+        try {
+            BodyReader.Body body = decoder.finish();
+            return new FetcherService.FetchResult(response, elapsedMs, body.text, null,
+                    consumer.received, body.decodedBytes, body.truncated || consumer.truncated);
+        } catch (IOException e) {
+            return new FetcherService.FetchResult(response, elapsedMs, null, null);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        httpClient.close(CloseMode.GRACEFUL);
+    }
+
+    /**
+     * Decodes a successful response's body as it arrives, up to a byte cap on both the wire
+     * and the decoded size. Hitting a cap aborts the exchange so an oversized or endless
+     * body stops consuming bandwidth; what decoded so far is kept. A body that fails to
+     * decode is read to the end and dropped, as the blocking path does.
+     */
+    private static class CappedResponseConsumer extends AbstractBinResponseConsumer<CappedResponseConsumer> {
+        private final long maxBytes;
+        private volatile BodyReader.Decoder decoder;
+        private volatile HttpResponse response;
+        private volatile long headersAtNanos;
+        private volatile long received;
+        private volatile boolean truncated;
+
+        CappedResponseConsumer(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        protected void start(HttpResponse response, ContentType contentType) {
+            this.headersAtNanos = System.nanoTime();
+            this.response = response;
+            int status = response.getCode();
+            if (maxBytes > 0 && status >= 200 && status < 400) {
+                this.decoder = BodyReader.decoder(response, maxBytes);
+            }
+        }
+
+        @Override
+        protected CappedResponseConsumer buildResult() {
+            return this;
+        }
+
+        @Override
+        protected int capacityIncrement() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        protected void data(ByteBuffer src, boolean endOfStream) throws IOException {
+            int n = src.remaining();
+            long room = maxBytes - received;
+            int accepted = (int) Math.min(n, room);
+            received += accepted;
+            BodyReader.Decoder decoder = this.decoder;
+            if (decoder != null) {
+                ByteBuffer chunk = src;
+                if (accepted < n) {
+                    chunk = src.duplicate();
+                    chunk.limit(chunk.position() + accepted);
+                }
+                try {
+                    if (!decoder.write(chunk)) {
+                        truncated = true;
+                        throw new IOException("Decoded response body exceeds " + maxBytes + " bytes");
+                    }
+                } catch (ZipException e) {
+                    decoder.close();
+                    this.decoder = null;
+                }
+            }
+            if (n > room) {
+                truncated = true;
+                throw new IOException("Response body exceeds " + maxBytes + " bytes");
+            }
+        }
+
+        /** Returns the decoder's buffers to the pool when the body will not be used. */
+        void discard() {
+            BodyReader.Decoder decoder = this.decoder;
+            if (decoder != null) {
+                this.decoder = null;
+                decoder.close();
+            }
+        }
+
+        @Override
+        public void releaseResources() {
+        }
+    }
+
+    /** Counts and drops the body, stopping once a byte budget shared with other downloads runs out. */
+    private static class DiscardingResponseConsumer extends AbstractBinResponseConsumer<DiscardingResponseConsumer> {
+        private final AtomicLong budget;
+        private volatile HttpResponse response;
+        private volatile long received;
+        private volatile boolean truncated;
+
+        DiscardingResponseConsumer(AtomicLong budget) {
+            this.budget = budget;
+        }
+
+        @Override
+        protected void start(HttpResponse response, ContentType contentType) {
+            this.response = response;
+        }
+
+        @Override
+        protected DiscardingResponseConsumer buildResult() {
+            return this;
+        }
+
+        @Override
+        protected int capacityIncrement() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        protected void data(ByteBuffer src, boolean endOfStream) throws IOException {
+            int n = src.remaining();
+            src.position(src.limit());
+            long room = budget.getAndAdd(-n);
+            received += Math.max(0, Math.min(n, room));
+            if (n > room) {
+                truncated = true;
+                throw new IOException("Byte budget exhausted");
+            }
+        }
+
+        /** A response with its wire byte count, or just {@code error} when no response arrived. */
+        FetcherService.FetchResult toFetchResult(long startTime, String error) {
+            double elapsedMs = (System.nanoTime() - startTime) / 1_000_000.0;
+            if (response == null) {
+                return new FetcherService.FetchResult(null, elapsedMs, null, error != null ? error : "No response");
+            }
+            int status = response.getCode();
+            String statusError = status >= 400 ? "HTTP Status: " + status : truncated ? null : error;
+            return new FetcherService.FetchResult(response, elapsedMs, null, statusError, received, -1, truncated);
+        }
+
+        @Override
+        public void releaseResources() {
+        }
+    }
+}
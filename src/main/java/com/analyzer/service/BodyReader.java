@@ -0,0 +1,598 @@
+package com.analyzer.service;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.brotli.dec.BrotliInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Reads a response body incrementally with a hard cap on decoded size. Content
+ * codings (gzip, deflate, br) are decoded here rather than by the HTTP client so
+ * that both wire (compressed) and decoded byte counts can be recorded.
+ */
+public final class BodyReader {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final ArrayBlockingQueue<byte[]> BUFFERS = new ArrayBlockingQueue<>(64);
+
+    private BodyReader() {
+    }
+
+    /**
+     * Reads at most {@code maxDecodedBytes} of decoded content from {@code raw}. Reading
+     * stops as soon as the cap is hit and {@code abort} is run before the streams are
+     * closed, so an oversized or endless body is never drained.
+     */
+    public static Body read(InputStream raw, HttpResponse response, long maxDecodedBytes,
+                            Runnable abort) throws IOException {
+        CountingInputStream wire = new CountingInputStream(raw);
+        String encoding = headerValue(response, HttpHeaders.CONTENT_ENCODING);
+        Charset charset = charsetOf(response);
+
+        InputStream decoded;
+        try {
+            decoded = decode(wire, encoding);
+        } catch (EOFException e) {
+            // Empty body with a Content-Encoding header, e.g. on a 204.
+            return new Body("", wire.count, 0, false);
+        }
+        if (decoded == null) {
+            abort.run();
+            closeQuietly(wire);
+            return new Body(null, 0, 0, false);
+        }
+
+        byte[] buffer = acquire();
+        boolean truncated = false;
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(initialCapacity(response, maxDecodedBytes));
+            long total = 0;
+            int n;
+            try {
+                while ((n = decoded.read(buffer)) != -1) {
+                    long room = maxDecodedBytes - total;
+                    if (n > room) {
+                        out.write(buffer, 0, (int) room);
+                        total += room;
+                        truncated = true;
+                        break;
+                    }
+                    out.write(buffer, 0, n);
+                    total += n;
+                }
+            } catch (EOFException e) {
+                // Compressed stream cut short by the peer or by a wire-size cap; keep what decoded.
+                truncated = true;
+            }
+            return new Body(new String(out.toByteArray(), charset), wire.count, total, truncated);
+        } finally {
+            release(buffer);
+            if (truncated) {
+                abort.run();
+            }
+            closeQuietly(decoded);
+        }
+    }
+
+    /**
+     * Returns {@code raw} with the response's content codings undone, for callers that
+     * stream a body instead of reading it into a string; null if a coding is unsupported.
+     */
+    public static InputStream decoded(InputStream raw, HttpResponse response) throws IOException {
+        try {
+            return decode(raw, headerValue(response, HttpHeaders.CONTENT_ENCODING));
+        } catch (EOFException e) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+    }
+
+    /**
+     * Returns a decoder for a body pushed in chunks by a non-blocking client, capped at
+     * {@code maxDecodedBytes} of decoded content.
+     */
+    public static Decoder decoder(HttpResponse response, long maxDecodedBytes) {
+        return new Decoder(response, maxDecodedBytes);
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+        }
+    }
+
+    /** Returns a decoding stream for the given Content-Encoding, or null if it is unsupported. */
+    private static InputStream decode(InputStream in, String encoding) throws IOException {
+        if (encoding == null) {
+            return in;
+        }
+        // Codings are listed in the order they were applied, so undo them from the end.
+        String[] codings = encoding.toLowerCase().split(",");
+        InputStream current = in;
+        for (int i = codings.length - 1; i >= 0; i--) {
+            String coding = codings[i].trim();
+            switch (coding) {
+                case "":
+                case "identity":
+                    break;
+                case "gzip":
+                case "x-gzip":
+                    current = new GZIPInputStream(current, BUFFER_SIZE);
+                    break;
+                case "deflate":
+                    current = inflate(current);
+                    break;
+                case "br":
+                    current = new BrotliInputStream(current);
+                    break;
+                default:
+                    return null;
+            }
+        }
+        return current;
+    }
+
+    /** "deflate" is meant to be zlib-wrapped, but plenty of servers send a raw stream. */
+    private static InputStream inflate(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, 2);
+        buffered.mark(2);
+        int cmf = buffered.read();
+        int flg = buffered.read();
+        buffered.reset();
+        boolean zlib = cmf != -1 && flg != -1 && (cmf & 0x0F) == 8 && ((cmf << 8) | flg) % 31 == 0;
+        return new InflaterInputStream(buffered, new Inflater(!zlib), BUFFER_SIZE);
+    }
+
+    private static int initialCapacity(HttpResponse response, long maxDecodedBytes) {
+        long hint = 32 * 1024;
+        String length = headerValue(response, HttpHeaders.CONTENT_LENGTH);
+        if (length != null) {
+            try {
+                hint = Long.parseLong(length.trim());
+            } catch (NumberFormatException e) {
+            }
+        }
+        return (int) Math.max(1024, Math.min(hint, Math.min(maxDecodedBytes, 1024 * 1024)));
+    }
+
+    private static Charset charsetOf(HttpResponse response) {
+        String contentType = headerValue(response, HttpHeaders.CONTENT_TYPE);
+        if (contentType != null) {
+            try {
+                Charset charset = ContentType.parse(contentType).getCharset();
+                if (charset != null) {
+                    return charset;
+                }
+            } catch (RuntimeException e) {
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    private static String headerValue(HttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header != null ? header.getValue() : null;
+    }
+
+    private static byte[] acquire() {
+        byte[] buffer = BUFFERS.poll();
+        return buffer != null ? buffer : new byte[BUFFER_SIZE];
+    }
+
+    private static void release(byte[] buffer) {
+        BUFFERS.offer(buffer);
+    }
+
+    /** Decoded body text plus byte counts; {@code text} is null for unsupported encodings. */
+    public static class Body {
+        public final String text;
+        public final long wireBytes;
+        public final long decodedBytes;
+        public final boolean truncated;
+
+        public Body(String text, long wireBytes, long decodedBytes, boolean truncated) {
+            this.text = text;
+            this.wireBytes = wireBytes;
+            this.decodedBytes = decodedBytes;
+            this.truncated = truncated;
+        }
+    }
+
+    /**
+     * Decodes a body as its chunks arrive, straight from the client's buffers into pooled
+     * ones. Identity, gzip and deflate bodies are decoded chunk by chunk; any other coding
+     * (br, or several stacked) is kept encoded in pooled buffers and decoded by
+     * {@link #read} once the body is complete. Not thread-safe: chunks are written by one
+     * I/O thread, then {@link #finish} or {@link #close} is called once.
+     */
+    public static final class Decoder {
+        private static final int IDENTITY = 0, GZIP = 1, DEFLATE = 2, BUFFERED = 3;
+        private static final int HEADER = 0, INFLATE = 1, TRAILER = 2, DONE = 3;
+        private static final int FHCRC = 2, FEXTRA = 4, FNAME = 8, FCOMMENT = 16;
+
+        private final HttpResponse response;
+        private final long maxDecodedBytes;
+        private final int mode;
+        private final List<byte[]> chunks = new ArrayList<>();
+        private int used = BUFFER_SIZE;
+        private long size;
+        private long wireBytes;
+        private boolean truncated;
+
+        private Inflater inflater;
+        private int stage = HEADER;
+        private int members;
+        private int trailerLeft;
+        // gzip member header: part 0 is the fixed 10 bytes, then XLEN, extra, name, comment, CRC.
+        private int part;
+        private int left = 10;
+        private int flags;
+        private int xlen;
+        // first byte of a deflate stream, held until the second one tells zlib from raw
+        private int first = -1;
+
+        private Decoder(HttpResponse response, long maxDecodedBytes) {
+            this.response = response;
+            this.maxDecodedBytes = maxDecodedBytes;
+            this.mode = modeOf(headerValue(response, HttpHeaders.CONTENT_ENCODING));
+        }
+
+        private static int modeOf(String encoding) {
+            if (encoding == null) {
+                return IDENTITY;
+            }
+            String coding = null;
+            for (String c : encoding.toLowerCase().split(",")) {
+                c = c.trim();
+                if (c.isEmpty() || c.equals("identity")) {
+                    continue;
+                }
+                if (coding != null) {
+                    return BUFFERED;
+                }
+                coding = c;
+            }
+            if (coding == null) {
+                return IDENTITY;
+            }
+            switch (coding) {
+                case "gzip":
+                case "x-gzip":
+                    return GZIP;
+                case "deflate":
+                    return DEFLATE;
+                default:
+                    return BUFFERED;
+            }
+        }
+
+        /**
+         * Decodes the remaining bytes of {@code src}. Returns false once the decoded cap is
+         * hit, after which the rest of the body should not be read.
+         */
+        public boolean write(ByteBuffer src) throws IOException {
+            wireBytes += src.remaining();
+            switch (mode) {
+                case IDENTITY:
+                    return append(src, maxDecodedBytes);
+                case BUFFERED:
+                    return append(src, Long.MAX_VALUE);
+                default:
+                    return inflate(src);
+            }
+        }
+
+        /** Completes decoding once the body has ended or been cut off, releasing the buffers. */
+        public Body finish() throws IOException {
+            try {
+                if (mode == BUFFERED) {
+                    return read(new ChunkInputStream(), response, maxDecodedBytes, () -> { });
+                }
+                if (first != -1) {
+                    start(false);
+                    inflater.setInput(new byte[] {(byte) first});
+                    drain();
+                }
+                if (stage == INFLATE || stage == TRAILER) {
+                    // Compressed stream cut short by the peer or by a wire-size cap; keep what decoded.
+                    truncated = true;
+                }
+                byte[] bytes = new byte[(int) size];
+                int offset = 0;
+                for (byte[] chunk : chunks) {
+                    int n = Math.min(chunk.length, bytes.length - offset);
+                    System.arraycopy(chunk, 0, bytes, offset, n);
+                    offset += n;
+                }
+                return new Body(new String(bytes, charsetOf(response)), wireBytes, size, truncated);
+            } finally {
+                close();
+            }
+        }
+
+        /** Releases the buffers without decoding, e.g. when the exchange failed. */
+        public void close() {
+            for (byte[] chunk : chunks) {
+                release(chunk);
+            }
+            chunks.clear();
+            used = BUFFER_SIZE;
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+
+        private boolean append(ByteBuffer src, long cap) {
+            while (src.hasRemaining()) {
+                if (size == cap) {
+                    truncated = true;
+                    return false;
+                }
+                int n = (int) Math.min(Math.min(src.remaining(), cap - size), room());
+                src.get(chunks.get(chunks.size() - 1), used, n);
+                used += n;
+                size += n;
+            }
+            return true;
+        }
+
+        /** Bytes free in the last chunk, taking a new one from the pool if it is full. */
+        private int room() {
+            if (used == BUFFER_SIZE) {
+                chunks.add(acquire());
+                used = 0;
+            }
+            return BUFFER_SIZE - used;
+        }
+
+        private boolean inflate(ByteBuffer src) throws IOException {
+            while (src.hasRemaining()) {
+                switch (stage) {
+                    case HEADER:
+                        if (!header(src)) {
+                            return true;
+                        }
+                        stage = INFLATE;
+                        break;
+                    case INFLATE:
+                        inflater.setInput(src);
+                        if (!drain()) {
+                            return false;
+                        }
+                        if (inflater.finished()) {
+                            stage = mode == GZIP ? TRAILER : DONE;
+                            trailerLeft = 8;
+                        }
+                        break;
+                    case TRAILER:
+                        int n = Math.min(trailerLeft, src.remaining());
+                        src.position(src.position() + n);
+                        trailerLeft -= n;
+                        if (trailerLeft == 0) {
+                            // Another gzip member may follow; GZIPInputStream reads those too.
+                            stage = HEADER;
+                            members++;
+                            part = 0;
+                            left = 10;
+                            flags = 0;
+                        }
+                        break;
+                    default:
+                        src.position(src.limit());
+                }
+            }
+            return true;
+        }
+
+        /** Consumes header bytes from {@code src}; returns true once the inflater can start. */
+        private boolean header(ByteBuffer src) throws IOException {
+            if (mode == DEFLATE) {
+                if (first == -1) {
+                    first = src.get() & 0xFF;
+                    if (!src.hasRemaining()) {
+                        return false;
+                    }
+                }
+                int flg = src.get(src.position()) & 0xFF;
+                start((first & 0x0F) == 8 && ((first << 8) | flg) % 31 == 0);
+                // Inflate the held byte on its own; zlib keeps it in its state before the next chunk.
+                inflater.setInput(new byte[] {(byte) first});
+                first = -1;
+                drain();
+                return true;
+            }
+            try {
+                if (!gzipHeader(src)) {
+                    return false;
+                }
+            } catch (ZipException e) {
+                if (members == 0) {
+                    throw e;
+                }
+                // Trailing garbage after a complete member, which GZIPInputStream ignores as well.
+                stage = DONE;
+                src.position(src.limit());
+                return false;
+            }
+            if (inflater == null) {
+                inflater = new Inflater(true);
+            } else {
+                inflater.reset();
+            }
+            return true;
+        }
+
+        private void start(boolean zlib) {
+            inflater = new Inflater(!zlib);
+            stage = INFLATE;
+        }
+
+        private boolean gzipHeader(ByteBuffer src) throws ZipException {
+            while (part < 6) {
+                if (!src.hasRemaining()) {
+                    return false;
+                }
+                int b = src.get() & 0xFF;
+                switch (part) {
+                    case 0:
+                        int i = 10 - left;
+                        if (i == 0 && b != 0x1F || i == 1 && b != 0x8B || i == 2 && b != 8) {
+                            throw new ZipException("Not in GZIP format");
+                        }
+                        if (i == 3) {
+                            flags = b;
+                        }
+                        break;
+                    case 1:
+                        xlen |= b << (8 * (2 - left));
+                        break;
+                    case 3:
+                    case 4:
+                        if (b != 0) {
+                            continue;
+                        }
+                        left = 1;
+                        break;
+                    default:
+                        break;
+                }
+                if (--left == 0) {
+                    nextPart();
+                }
+            }
+            return true;
+        }
+
+        private void nextPart() {
+            while (++part < 6) {
+                if (part == 1 && (flags & FEXTRA) != 0) {
+                    xlen = 0;
+                    left = 2;
+                    return;
+                }
+                if (part == 2 && (flags & FEXTRA) != 0 && xlen > 0) {
+                    left = xlen;
+                    return;
+                }
+                if (part == 3 && (flags & FNAME) != 0 || part == 4 && (flags & FCOMMENT) != 0) {
+                    left = Integer.MAX_VALUE;
+                    return;
+                }
+                if (part == 5 && (flags & FHCRC) != 0) {
+                    left = 2;
+                    return;
+                }
+            }
+        }
+
+        /** Inflates the inflater's pending input into the chunks; false once the decoded cap is hit. */
+        private boolean drain() throws IOException {
+            try {
+                while (!inflater.finished()) {
+                    if (size == maxDecodedBytes) {
+                        truncated = true;
+                        return false;
+                    }
+                    int room = room();
+                    int n = inflater.inflate(chunks.get(chunks.size() - 1), used,
+                            (int) Math.min(room, maxDecodedBytes - size));
+                    used += n;
+                    size += n;
+                    if (n == 0) {
+                        if (inflater.needsDictionary()) {
+                            throw new ZipException("Deflate stream needs a preset dictionary");
+                        }
+                        if (inflater.needsInput()) {
+                            return true;
+                        }
+                    }
+                }
+                return true;
+            } catch (DataFormatException e) {
+                throw new ZipException(e.getMessage());
+            }
+        }
+
+        /** Reads the buffered chunks back in order, without copying them. */
+        private class ChunkInputStream extends InputStream {
+            private int index;
+            private int offset;
+            private long remaining = size;
+
+            @Override
+            public int read() {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (remaining == 0) {
+                    return -1;
+                }
+                if (offset == BUFFER_SIZE) {
+                    index++;
+                    offset = 0;
+                }
+                int n = (int) Math.min(Math.min(len, BUFFER_SIZE - offset), remaining);
+                System.arraycopy(chunks.get(index), offset, b, off, n);
+                offset += n;
+                remaining -= n;
+                return n;
+            }
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.analyzer.service;
+
+import org.apache.hc.client5.http.DnsResolver;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded TTL cache in front of another {@link DnsResolver}, so repeated analyses of an
+ * origin resolve it once. Failures are cached too, for a shorter time, so a batch full of
+ * dead domains does not wait on the resolver for each of them. Whether the lookup of the
+ * fetch running on this thread was answered from the cache is noted in its {@link FetchTimings}.
+ */
+public class CachingDnsResolver implements DnsResolver {
+
+    private final DnsResolver delegate;
+    private final AnalyzerMetrics metrics;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final int maxEntries;
+    /** Access-ordered for LRU eviction; guarded by itself. */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public CachingDnsResolver(DnsResolver delegate, AnalyzerMetrics metrics, long ttlMs, long negativeTtlMs,
+                              int maxEntries) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMs));
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, negativeTtlMs));
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        String key = host.toLowerCase(Locale.ROOT);
+        Entry cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        FetchTimings timings = FetchTimings.current();
+        if (cached != null && System.nanoTime() < cached.expiresAtNanos) {
+            metrics.recordDnsLookup(true);
+            if (timings != null) {
+                timings.dnsLookups++;
+                timings.dnsCacheHits++;
+            }
+            if (cached.addresses == null) {
+                throw new UnknownHostException(host);
+            }
+            return cached.addresses.clone();
+        }
+
+        metrics.recordDnsLookup(false);
+        if (timings != null) {
+            timings.dnsLookups++;
+        }
+        try {
+            InetAddress[] addresses = delegate.resolve(host);
+            put(key, new Entry(addresses.clone(), System.nanoTime() + ttlNanos), ttlNanos);
+            return addresses;
+        } catch (UnknownHostException e) {
+            put(key, new Entry(null, System.nanoTime() + negativeTtlNanos), negativeTtlNanos);
+            throw e;
+        }
+    }
+
+    @Override
+    public String resolveCanonicalHostname(String host) throws UnknownHostException {
+        return delegate.resolveCanonicalHostname(host);
+    }
+
+    private void put(String key, Entry entry, long ttl) {
+        if (ttl <= 0) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, entry);
+            while (entries.size() > maxEntries) {
+                entries.remove(entries.keySet().iterator().next());
+            }
+        }
+    }
+
+    /** Resolved addresses, or null for a cached failure. */
+    private static class Entry {
+        final InetAddress[] addresses;
+        final long expiresAtNanos;
+
+        Entry(InetAddress[] addresses, long expiresAtNanos) {
+            this.addresses = addresses;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package com.analyzer.service;
+
+import com.analyzer.html.HtmlScanner;
+import com.analyzer.html.LinkCollector;
+import com.analyzer.model.CrawlReport;
+import com.analyzer.model.CrawlRequest;
+import com.analyzer.model.JobStatus;
+import com.analyzer.model.PageScore;
+import com.analyzer.model.Result;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Crawls a site from a seed URL, scoring every same-site page it reaches up to a page and
+ * depth limit, and aggregates the scores into a {@link CrawlReport}. Links are taken from
+ * the HTML each analysis already downloads, so a page is fetched once. The frontier holds
+ * URLs as UTF-8 bytes and the visited set as 64-bit hashes, so a 100k-page crawl costs a
+ * few megabytes; pages themselves are reduced to counters, a latency sample and the worst
+ * few as they complete. Crawls live in memory and are lost on restart.
+ */
+@Service
+public class CrawlService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CrawlService.class);
+
+    /** Extensions of links that are never HTML pages, skipped before a fetch is spent on them. */
+    private static final String[] SKIPPED_EXTENSIONS = {
+            ".jpg", ".jpeg", ".png", ".gif", ".webp", ".svg", ".ico", ".bmp", ".avif",
+            ".pdf", ".zip", ".gz", ".tar", ".rar", ".7z", ".exe", ".dmg", ".apk",
+            ".mp3", ".mp4", ".avi", ".mov", ".webm", ".ogg", ".wav",
+            ".css", ".js", ".json", ".xml", ".txt", ".woff", ".woff2", ".ttf", ".eot",
+            ".doc", ".docx", ".xls", ".xlsx", ".ppt", ".pptx"
+    };
+
+    private final AnalysisExecutor analysisExecutor;
+    private final FetcherService fetcherService;
+    private final OriginResourceService originResourceService;
+    private final int maxPagesLimit;
+    private final int defaultMaxPages;
+    private final int defaultMaxDepth;
+    private final int maxDepthLimit;
+    private final int window;
+    private final int maxLinksPerPage;
+    private final int retained;
+    private final int worstPages;
+    private final ExecutorService runners;
+
+    /** Crawls in creation order; the oldest finished ones are dropped past {@code retained}. */
+    private final Map<String, Crawl> crawls = Collections.synchronizedMap(new LinkedHashMap<>());
+    private volatile boolean stopping;
+
+    @Autowired
+    public CrawlService(AnalysisExecutor analysisExecutor, FetcherService fetcherService,
+                        OriginResourceService originResourceService,
+                        @Value("${analyzer.crawl.max-pages-limit:100000}") int maxPagesLimit,
+                        @Value("${analyzer.crawl.default-max-pages:100}") int defaultMaxPages,
+                        @Value("${analyzer.crawl.default-max-depth:3}") int defaultMaxDepth,
+                        @Value("${analyzer.crawl.max-depth-limit:20}") int maxDepthLimit,
+                        @Value("${analyzer.crawl.window:32}") int window,
+                        @Value("${analyzer.crawl.concurrency:2}") int concurrency,
+                        @Value("${analyzer.crawl.max-links-per-page:500}") int maxLinksPerPage,
+                        @Value("${analyzer.crawl.retained:100}") int retained,
+                        @Value("${analyzer.crawl.worst-pages:10}") int worstPages) {
+        this.analysisExecutor = analysisExecutor;
+        this.fetcherService = fetcherService;
+        this.originResourceService = originResourceService;
+        this.maxPagesLimit = Math.max(1, maxPagesLimit);
+        this.defaultMaxPages = Math.max(1, defaultMaxPages);
+        this.defaultMaxDepth = Math.max(0, defaultMaxDepth);
+        this.maxDepthLimit = Math.max(0, Math.min(maxDepthLimit, Byte.MAX_VALUE));
+        this.window = Math.max(1, window);
+        this.maxLinksPerPage = Math.max(1, maxLinksPerPage);
+        this.retained = Math.max(1, retained);
+        this.worstPages = Math.max(1, worstPages);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.runners = Executors.newFixedThreadPool(Math.max(1, concurrency), r -> {
+            Thread t = new Thread(r, "analyzer-crawl-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Queues a crawl and returns at once with its id; null if the seed is not an http(s) URL. */
+    public CrawlReport start(CrawlRequest request) {
+        String seed = UrlCanonicalizer.canonicalize(fetcherService.normalizeUrl(request.getUrl()));
+        if (seed == null) {
+            return null;
+        }
+        int maxPages = clamp(request.getMaxPages(), defaultMaxPages, 1, maxPagesLimit);
+        int maxDepth = clamp(request.getMaxDepth(), defaultMaxDepth, 0, maxDepthLimit);
+        Crawl crawl = new Crawl(UUID.randomUUID().toString(), seed, maxPages, maxDepth);
+        synchronized (crawls) {
+            crawls.put(crawl.id, crawl);
+            evictFinished();
+        }
+        runners.execute(() -> run(crawl));
+        return crawl.snapshot();
+    }
+
+    /** Returns the crawl's current report, or null if there is no such crawl. */
+    public CrawlReport report(String id) {
+        Crawl crawl = crawls.get(id);
+        return crawl != null ? crawl.snapshot() : null;
+    }
+
+    /** Reports of the retained crawls, newest first. */
+    public List<CrawlReport> list() {
+        List<Crawl> all;
+        synchronized (crawls) {
+            all = new ArrayList<>(crawls.values());
+        }
+        List<CrawlReport> reports = new ArrayList<>(all.size());
+        for (int i = all.size() - 1; i >= 0; i--) {
+            reports.add(all.get(i).snapshot());
+        }
+        return reports;
+    }
+
+    /**
+     * Stops a queued or running crawl once the pages in flight complete; the report keeps
+     * what was scored. Returns the report, or null if there is no such crawl.
+     */
+    public CrawlReport cancel(String id) {
+        Crawl crawl = crawls.get(id);
+        if (crawl == null) {
+            return null;
+        }
+        crawl.cancelled = true;
+        return crawl.snapshot();
+    }
+
+    private void run(Crawl crawl) {
+        crawl.setStatus(JobStatus.RUNNING, null);
+        try {
+            ArrayDeque<byte[]> frontier = new ArrayDeque<>();
+            UrlHashSet visited = new UrlHashSet(Math.min(crawl.maxPages, 1024));
+            BlockingQueue<Page> completed = new LinkedBlockingQueue<>();
+            visited.add(crawl.seed);
+            frontier.add(encode(crawl.seed, 0));
+            int enqueued = 1;
+            int inFlight = 0;
+
+            while (!stopping) {
+                while (!crawl.cancelled && inFlight < window && !frontier.isEmpty()) {
+                    byte[] entry = frontier.poll();
+                    Page page = new Page(new String(entry, 1, entry.length - 1, StandardCharsets.UTF_8), entry[0]);
+                    boolean followLinks = page.depth < crawl.maxDepth;
+                    analysisExecutor.analyzeFresh(page.url, fetchResult -> collectLinks(page, fetchResult, followLinks))
+                            .whenComplete((result, error) -> {
+                                page.result = result;
+                                completed.add(page);
+                            });
+                    inFlight++;
+                }
+                crawl.setQueued(frontier.size());
+                if (inFlight == 0) {
+                    break;
+                }
+
+                Page page = completed.take();
+                inFlight--;
+                if (page.links != null && !crawl.cancelled) {
+                    for (String link : page.links) {
+                        if (enqueued >= crawl.maxPages) {
+                            break;
+                        }
+                        String url = UrlCanonicalizer.canonicalize(link);
+                        if (url != null && isCrawlable(crawl.seed, url) && visited.add(url)) {
+                            frontier.add(encode(url, page.depth + 1));
+                            enqueued++;
+                        }
+                    }
+                }
+                crawl.record(page);
+            }
+
+            crawl.setQueued(frontier.size());
+            if (stopping) {
+                crawl.setStatus(JobStatus.CANCELLED, "Stopped by shutdown");
+            } else {
+                crawl.setStatus(crawl.cancelled ? JobStatus.CANCELLED : JobStatus.COMPLETED, null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            crawl.setStatus(JobStatus.CANCELLED, "Stopped by shutdown");
+        } catch (RuntimeException e) {
+            log.error("Crawl {} failed", crawl.id, e);
+            crawl.setStatus(JobStatus.FAILED, e.toString());
+        }
+    }
+
+    /** Runs on the analysis worker while the page's HTML is at hand; the runner dedupes the links. */
+    private void collectLinks(Page page, FetcherService.FetchResult fetchResult, boolean followLinks) {
+        page.failed = fetchResult.response == null || fetchResult.error != null
+                || fetchResult.response.getCode() >= 400;
+        if (!followLinks || page.failed || fetchResult.htmlContent == null || !isHtml(fetchResult)) {
+            return;
+        }
+        LinkCollector collector = LinkCollector.anchors(page.url, maxLinksPerPage);
+        HtmlScanner.scan(fetchResult.htmlContent, collector);
+        page.links = collector.getLinks();
+    }
+
+    private static boolean isHtml(FetcherService.FetchResult fetchResult) {
+        Header contentType = fetchResult.response.getFirstHeader(HttpHeaders.CONTENT_TYPE);
+        return contentType == null || contentType.getValue().toLowerCase(Locale.ROOT).contains("html");
+    }
+
+    /**
+     * Same site (a leading "www." aside), allowed by its own origin's robots.txt, and not an
+     * obvious non-page. An http or "www." variant of the seed can have different rules.
+     */
+    private boolean isCrawlable(String seed, String url) {
+        if (!siteOf(seed).equals(siteOf(url))) {
+            return false;
+        }
+        String pathAndQuery = UrlCanonicalizer.pathAndQueryOf(url);
+        int queryStart = pathAndQuery.indexOf('?');
+        String path = (queryStart >= 0 ? pathAndQuery.substring(0, queryStart) : pathAndQuery)
+                .toLowerCase(Locale.ROOT);
+        for (String extension : SKIPPED_EXTENSIONS) {
+            if (path.endsWith(extension)) {
+                return false;
+            }
+        }
+        // Cached per origin, so only the first link to a new variant fetches its robots.txt.
+        RobotsTxt robots = originResourceService.robots(url);
+        return robots == null || robots.isAllowed(pathAndQuery);
+    }
+
+    /** Host and port of a canonical URL without a leading "www."; http and https count as one site. */
+    private static String siteOf(String canonicalUrl) {
+        String origin = UrlCanonicalizer.originOf(canonicalUrl);
+        String authority = origin.substring(origin.indexOf("://") + 3);
+        return authority.startsWith("www.") ? authority.substring(4) : authority;
+    }
+
+    /** Depth in the first byte, then the URL as UTF-8: about a third of a String's footprint. */
+    private static byte[] encode(String url, int depth) {
+        byte[] utf8 = url.getBytes(StandardCharsets.UTF_8);
+        byte[] entry = new byte[utf8.length + 1];
+        entry[0] = (byte) depth;
+        System.arraycopy(utf8, 0, entry, 1, utf8.length);
+        return entry;
+    }
+
+    private static int clamp(Integer requested, int fallback, int min, int max) {
+        int value = requested != null ? requested : fallback;
+        return Math.max(min, Math.min(value, max));
+    }
+
+    /** Called with {@code crawls} held. */
+    private void evictFinished() {
+        Iterator<Crawl> it = crawls.values().iterator();
+        while (crawls.size() > retained && it.hasNext()) {
+            if (it.next().isFinished()) {
+                it.remove();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        stopping = true;
+        runners.shutdownNow();
+        runners.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /** A page between dispatch and aggregation; its fields are written by the worker, then read by the runner. */
+    private static class Page {
+        final String url;
+        final int depth;
+        volatile boolean failed = true;
+        volatile List<String> links;
+        volatile Result result;
+
+        Page(String url, int depth) {
+            this.url = url;
+            this.depth = depth;
+        }
+    }
+
+    /** Running aggregate of one crawl; written by its runner, read by pollers. */
+    private class Crawl {
+        final String id;
+        final String seed;
+        final int maxPages;
+        final int maxDepth;
+        final long createdAt = System.currentTimeMillis();
+        volatile boolean cancelled;
+
+        private String status = JobStatus.QUEUED;
+        private String error;
+        private long updatedAt = createdAt;
+        private int scored;
+        private int failed;
+        private int queued;
+        private long scoreSum;
+        private final int[] buckets = new int[10];
+        private float[] latencies = new float[64];
+        /** The worst pages, best of them at the head so it is the one replaced. */
+        private final PriorityQueue<PageScore> worst = new PriorityQueue<>(
+                Comparator.comparingInt(PageScore::getTotal).reversed());
+
+        Crawl(String id, String seed, int maxPages, int maxDepth) {
+            this.id = id;
+            this.seed = seed;
+            this.maxPages = maxPages;
+            this.maxDepth = maxDepth;
+        }
+
+        synchronized void setStatus(String status, String error) {
+            this.status = status;
+            this.error = error;
+            this.updatedAt = System.currentTimeMillis();
+        }
+
+        synchronized void setQueued(int queued) {
+            this.queued = queued;
+        }
+
+        synchronized boolean isFinished() {
+            return !JobStatus.QUEUED.equals(status) && !JobStatus.RUNNING.equals(status);
+        }
+
+        synchronized void record(Page page) {
+            Result result = page.result;
+            boolean pageFailed = page.failed || result == null;
+            PageScore score;
+            if (pageFailed) {
+                failed++;
+                score = new PageScore(page.url, page.depth, 0, 0, 0, 0, -1);
+            } else {
+                double latencyMs = result.getPerformanceDetails() != null
+                        ? result.getPerformanceDetails().getLatencyMs() : 0;
+                score = new PageScore(page.url, page.depth, result.getTotal(), result.getPerformance(),
+                        result.getSecurity(), result.getSeo(), latencyMs);
+                if (scored == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, scored * 2);
+                }
+                latencies[scored++] = (float) latencyMs;
+                scoreSum += result.getTotal();
+                buckets[Math.max(0, Math.min(result.getTotal() / 10, 9))]++;
+            }
+            if (worst.size() < worstPages) {
+                worst.add(score);
+            } else if (score.getTotal() < worst.peek().getTotal()) {
+                worst.poll();
+                worst.add(score);
+            }
+            updatedAt = System.currentTimeMillis();
+        }
+
+        synchronized CrawlReport snapshot() {
+            Map<String, Integer> distribution = new LinkedHashMap<>();
+            for (int i = 0; i < buckets.length; i++) {
+                distribution.put(i * 10 + "-" + (i == 9 ? 100 : i * 10 + 9), buckets[i]);
+            }
+            float[] sorted = Arrays.copyOf(latencies, scored);
+            Arrays.sort(sorted);
+            List<PageScore> worstSorted = new ArrayList<>(worst);
+            worstSorted.sort(Comparator.comparingInt(PageScore::getTotal));
+            double average = scored > 0 ? Math.round(scoreSum * 10.0 / scored) / 10.0 : 0;
+            return new CrawlReport(id, seed, status, maxPages, maxDepth, scored, failed, queued, average,
+                    distribution, percentile(sorted, 0.50), percentile(sorted, 0.95), worstSorted,
+                    createdAt, updatedAt, error);
+        }
+    }
+
+    /** Nearest-rank percentile of sorted samples, 0 if there are none. */
+    private static double percentile(float[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(p * sorted.length);
+        return Math.round(sorted[Math.max(0, rank - 1)] * 10.0) / 10.0;
+    }
+}
@@ -0,0 +1,57 @@
+package com.analyzer.service;
+
+/**
+ * Phase breakdown of one classic fetch. The blocking client runs DNS, connect, TLS and
+ * the exchange on the calling thread, so the hooks {@link HttpClientFactory} installs find the
+ * timings for the request in progress through a thread-local. Phases that did not happen
+ * (e.g. connect and TLS on a reused connection) stay at zero.
+ */
+public class FetchTimings {
+
+    private static final ThreadLocal<FetchTimings> CURRENT = new ThreadLocal<>();
+
+    long dnsNanos;
+    long connectNanos;
+    long tlsNanos;
+    long ttfbNanos;
+    long downloadNanos;
+    int dnsLookups;
+    int dnsCacheHits;
+    int tlsHandshakes;
+    int tlsResumptions;
+
+    static FetchTimings begin() {
+        FetchTimings timings = new FetchTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    /** Timings of the fetch running on this thread, or null outside a fetch. */
+    static FetchTimings current() {
+        return CURRENT.get();
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    public double getDnsMs() { return dnsNanos / 1_000_000.0; }
+
+    public double getConnectMs() { return connectNanos / 1_000_000.0; }
+
+    public double getTlsMs() { return tlsNanos / 1_000_000.0; }
+
+    /** Request sent until response headers received, on an established connection. */
+    public double getTtfbMs() { return ttfbNanos / 1_000_000.0; }
+
+    public double getDownloadMs() { return downloadNanos / 1_000_000.0; }
+
+    /** True when the request went out on a pooled keep-alive connection. */
+    public boolean isConnectionReused() { return connectNanos == 0; }
+
+    /** True when the host was resolved, and every lookup was answered by {@link CachingDnsResolver}. */
+    public boolean isDnsCached() { return dnsLookups > 0 && dnsCacheHits == dnsLookups; }
+
+    /** True when a TLS handshake took place, and every one resumed a cached session. */
+    public boolean isTlsResumed() { return tlsHandshakes > 0 && tlsResumptions == tlsHandshakes; }
+}
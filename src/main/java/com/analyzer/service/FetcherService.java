@@ -1,82 +1,65 @@
 package com.analyzer.service;
 
 import org.apache.hc.client5.http.classic.methods.HttpGet;
-import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.classic.methods.HttpHead;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
-import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
+import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
-import org.apache.hc.core5.ssl.SSLContextBuilder;
-import org.apache.hc.core5.util.Timeout;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import javax.net.ssl.SSLContext;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 /** Service for fetching web pages using HTTP/HTTPS. */
 @Service
 public class FetcherService {
 
-    private final CloseableHttpClient httpClient;
-    
-    @Value("${http.client.timeout}")
-    private int httpTimeout;
-    
-    @Value("${http.client.user-agent}")
-    private String httpUserAgent;
-    
-    @Value("${http.client.accept}")
-    private String httpAccept;
-    
-    @Value("${http.client.accept-language}")
-    private String httpAcceptLanguage;
-    
-    @Value("${http.client.accept-encoding}")
-    private String httpAcceptEncoding;
-    
-    @Value("${http.client.connection}")
-    private String httpConnection;
+    /** Error of a fetch skipped because its host's circuit is open. */
+    public static final String CIRCUIT_OPEN = "Host unreachable, retrying later (circuit open)";
 
-    public FetcherService() {
-        this.httpClient = createHttpClient();
-    }
+    private final CloseableHttpClient httpClient;
+    private final AnalyzerMetrics metrics;
+    private final RetryPolicy retryPolicy;
+    private final String httpUserAgent;
+    private final String httpAccept;
+    private final String httpAcceptLanguage;
+    private final String httpAcceptEncoding;
+    private final String httpConnection;
+    private final long maxBodyBytes;
+    /** Origins kept warm by {@link PoolMaintainer}, to tell their fetches apart in the metrics. */
+    private final Set<String> warmOrigins;
 
-    private CloseableHttpClient createHttpClient() {
-        try {
-            // WARNING: In production, use proper certificate validation.
-            SSLContext sslContext = SSLContextBuilder.create()
-                .loadTrustMaterial((chain, authType) -> true)
-                    .build();
-
-            SSLConnectionSocketFactory sslSocketFactory = new SSLConnectionSocketFactory(
-                sslContext,
-                NoopHostnameVerifier.INSTANCE
-            );
-
-            RequestConfig requestConfig = RequestConfig.custom()
-                    .setConnectionRequestTimeout(Timeout.ofMilliseconds(httpTimeout))
-                    .setResponseTimeout(Timeout.ofMilliseconds(httpTimeout))
-                    .build();
-
-            return HttpClients.custom()
-                    .setConnectionManager(
-                            org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder.create()
-                        .setSSLSocketFactory(sslSocketFactory)
-                        .setMaxConnTotal(200)
-                        .setMaxConnPerRoute(20)
-                                    .build()
-                    )
-                    .setDefaultRequestConfig(requestConfig)
-                    .build();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to create HTTP client", e);
+    @Autowired
+    public FetcherService(AnalyzerMetrics metrics, HttpClientFactory httpClientFactory, RetryPolicy retryPolicy) {
+        this.metrics = metrics;
+        this.retryPolicy = retryPolicy;
+        HttpClientProperties properties = httpClientFactory.getProperties();
+        this.httpUserAgent = properties.getUserAgent();
+        this.httpAccept = properties.getAccept();
+        this.httpAcceptLanguage = properties.getAcceptLanguage();
+        this.httpAcceptEncoding = properties.getAcceptEncoding();
+        this.httpConnection = properties.getConnection();
+        this.maxBodyBytes = properties.getMaxBodyBytes();
+        this.warmOrigins = new HashSet<>();
+        for (String origin : properties.getWarmOrigins()) {
+            String normalized = OriginResourceService.originOf(normalizeUrl(origin));
+            if (normalized != null) {
+                warmOrigins.add(normalized);
+            }
         }
+        this.httpClient = httpClientFactory.createClassicClient();
     }
 
-
     public String normalizeUrl(String url) {
         if (url == null || url.trim().isEmpty()) {
             return "";
@@ -89,80 +72,234 @@ public class FetcherService {
     }
 
     
-    @SuppressWarnings("deprecation")
     public FetchResult fetchPage(String url) {
+        return fetchPage(url, Collections.emptyMap());
+    }
+
+    /**
+     * Fetches a page with extra request headers, e.g. {@code If-None-Match} for revalidation.
+     * Transient failures are retried and HTTPS may fall back to HTTP, as {@link RetryPolicy}
+     * decides; a host whose circuit is open fails at once.
+     */
+    public FetchResult fetchPage(String url, Map<String, String> extraHeaders) {
+        String host = HostScheduler.hostOf(url);
+        if (!retryPolicy.allowRequest(host)) {
+            return new FetchResult(null, null, null, CIRCUIT_OPEN);
+        }
+        retryPolicy.onFirstAttempt();
+        RetryPolicy.Attempt attempt = null;
         try {
-            long startTime = System.nanoTime();
-            HttpGet request = createRequest(url);
-            
-            CloseableHttpResponse response = httpClient.execute(request);
+            attempt = fetchWithRetries(url, extraHeaders);
+            if (attempt.result == null && retryPolicy.shouldFallBackToHttp(attempt.failure)
+                    && url.toLowerCase(Locale.ROOT).startsWith("https://")) {
+                attempt = fetchWithRetries("http://" + url.substring(8), extraHeaders);
+            }
+        } finally {
+            retryPolicy.recordOutcome(host, attempt != null ? attempt.failure : RetryPolicy.Failure.OTHER);
+        }
+        return attempt.result != null ? attempt.result : new FetchResult(null, null, null, attempt.error);
+    }
+
+    /** Fetches {@code url}, retrying while the policy allows; the result holds the last outcome. */
+    private RetryPolicy.Attempt fetchWithRetries(String url, Map<String, String> extraHeaders) {
+        for (int n = 1; ; n++) {
+            FetchResult result = null;
+            RetryPolicy.Failure failure;
+            String error = null;
+            try {
+                result = execute(url, extraHeaders);
+                failure = RetryPolicy.classify(result.response);
+            } catch (IOException | RuntimeException e) {
+                failure = RetryPolicy.classify(e);
+                error = errorMessage(e);
+            }
+            long delayMs = retryPolicy.retryDelayMs(failure, n, result != null ? result.response : null);
+            if (delayMs < 0) {
+                return new RetryPolicy.Attempt(result, failure, error);
+            }
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new RetryPolicy.Attempt(result, failure, error != null ? error : "Interrupted");
+            }
+        }
+    }
+
+    static String errorMessage(Throwable e) {
+        String message = e.getMessage();
+        return message != null ? message.substring(0, Math.min(100, message.length())) : "Connection failed";
+    }
+
+    private FetchResult execute(String url, Map<String, String> extraHeaders) throws IOException {
+        long startTime = System.nanoTime();
+        FetchTimings timings = FetchTimings.begin();
+        FetchResult result = null;
+        try {
+            result = exchange(url, extraHeaders, startTime, timings);
+            return result;
+        } finally {
+            FetchTimings.end();
+            recordMetrics(url, timings, result, System.nanoTime() - startTime);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private FetchResult exchange(String url, Map<String, String> extraHeaders, long startTime,
+                                 FetchTimings timings) throws IOException {
+        HttpGet request = createRequest(url, extraHeaders);
+
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
             double elapsedMs = (System.nanoTime() - startTime) / 1_000_000.0;
             int statusCode = response.getCode();
-            
-            if (statusCode >= 200 && statusCode < 400) {
-                String htmlContent = null;
-                try {
-                    htmlContent = EntityUtils.toString(response.getEntity());
-                } catch (Exception e) {
-                }
-                return new FetchResult(response, elapsedMs, htmlContent, null);
-            } else {
-                try { response.close(); } catch (Exception ignored) {}
-                return new FetchResult(null, null, null, "HTTP Status: " + statusCode);
+
+            if (statusCode < 200 || statusCode >= 400) {
+                return new FetchResult(response, elapsedMs, null, "HTTP Status: " + statusCode,
+                        -1, -1, false, timings);
+            }
+
+            HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                return new FetchResult(response, elapsedMs, null, null, 0, 0, false, timings);
+            }
+            long downloadStart = System.nanoTime();
+            try {
+                BodyReader.Body body = BodyReader.read(entity.getContent(), response, maxBodyBytes, request::cancel);
+                timings.downloadNanos = System.nanoTime() - downloadStart;
+                return new FetchResult(response, elapsedMs, body.text, null,
+                        body.wireBytes, body.decodedBytes, body.truncated, timings);
+            } catch (IOException e) {
+                request.cancel();
+                return new FetchResult(response, elapsedMs, null, null, -1, -1, false, timings);
+            }
+        }
+    }
+
+    /**
+     * Streams the body of a GET through {@code handler} instead of buffering it, for
+     * resources that can be far larger than a page (sitemaps). The body is content-decoded;
+     * if the handler stops before the end, the connection is dropped rather than drained.
+     */
+    public <T> T stream(String url, BodyHandler<T> handler) throws IOException {
+        HttpGet request = createRequest(url, Collections.emptyMap());
+        // The client consumes what is left of the entity after the handler; cancelling first
+        // drops the connection instead.
+        return httpClient.execute(request, response -> {
+            HttpEntity entity = response.getEntity();
+            InputStream body = entity != null ? BodyReader.decoded(entity.getContent(), response) : null;
+            if (body == null) {
+                request.cancel();
+                return handler.handle(response, new ByteArrayInputStream(new byte[0]));
             }
-        } catch (Exception e) {
-            if (url.toLowerCase().startsWith("https://")) {
-                try {
-                    String httpUrl = "http://" + url.substring(8);
-                    long startTime = System.nanoTime();
-                    HttpGet request = createRequest(httpUrl);
-                    
-                    CloseableHttpResponse response = httpClient.execute(request);
-                    double elapsedMs = (System.nanoTime() - startTime) / 1_000_000.0;
-                    int statusCode = response.getCode();
-                    
-                    if (statusCode >= 200 && statusCode < 400) {
-                        String htmlContent = null;
-                        try {
-                            htmlContent = EntityUtils.toString(response.getEntity());
-                        } catch (Exception e3) {
-                        }
-                        return new FetchResult(response, elapsedMs, htmlContent, null);
-                    } else {
-                        try { response.close(); } catch (Exception ignored) {}
-                        return new FetchResult(null, null, null, "Both HTTPS and HTTP failed");
-                    }
-                } catch (Exception e2) {
-                    return new FetchResult(null, null, null, "Both HTTPS and HTTP failed");
+            try {
+                return handler.handle(response, body);
+            } finally {
+                if (!atEnd(body)) {
+                    request.cancel();
                 }
             }
-            
-            return new FetchResult(null, null, null,
-                    e.getMessage() != null ? e.getMessage().substring(0, Math.min(100, e.getMessage().length())) : "Connection failed");
+        });
+    }
+
+    /**
+     * Sends a HEAD and discards the response, leaving the connection in the pool for the
+     * next fetch to the origin. Returns the status code. Not counted in the fetch metrics.
+     */
+    public int head(String url) throws IOException {
+        HttpHead request = new HttpHead(url);
+        request.setHeader(HttpHeaders.USER_AGENT, httpUserAgent);
+        request.setHeader(HttpHeaders.CONNECTION, httpConnection);
+        return httpClient.execute(request, response -> {
+            EntityUtils.consume(response.getEntity());
+            return response.getCode();
+        });
+    }
+
+    private static boolean atEnd(InputStream body) {
+        try {
+            return body.read() == -1;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Consumes a streamed response; {@code body} is decoded and only valid during the call. */
+    @FunctionalInterface
+    public interface BodyHandler<T> {
+        T handle(HttpResponse response, InputStream body) throws IOException;
+    }
+
+    private void recordMetrics(String url, FetchTimings timings, FetchResult result, long totalNanos) {
+        boolean success = result != null && result.error == null;
+        metrics.recordFetch(AnalyzerMetrics.CLIENT_CLASSIC, success, totalNanos);
+        if (result != null && result.response != null) {
+            metrics.recordConnection(timings.isConnectionReused(),
+                    !warmOrigins.isEmpty() && warmOrigins.contains(OriginResourceService.originOf(url)));
+        }
+        if (timings.dnsNanos > 0) {
+            metrics.recordFetchStage(AnalyzerMetrics.FETCH_DNS, timings.dnsNanos);
+        }
+        if (timings.connectNanos > 0) {
+            metrics.recordFetchStage(AnalyzerMetrics.FETCH_CONNECT, timings.connectNanos);
+        }
+        if (timings.tlsNanos > 0) {
+            metrics.recordFetchStage(AnalyzerMetrics.FETCH_TLS, timings.tlsNanos);
+        }
+        if (timings.ttfbNanos > 0) {
+            metrics.recordFetchStage(AnalyzerMetrics.FETCH_TTFB, timings.ttfbNanos);
+        }
+        if (success && timings.downloadNanos > 0) {
+            metrics.recordFetchStage(AnalyzerMetrics.FETCH_DOWNLOAD, timings.downloadNanos);
         }
     }
 
-    private HttpGet createRequest(String url) {
+    private HttpGet createRequest(String url, Map<String, String> extraHeaders) {
         HttpGet request = new HttpGet(url);
         request.setHeader(HttpHeaders.ACCEPT, httpAccept);
         request.setHeader(HttpHeaders.ACCEPT_LANGUAGE, httpAcceptLanguage);
         request.setHeader(HttpHeaders.ACCEPT_ENCODING, httpAcceptEncoding);
         request.setHeader(HttpHeaders.CONNECTION, httpConnection);
         request.setHeader(HttpHeaders.USER_AGENT, httpUserAgent);
+        extraHeaders.forEach(request::setHeader);
         return request;
     }
 
+    /**
+     * Outcome of a fetch. The body has already been read and the connection released,
+     * so {@code response} only carries the status line and headers. An error status sets
+     * {@code error} but keeps {@code response}, so callers can read e.g. {@code Retry-After};
+     * {@code response} is null only when nothing was received. Byte counts are -1 when
+     * unknown; {@code timings} is null when no phase breakdown was captured.
+     */
     public static class FetchResult {
-        public final CloseableHttpResponse response;
+        public final HttpResponse response;
         public final Double elapsedMs;
         public final String htmlContent;
         public final String error;
+        public final long wireBytes;
+        public final long decodedBytes;
+        public final boolean truncated;
+        public final FetchTimings timings;
+
+        public FetchResult(HttpResponse response, Double elapsedMs, String htmlContent, String error) {
+            this(response, elapsedMs, htmlContent, error, -1, -1, false);
+        }
+
+        public FetchResult(HttpResponse response, Double elapsedMs, String htmlContent, String error,
+                           long wireBytes, long decodedBytes, boolean truncated) {
+            this(response, elapsedMs, htmlContent, error, wireBytes, decodedBytes, truncated, null);
+        }
 
-        public FetchResult(CloseableHttpResponse response, Double elapsedMs, String htmlContent, String error) {
+        public FetchResult(HttpResponse response, Double elapsedMs, String htmlContent, String error,
+                           long wireBytes, long decodedBytes, boolean truncated, FetchTimings timings) {
             this.response = response;
             this.elapsedMs = elapsedMs;
             this.htmlContent = htmlContent;
             this.error = error;
+            this.wireBytes = wireBytes;
+            this.decodedBytes = decodedBytes;
+            this.truncated = truncated;
+            this.timings = timings;
         }
     }
 }
@@ -0,0 +1,743 @@
+package com.analyzer.service;
+
+import com.analyzer.model.HistoryBucket;
+import com.analyzer.model.HistoryPoint;
+import com.analyzer.model.LatencySamples;
+import com.analyzer.model.PerformanceDetails;
+import com.analyzer.model.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Append-only history of analysis results, kept on local disk so score and latency trends
+ * can be queried without an external database. Points are stored one UTC day per segment
+ * under {@code analyzer.history.dir}:
+ * <ul>
+ *   <li>{@code urls.txt}: the URL dictionary; a URL's id is its line number</li>
+ *   <li>{@code <day>.rows}: the current day, appended as fixed 20-byte rows in time order</li>
+ *   <li>{@code <day>.cols}: a past day, sealed in the background: points sorted by URL id
+ *       and stored column by column behind a directory of ids, read memory-mapped</li>
+ * </ul>
+ * A query for one URL binary-searches each sealed day it spans, and reads the current
+ * day's rows through an in-memory index of each URL's row numbers (4 bytes per row of the
+ * day), so it costs the points returned rather than the size of the store. A past day not
+ * sealed yet, briefly after midnight or a restart, is scanned in full. The URL dictionary
+ * is held in memory and never shrinks; expired days are deleted.
+ * <p>
+ * Recording only fills a buffer; a dedicated writer thread appends full buffers, and the
+ * rest every {@code flush-interval-ms}, so scoring threads never wait on the disk.
+ */
+@Component
+public class HistoryStore implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(HistoryStore.class);
+
+    public static final long HOUR_MS = TimeUnit.HOURS.toMillis(1);
+    public static final long DAY_MS = TimeUnit.DAYS.toMillis(1);
+
+    /** URL id, time, latency, then total, performance, security and SEO scores as one byte each. */
+    private static final int ROW_BYTES = 4 + 8 + 4 + 4;
+    /** "HST1": magic, then point count and URL count. */
+    private static final int COLS_MAGIC = 0x48535431;
+    private static final int COLS_HEADER_BYTES = 12;
+    /** URL id, first point and point count. */
+    private static final int COLS_ENTRY_BYTES = 12;
+    private static final Pattern SEGMENT = Pattern.compile("(\\d+)\\.(rows|cols)");
+    private static final int PENDING_BYTES = 64 * 1024;
+
+    private final Path dir;
+    private final boolean enabled;
+    private final long retentionDays;
+    private final ScheduledExecutorService maintenance;
+    /** Appends to the URL dictionary and the current day's rows, in submission order. */
+    private final ExecutorService writer;
+    /** Sealed days, mapped once; they never change until deleted. */
+    private final Map<Long, MappedByteBuffer> sealed = new ConcurrentHashMap<>();
+
+    // Guarded by this.
+    private final Map<String, Integer> urlIds = new HashMap<>();
+    private final StringBuilder newUrls = new StringBuilder();
+    private ByteBuffer pending = ByteBuffer.allocate(PENDING_BYTES);
+    private long rowsDay = -1;
+    /** Row numbers of each URL id in the current day's segment, in time order. */
+    private final Map<Integer, RowList> dayIndex = new HashMap<>();
+    private int dayRows;
+
+    // Confined to the writer thread once the constructor returns.
+    private BufferedWriter urls;
+    private FileChannel rows;
+    private long writtenDay = -1;
+
+    @Autowired
+    public HistoryStore(@Value("${analyzer.history.enabled:false}") boolean enabled,
+                        @Value("${analyzer.history.dir:data/history}") String dir,
+                        @Value("${analyzer.history.retention-days:90}") long retentionDays,
+                        @Value("${analyzer.history.flush-interval-ms:1000}") long flushIntervalMs) {
+        this.enabled = enabled;
+        this.dir = Paths.get(dir);
+        this.retentionDays = Math.max(1, retentionDays);
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "analyzer-history");
+            t.setDaemon(true);
+            return t;
+        });
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "analyzer-history-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(this.dir);
+            loadUrls();
+            long today = Math.floorDiv(System.currentTimeMillis(), DAY_MS);
+            for (long day : days(Long.MIN_VALUE, today - 1)) {
+                if (Files.exists(rowsPath(day))) {
+                    maintenance.execute(() -> seal(day));
+                }
+            }
+            synchronized (this) {
+                roll(today);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long flushMs = Math.max(100, flushIntervalMs);
+        maintenance.scheduleWithFixedDelay(this::flush, flushMs, flushMs, TimeUnit.MILLISECONDS);
+        maintenance.scheduleWithFixedDelay(this::expire, 0, 1, TimeUnit.HOURS);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Appends a point for a fresh analysis of {@code url}, timestamped now. */
+    public void record(String url, Result result) {
+        if (!enabled || url.isEmpty() || url.indexOf('\n') >= 0 || url.indexOf('\r') >= 0) {
+            return;
+        }
+        float latencyMs = (float) scoredLatencyMs(result.getPerformanceDetails());
+        try {
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                long day = Math.floorDiv(now, DAY_MS);
+                if (day != rowsDay) {
+                    roll(day);
+                }
+                Integer id = urlIds.get(url);
+                if (id == null) {
+                    id = urlIds.size();
+                    newUrls.append(url).append('\n');
+                    urlIds.put(url, id);
+                }
+                pending.putInt(id).putLong(now).putFloat(latencyMs)
+                        .put(score(result.getTotal())).put(score(result.getPerformance()))
+                        .put(score(result.getSecurity())).put(score(result.getSeo()));
+                dayIndex.computeIfAbsent(id, key -> new RowList()).add(dayRows++);
+                if (pending.remaining() < ROW_BYTES) {
+                    handOff();
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not record history for {}: {}", url, e.toString());
+        }
+    }
+
+    /** Points of {@code url} between {@code from} and {@code to} inclusive, oldest first, at most {@code limit}. */
+    public List<HistoryPoint> points(String url, long from, long to, int limit) throws IOException {
+        List<HistoryPoint> points = new ArrayList<>();
+        if (limit > 0) {
+            scan(url, from, to, point -> {
+                points.add(point);
+                return points.size() < limit;
+            });
+        }
+        return points;
+    }
+
+    /** Points of {@code url} between {@code from} and {@code to}, summarized per {@code stepMs} (an hour or a day). */
+    public List<HistoryBucket> rollup(String url, long from, long to, long stepMs) throws IOException {
+        List<HistoryBucket> buckets = new ArrayList<>();
+        List<HistoryPoint> bucket = new ArrayList<>();
+        long[] bucketStart = {Long.MIN_VALUE};
+        scan(url, from, to, point -> {
+            long start = Math.floorDiv(point.getTime(), stepMs) * stepMs;
+            if (start != bucketStart[0] && !bucket.isEmpty()) {
+                buckets.add(summarize(bucketStart[0], bucket));
+                bucket.clear();
+            }
+            bucketStart[0] = start;
+            bucket.add(point);
+            return true;
+        });
+        if (!bucket.isEmpty()) {
+            buckets.add(summarize(bucketStart[0], bucket));
+        }
+        return buckets;
+    }
+
+    /** Feeds {@code url}'s points in [from, to] to {@code visitor} in time order until it returns false. */
+    private void scan(String url, long from, long to, Predicate<HistoryPoint> visitor) throws IOException {
+        if (!enabled || from > to) {
+            return;
+        }
+        Integer id;
+        long today;
+        int[] todayRows;
+        Future<?> written;
+        synchronized (this) {
+            id = urlIds.get(url);
+            if (id == null) {
+                return;
+            }
+            today = rowsDay;
+            RowList indexed = dayIndex.get(id);
+            todayRows = indexed != null ? indexed.toArray() : new int[0];
+            // Make points recorded so far visible to this query.
+            written = handOff();
+        }
+        try {
+            written.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for history writes", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+        for (long day : days(Math.floorDiv(from, DAY_MS), Math.floorDiv(to, DAY_MS))) {
+            MappedByteBuffer cols = mapSealed(day);
+            boolean more;
+            if (cols != null) {
+                more = scanCols(cols, id, from, to, visitor);
+            } else if (day == today) {
+                more = scanIndexedRows(rowsPath(day), todayRows, from, to, visitor);
+            } else {
+                try {
+                    more = scanRows(rowsPath(day), id, from, to, visitor);
+                } catch (NoSuchFileException e) {
+                    // Sealed since the directory was listed.
+                    cols = mapSealed(day);
+                    more = cols == null || scanCols(cols, id, from, to, visitor);
+                }
+            }
+            if (!more) {
+                return;
+            }
+        }
+    }
+
+    private static boolean scanCols(MappedByteBuffer cols, int id, long from, long to,
+                                    Predicate<HistoryPoint> visitor) {
+        int count = cols.getInt(4);
+        int urlCount = cols.getInt(8);
+        int low = 0;
+        int high = urlCount - 1;
+        int entry = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = cols.getInt(COLS_HEADER_BYTES + mid * COLS_ENTRY_BYTES);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                entry = COLS_HEADER_BYTES + mid * COLS_ENTRY_BYTES;
+                break;
+            }
+        }
+        if (entry < 0) {
+            return true;
+        }
+        int first = cols.getInt(entry + 4);
+        int end = first + cols.getInt(entry + 8);
+        int times = COLS_HEADER_BYTES + urlCount * COLS_ENTRY_BYTES;
+        int latencies = times + count * Long.BYTES;
+        int totals = latencies + count * Float.BYTES;
+        int performances = totals + count;
+        int securities = performances + count;
+        int seos = securities + count;
+
+        low = first;
+        high = end;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cols.getLong(times + mid * Long.BYTES) < from) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < end; i++) {
+            long time = cols.getLong(times + i * Long.BYTES);
+            if (time > to) {
+                break;
+            }
+            HistoryPoint point = new HistoryPoint(time, cols.get(totals + i), cols.get(performances + i),
+                    cols.get(securities + i), cols.get(seos + i), round(cols.getFloat(latencies + i * Float.BYTES)));
+            if (!visitor.test(point)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the given rows of the current day, which are one URL's in time order; the first
+     * one in range is found by binary search.
+     */
+    private static boolean scanIndexedRows(Path file, int[] rowNumbers, long from, long to,
+                                           Predicate<HistoryPoint> visitor) throws IOException {
+        if (rowNumbers.length == 0) {
+            return true;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size() - channel.size() % ROW_BYTES;
+            if (size == 0) {
+                return true;
+            }
+            MappedByteBuffer rows = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int count = (int) (size / ROW_BYTES);
+            int end = rowNumbers.length;
+            while (end > 0 && rowNumbers[end - 1] >= count) {
+                end--;
+            }
+            int low = 0;
+            int high = end;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (rows.getLong(rowNumbers[mid] * ROW_BYTES + 4) < from) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            for (int i = low; i < end; i++) {
+                int row = rowNumbers[i] * ROW_BYTES;
+                long time = rows.getLong(row + 4);
+                if (time > to) {
+                    break;
+                }
+                HistoryPoint point = new HistoryPoint(time, rows.get(row + 16), rows.get(row + 17),
+                        rows.get(row + 18), rows.get(row + 19), round(rows.getFloat(row + 12)));
+                if (!visitor.test(point)) {
+                    return false;
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // Nothing written for the day yet.
+        }
+        return true;
+    }
+
+    /**
+     * Scans every row of an unsealed past day; they are in time order, so the start is found
+     * by binary search, but other URLs' rows in the range are read and skipped.
+     */
+    private static boolean scanRows(Path file, int id, long from, long to, Predicate<HistoryPoint> visitor)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size() - channel.size() % ROW_BYTES;
+            if (size == 0) {
+                return true;
+            }
+            MappedByteBuffer rows = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int count = (int) (size / ROW_BYTES);
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (rows.getLong(mid * ROW_BYTES + 4) < from) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            for (int i = low; i < count; i++) {
+                int row = i * ROW_BYTES;
+                long time = rows.getLong(row + 4);
+                if (time > to) {
+                    break;
+                }
+                if (rows.getInt(row) != id) {
+                    continue;
+                }
+                HistoryPoint point = new HistoryPoint(time, rows.get(row + 16), rows.get(row + 17),
+                        rows.get(row + 18), rows.get(row + 19), round(rows.getFloat(row + 12)));
+                if (!visitor.test(point)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rewrites a finished day's rows as a sealed segment: rows are sorted by URL id (a
+     * stable sort, so each URL's points stay in time order) and written column by column.
+     */
+    private void seal(long day) {
+        synchronized (this) {
+            if (day == rowsDay) {
+                return;
+            }
+        }
+        Path rowsFile = rowsPath(day);
+        Path colsFile = colsPath(day);
+        Path tmp = dir.resolve(day + ".cols.tmp");
+        try {
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(rowsFile));
+            int count = data.capacity() / ROW_BYTES;
+            long[] order = new long[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = ((long) data.getInt(i * ROW_BYTES) << 32) | i;
+            }
+            Arrays.sort(order);
+
+            List<int[]> entries = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int id = (int) (order[i] >>> 32);
+                if (entries.isEmpty() || entries.get(entries.size() - 1)[0] != id) {
+                    entries.add(new int[] {id, i, 0});
+                }
+                entries.get(entries.size() - 1)[2]++;
+            }
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(tmp), 256 * 1024))) {
+                out.writeInt(COLS_MAGIC);
+                out.writeInt(count);
+                out.writeInt(entries.size());
+                for (int[] entry : entries) {
+                    out.writeInt(entry[0]);
+                    out.writeInt(entry[1]);
+                    out.writeInt(entry[2]);
+                }
+                for (long key : order) {
+                    out.writeLong(data.getLong((int) key * ROW_BYTES + 4));
+                }
+                for (long key : order) {
+                    out.writeFloat(data.getFloat((int) key * ROW_BYTES + 12));
+                }
+                for (int column = 16; column < ROW_BYTES; column++) {
+                    for (long key : order) {
+                        out.writeByte(data.get((int) key * ROW_BYTES + column));
+                    }
+                }
+            }
+            Files.move(tmp, colsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(rowsFile);
+        } catch (IOException e) {
+            log.warn("Could not seal history segment {}: {}", day, e.toString());
+        }
+    }
+
+    private MappedByteBuffer mapSealed(long day) throws IOException {
+        MappedByteBuffer cols = sealed.get(day);
+        if (cols != null) {
+            return cols;
+        }
+        Path file = colsPath(day);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            cols = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (cols.capacity() < COLS_HEADER_BYTES || cols.getInt(0) != COLS_MAGIC) {
+            throw new IOException("Not a history segment: " + file);
+        }
+        sealed.put(day, cols);
+        return cols;
+    }
+
+    /**
+     * Switches recording to {@code day}, indexing rows an earlier run left for it; the
+     * previous day is sealed once the writer has closed it. The caller holds this.
+     */
+    private void roll(long day) throws IOException {
+        if (rowsDay != -1) {
+            handOff();
+            writer.execute(this::closeDay);
+        }
+        rowsDay = day;
+        dayIndex.clear();
+        dayRows = 0;
+        Path file = rowsPath(day);
+        if (Files.exists(file)) {
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+            int count = data.capacity() / ROW_BYTES;
+            for (int i = 0; i < count; i++) {
+                dayIndex.computeIfAbsent(data.getInt(i * ROW_BYTES), key -> new RowList()).add(i);
+            }
+            dayRows = count;
+        }
+    }
+
+    /**
+     * Hands the buffered rows and new dictionary entries to the writer. The returned future
+     * completes once they, and everything handed off before them, are written. The caller holds this.
+     */
+    private Future<?> handOff() {
+        ByteBuffer data = null;
+        if (pending.position() > 0) {
+            data = pending;
+            data.flip();
+            pending = ByteBuffer.allocate(PENDING_BYTES);
+        }
+        String text = newUrls.toString();
+        newUrls.setLength(0);
+        long day = rowsDay;
+        ByteBuffer rowsData = data;
+        return writer.submit(() -> write(day, rowsData, text));
+    }
+
+    /** Runs on the writer: the dictionary first, so every stored id has its URL, then the rows (if any). */
+    private void write(long day, ByteBuffer data, String text) {
+        try {
+            if (!text.isEmpty()) {
+                urls.write(text);
+                urls.flush();
+            }
+            if (data == null) {
+                return;
+            }
+            if (day != writtenDay) {
+                closeDay();
+                rows = FileChannel.open(rowsPath(day), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                // Drop a partial row left by a crash.
+                long size = rows.size();
+                rows.truncate(size - size % ROW_BYTES);
+                rows.position(rows.size());
+                writtenDay = day;
+            }
+            while (data.hasRemaining()) {
+                rows.write(data);
+            }
+        } catch (IOException e) {
+            log.warn("Could not write history: {}", e.toString());
+        }
+    }
+
+    /** Runs on the writer: closes the day being written, if any, and has it sealed. */
+    private void closeDay() {
+        if (rows == null) {
+            return;
+        }
+        try {
+            rows.close();
+        } catch (IOException e) {
+            log.warn("Could not close history segment {}: {}", writtenDay, e.toString());
+        }
+        long day = writtenDay;
+        rows = null;
+        writtenDay = -1;
+        maintenance.execute(() -> seal(day));
+    }
+
+    private synchronized void flush() {
+        if (pending.position() > 0 || newUrls.length() > 0) {
+            handOff();
+        }
+    }
+
+    /** Runs on the writer when shutting down. */
+    private void closeFiles() {
+        try {
+            if (rows != null) {
+                rows.close();
+            }
+            if (urls != null) {
+                urls.close();
+            }
+        } catch (IOException e) {
+            log.warn("Could not close history: {}", e.toString());
+        }
+    }
+
+    /** Deletes days older than the retention period. */
+    private void expire() {
+        long oldest = Math.floorDiv(System.currentTimeMillis(), DAY_MS) - retentionDays;
+        try {
+            for (long day : days(Long.MIN_VALUE, oldest - 1)) {
+                sealed.remove(day);
+                Files.deleteIfExists(colsPath(day));
+                synchronized (this) {
+                    if (day != rowsDay) {
+                        Files.deleteIfExists(rowsPath(day));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not expire history: {}", e.toString());
+        }
+    }
+
+    /** Days between {@code fromDay} and {@code toDay} inclusive that have a segment, in order. */
+    private TreeSet<Long> days(long fromDay, long toDay) throws IOException {
+        TreeSet<Long> days = new TreeSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Matcher matcher = SEGMENT.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    long day = Long.parseLong(matcher.group(1));
+                    if (day >= fromDay && day <= toDay) {
+                        days.add(day);
+                    }
+                }
+            }
+        }
+        return days;
+    }
+
+    /** Reads the URL dictionary, dropping a partial last line left by a crash. */
+    private void loadUrls() throws IOException {
+        Path file = dir.resolve("urls.txt");
+        if (Files.exists(file)) {
+            byte[] bytes = Files.readAllBytes(file);
+            int end = bytes.length;
+            while (end > 0 && bytes[end - 1] != '\n') {
+                end--;
+            }
+            if (end < bytes.length) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(end);
+                }
+            }
+            int lineStart = 0;
+            for (int i = 0; i < end; i++) {
+                if (bytes[i] == '\n') {
+                    urlIds.put(new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8), urlIds.size());
+                    lineStart = i + 1;
+                }
+            }
+        }
+        urls = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private Path rowsPath(long day) {
+        return dir.resolve(day + ".rows");
+    }
+
+    private Path colsPath(long day) {
+        return dir.resolve(day + ".cols");
+    }
+
+    /** The latency the performance score was based on: sampled median, else TTFB, else total fetch time. */
+    private static double scoredLatencyMs(PerformanceDetails details) {
+        if (details == null) {
+            return 0;
+        }
+        LatencySamples samples = details.getLatencySamples();
+        if (samples != null) {
+            return samples.getMedianMs();
+        }
+        return details.getTtfbMs() >= 0 ? details.getTtfbMs() : details.getLatencyMs();
+    }
+
+    private static byte score(int score) {
+        return (byte) Math.max(0, Math.min(100, score));
+    }
+
+    private static HistoryBucket summarize(long start, List<HistoryPoint> points) {
+        int n = points.size();
+        int[] totals = new int[n];
+        int[] performances = new int[n];
+        int[] securities = new int[n];
+        int[] seos = new int[n];
+        double[] latencies = new double[n];
+        for (int i = 0; i < n; i++) {
+            HistoryPoint point = points.get(i);
+            totals[i] = point.getTotal();
+            performances[i] = point.getPerformance();
+            securities[i] = point.getSecurity();
+            seos[i] = point.getSeo();
+            latencies[i] = point.getLatencyMs();
+        }
+        Arrays.sort(totals);
+        Arrays.sort(performances);
+        Arrays.sort(securities);
+        Arrays.sort(seos);
+        Arrays.sort(latencies);
+        return new HistoryBucket(start, n, totals[rank(n, 50)], totals[0], performances[rank(n, 50)],
+                securities[rank(n, 50)], seos[rank(n, 50)], round(latencies[rank(n, 50)]),
+                round(latencies[rank(n, 90)]), round(latencies[rank(n, 99)]));
+    }
+
+    /** Nearest-rank index of the {@code percentile}th value of {@code n} sorted values. */
+    private static int rank(int n, int percentile) {
+        return Math.max(0, (int) Math.ceil(percentile / 100.0 * n) - 1);
+    }
+
+    private static double round(double ms) {
+        return Math.round(ms * 10) / 10.0;
+    }
+
+    /** Row numbers of one URL in the current day, appended in time order. */
+    private static class RowList {
+        private int[] rows = new int[4];
+        private int size;
+
+        void add(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = row;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(rows, size);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        maintenance.shutdown();
+        if (enabled) {
+            synchronized (this) {
+                handOff();
+            }
+            writer.execute(this::closeFiles);
+        }
+        writer.shutdown();
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,375 @@
+package com.analyzer.service;
+
+import org.apache.hc.client5.http.utils.DateUtils;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Decides when each fetch may start. Hosts with queued work take turns round-robin under
+ * a global limit, and each host has its own concurrency limit that adapts AIMD-style:
+ * it grows by about one per round of successful fetches and halves on errors, 429/503s or
+ * latency well above the host's baseline. A robots.txt {@code Crawl-delay} spaces fetches
+ * to a host one at a time, and {@code Retry-After} on a 429/503 pauses the host.
+ * The limit counts fetches, not analyses: a host's slot is freed once its response arrives.
+ */
+@Component
+public class HostScheduler implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(HostScheduler.class);
+
+    /** Latency within this of the baseline never counts as congestion, whatever the ratio. */
+    private static final double LATENCY_SLACK_MS = 50;
+    /** A burst of failures from fetches already in flight only halves the limit once. */
+    private static final long DECREASE_COOLDOWN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final OriginResourceService originResourceService;
+    private final int maxActive;
+    private final double initialPerHost;
+    private final int maxPerHost;
+    private final double latencyTolerance;
+    private final long maxCrawlDelayNanos;
+    private final long maxRetryAfterNanos;
+    private final int maxHosts;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService robotsLookups;
+
+    /** Access-ordered so idle hosts are forgotten oldest first. All state below is guarded by {@code this}. */
+    private final LinkedHashMap<String, HostState> hosts = new LinkedHashMap<>(16, 0.75f, true);
+    /** Hosts that can start a fetch now, in turn order. */
+    private final ArrayDeque<HostState> ready = new ArrayDeque<>();
+    private int active;
+    private int queued;
+
+    @Autowired
+    public HostScheduler(OriginResourceService originResourceService, AnalyzerMetrics metrics,
+                         @Value("${analyzer.scheduler.max-active:256}") int maxActive,
+                         @Value("${analyzer.scheduler.initial-per-host:2}") int initialPerHost,
+                         @Value("${analyzer.executor.per-host-limit:6}") int maxPerHost,
+                         @Value("${analyzer.scheduler.latency-tolerance:2.0}") double latencyTolerance,
+                         @Value("${analyzer.scheduler.max-crawl-delay-ms:30000}") long maxCrawlDelayMs,
+                         @Value("${analyzer.scheduler.max-retry-after-ms:300000}") long maxRetryAfterMs,
+                         @Value("${analyzer.scheduler.max-hosts:10000}") int maxHosts,
+                         @Value("${analyzer.scheduler.robots-threads:16}") int robotsThreads) {
+        this.originResourceService = originResourceService;
+        this.maxActive = Math.max(1, maxActive);
+        this.maxPerHost = Math.max(1, maxPerHost);
+        this.initialPerHost = Math.min(this.maxPerHost, Math.max(1, initialPerHost));
+        this.latencyTolerance = Math.max(1.0, latencyTolerance);
+        this.maxCrawlDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxCrawlDelayMs);
+        this.maxRetryAfterNanos = TimeUnit.MILLISECONDS.toNanos(maxRetryAfterMs);
+        this.maxHosts = Math.max(1, maxHosts);
+
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "analyzer-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicInteger threadCount = new AtomicInteger();
+        this.robotsLookups = Executors.newFixedThreadPool(Math.max(1, robotsThreads), r -> {
+            Thread t = new Thread(r, "analyzer-robots-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        metrics.monitorScheduler(this);
+    }
+
+    /**
+     * Queues {@code task} behind {@code url}'s host and returns its eventual result. The task
+     * is started with a {@link Permit} and should {@link Permit#release release} it with the
+     * fetch outcome as soon as the response is in; otherwise it is released when the task's
+     * future completes, without feedback.
+     */
+    public <T> CompletableFuture<T> submit(String url, Function<Permit, CompletableFuture<T>> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        String key = hostOf(url);
+        boolean resolve;
+        HostState host;
+        synchronized (this) {
+            host = hosts.get(key);
+            if (host == null) {
+                host = new HostState(key, initialPerHost);
+                hosts.put(key, host);
+                evictIdleHosts();
+            }
+            HostState owner = host;
+            host.pending.add(() -> start(owner, task, result));
+            queued++;
+            // Crawl-delay is looked up whenever a host goes from idle to busy; it is usually cached.
+            resolve = !host.resolving && host.active == 0 && host.pending.size() == 1 && !key.isEmpty();
+            if (resolve) {
+                host.resolving = true;
+            } else {
+                offer(host, System.nanoTime());
+            }
+        }
+        if (resolve) {
+            resolveCrawlDelay(host, url);
+        } else {
+            dispatch();
+        }
+        return result;
+    }
+
+    public synchronized int activeCount() {
+        return active;
+    }
+
+    public synchronized int queuedCount() {
+        return queued;
+    }
+
+    public synchronized int hostCount() {
+        return hosts.size();
+    }
+
+    private <T> void start(HostState host, Function<Permit, CompletableFuture<T>> task, CompletableFuture<T> result) {
+        Permit permit = new Permit(host);
+        CompletableFuture<T> running;
+        try {
+            running = task.apply(permit);
+        } catch (RuntimeException e) {
+            running = new CompletableFuture<>();
+            running.completeExceptionally(e);
+        }
+        running.whenComplete((value, ex) -> {
+            permit.release(null);
+            if (ex != null) {
+                result.completeExceptionally(ex);
+            } else {
+                result.complete(value);
+            }
+        });
+    }
+
+    private void resolveCrawlDelay(HostState host, String url) {
+        robotsLookups.execute(() -> {
+            long delayNanos = 0;
+            try {
+                RobotsTxt robots = originResourceService.robots(url);
+                if (robots != null && robots.getCrawlDelaySeconds() > 0) {
+                    delayNanos = Math.min(maxCrawlDelayNanos, (long) (robots.getCrawlDelaySeconds() * 1e9));
+                }
+            } catch (RuntimeException e) {
+                log.debug("Could not read robots.txt for {}: {}", host.key, e.toString());
+            }
+            synchronized (this) {
+                host.crawlDelayNanos = delayNanos;
+                host.resolving = false;
+                offer(host, System.nanoTime());
+            }
+            dispatch();
+        });
+    }
+
+    /** Starts as many queued fetches as the limits allow, one per host per turn. */
+    private void dispatch() {
+        List<Runnable> starts = new ArrayList<>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            while (active < maxActive && !ready.isEmpty()) {
+                HostState host = ready.poll();
+                host.inReady = false;
+                Runnable next = host.pending.poll();
+                if (next == null) {
+                    continue;
+                }
+                queued--;
+                host.active++;
+                active++;
+                host.nextStartNanos = now + host.crawlDelayNanos;
+                starts.add(next);
+                offer(host, now);
+            }
+        }
+        for (Runnable start : starts) {
+            start.run();
+        }
+    }
+
+    /** Puts {@code host} at the back of the turn order if it can start a fetch now, or wakes it when it can. */
+    private void offer(HostState host, long now) {
+        if (host.inReady || host.pending.isEmpty() || host.resolving || host.active >= host.limit()) {
+            return;
+        }
+        long at = Math.max(host.nextStartNanos, host.blockedUntilNanos);
+        if (at - now > 0) {
+            if (!host.wakeScheduled) {
+                host.wakeScheduled = true;
+                timer.schedule(() -> wake(host), at - now, TimeUnit.NANOSECONDS);
+            }
+            return;
+        }
+        host.inReady = true;
+        ready.add(host);
+    }
+
+    private void wake(HostState host) {
+        synchronized (this) {
+            host.wakeScheduled = false;
+            offer(host, System.nanoTime());
+        }
+        dispatch();
+    }
+
+    private void release(HostState host, FetcherService.FetchResult outcome) {
+        synchronized (this) {
+            host.active--;
+            active--;
+            if (outcome != null) {
+                observe(host, outcome, System.nanoTime());
+            }
+            offer(host, System.nanoTime());
+        }
+        dispatch();
+    }
+
+    /** Adjusts the host's limit from one fetch outcome. */
+    private void observe(HostState host, FetcherService.FetchResult outcome, long now) {
+        HttpResponse response = outcome.response;
+        int status = response != null ? response.getCode() : -1;
+        boolean congested = status < 0 || status == HttpStatus.SC_TOO_MANY_REQUESTS
+                || status >= HttpStatus.SC_SERVER_ERROR;
+
+        if (status == HttpStatus.SC_TOO_MANY_REQUESTS || status == HttpStatus.SC_SERVICE_UNAVAILABLE) {
+            long retryAfter = retryAfterNanos(response);
+            if (retryAfter > 0) {
+                host.blockedUntilNanos = Math.max(host.blockedUntilNanos, now + Math.min(retryAfter, maxRetryAfterNanos));
+            }
+        }
+
+        // Time to first byte where known, so the limit tracks the server rather than the body size.
+        double latencyMs = outcome.timings != null ? outcome.timings.getTtfbMs()
+                : outcome.elapsedMs != null ? outcome.elapsedMs : -1;
+        if (!congested && latencyMs >= 0) {
+            if (host.baselineMs < 0 || latencyMs < host.baselineMs) {
+                host.baselineMs = latencyMs;
+            } else {
+                congested = latencyMs > host.baselineMs * latencyTolerance
+                        && latencyMs - host.baselineMs > LATENCY_SLACK_MS;
+                // Drift up slowly so a host that got permanently slower is not throttled forever.
+                host.baselineMs += (latencyMs - host.baselineMs) * 0.05;
+            }
+        }
+
+        if (congested) {
+            if (now - host.lastDecreaseNanos > DECREASE_COOLDOWN_NANOS) {
+                host.limit = Math.max(1, host.limit / 2);
+                host.lastDecreaseNanos = now;
+            }
+        } else {
+            host.limit = Math.min(maxPerHost, host.limit + 1 / host.limit);
+        }
+    }
+
+    /** Retry-After as delay-seconds or an HTTP date, or 0 if absent or unparsable. */
+    static long retryAfterNanos(HttpResponse response) {
+        Header header = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+        if (header == null) {
+            return 0;
+        }
+        String value = header.getValue().trim();
+        try {
+            return TimeUnit.SECONDS.toNanos(Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            Instant date = DateUtils.parseStandardDate(value);
+            return date != null ? TimeUnit.MILLISECONDS.toNanos(date.toEpochMilli() - System.currentTimeMillis()) : 0;
+        }
+    }
+
+    private void evictIdleHosts() {
+        Iterator<HostState> eldest = hosts.values().iterator();
+        while (hosts.size() > maxHosts && eldest.hasNext()) {
+            HostState host = eldest.next();
+            if (host.active == 0 && host.pending.isEmpty() && !host.resolving && !host.wakeScheduled) {
+                eldest.remove();
+            }
+        }
+    }
+
+    static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host.toLowerCase(Locale.ROOT) : "";
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    @Override
+    public void destroy() {
+        timer.shutdownNow();
+        robotsLookups.shutdownNow();
+    }
+
+    /** A started fetch's claim on its host's and the global limit. */
+    public final class Permit {
+        private final HostState host;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(HostState host) {
+            this.host = host;
+        }
+
+        /** Frees the slot and feeds {@code outcome} (if not null) into the host's limit; later calls are ignored. */
+        public void release(FetcherService.FetchResult outcome) {
+            if (released.compareAndSet(false, true)) {
+                HostScheduler.this.release(host, outcome);
+            }
+        }
+    }
+
+    private static class HostState {
+        final String key;
+        final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+        int active;
+        /** Fractional so additive increase can add 1/limit per success. */
+        double limit;
+        double baselineMs = -1;
+        long crawlDelayNanos;
+        long nextStartNanos;
+        long blockedUntilNanos;
+        long lastDecreaseNanos;
+        boolean resolving;
+        boolean inReady;
+        boolean wakeScheduled;
+
+        HostState(String key, double limit) {
+            this.key = key;
+            this.limit = limit;
+            long now = System.nanoTime();
+            this.nextStartNanos = now;
+            this.blockedUntilNanos = now;
+            this.lastDecreaseNanos = now - DECREASE_COOLDOWN_NANOS;
+        }
+
+        /** One at a time under a crawl delay, since the delay is between requests. */
+        int limit() {
+            return crawlDelayNanos > 0 ? 1 : (int) limit;
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.analyzer.service;
+
+import com.analyzer.model.PoolStatus;
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.ChainElement;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
+import org.apache.hc.client5.http.socket.PlainConnectionSocketFactory;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.config.RegistryBuilder;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.ssl.SSLContextBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocket;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the classic and async HTTP clients from {@link HttpClientProperties}: pool sizes,
+ * timeouts, connection TTL and keep-alive cap, plus the DNS cache and TLS session cache
+ * the two clients share. It keeps hold of both pools so their limits
+ * can be changed at runtime, and per host, without rebuilding a client, and so
+ * {@link PoolMaintainer} can sweep them.
+ */
+@Component
+public class HttpClientFactory {
+
+    private final HttpClientProperties properties;
+    private final AnalyzerMetrics metrics;
+    /** Shared by both clients, so they resume each other's TLS sessions. */
+    private final SSLContext sslContext;
+    private final DnsResolver dnsResolver;
+    private final Map<String, ConnPoolControl<HttpRoute>> pools = new LinkedHashMap<>();
+    /** Per-host limits set at runtime, re-applied to every pool. */
+    private final Map<String, Integer> hostLimits = new ConcurrentHashMap<>();
+
+    @Autowired
+    public HttpClientFactory(HttpClientProperties properties, AnalyzerMetrics metrics) {
+        this.properties = properties;
+        this.metrics = metrics;
+        this.sslContext = trustAllContext();
+        SSLSessionContext sessions = sslContext.getClientSessionContext();
+        sessions.setSessionCacheSize(Math.max(0, properties.getTls().getSessionCacheSize()));
+        sessions.setSessionTimeout(Math.max(0, properties.getTls().getSessionTimeoutSeconds()));
+        HttpClientProperties.Dns dns = properties.getDns();
+        this.dnsResolver = dns.getCacheTtlMs() > 0
+                ? new CachingDnsResolver(SystemDefaultDnsResolver.INSTANCE, metrics, dns.getCacheTtlMs(),
+                        dns.getNegativeTtlMs(), dns.getMaxEntries())
+                : SystemDefaultDnsResolver.INSTANCE;
+    }
+
+    public HttpClientProperties getProperties() {
+        return properties;
+    }
+
+    /** The blocking client; connect, TLS, DNS and TTFB times are added to the thread's {@link FetchTimings}. */
+    public CloseableHttpClient createClassicClient() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register(URIScheme.HTTP.id, new TimedPlainSocketFactory())
+                        .register(URIScheme.HTTPS.id, new TimedSslSocketFactory(sslContext,
+                                NoopHostnameVerifier.INSTANCE, metrics))
+                        .build(),
+                PoolConcurrencyPolicy.STRICT, PoolReusePolicy.LIFO, TimeValue.NEG_ONE_MILLISECOND,
+                null, new TimedDnsResolver(dnsResolver), null);
+        connectionManager.setMaxTotal(Math.max(1, properties.getMaxConnections()));
+        connectionManager.setDefaultMaxPerRoute(Math.max(1, properties.getMaxPerRoute()));
+        connectionManager.setDefaultConnectionConfig(connectionConfig());
+        register(AnalyzerMetrics.CLIENT_CLASSIC, connectionManager);
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig())
+                .setKeepAliveStrategy(keepAliveStrategy())
+                // Runs once the connection is established, so it times request-to-headers only.
+                .addExecInterceptorBefore(ChainElement.MAIN_TRANSPORT.name(), "ttfb-timer",
+                        (request, scope, chain) -> {
+                            long start = System.nanoTime();
+                            try {
+                                return chain.proceed(request, scope);
+                            } finally {
+                                FetchTimings timings = FetchTimings.current();
+                                if (timings != null) {
+                                    timings.ttfbNanos += System.nanoTime() - start;
+                                }
+                            }
+                        })
+                // Bodies are decoded by BodyReader so wire and decoded sizes can both be measured.
+                .disableContentCompression()
+                // RetryPolicy decides on retries; the built-in ones would re-send on top of it.
+                .disableAutomaticRetries()
+                .build();
+    }
+
+    /** The non-blocking client; HTTP/1.1 or h2 via ALPN. Not started. */
+    public CloseableHttpAsyncClient createAsyncClient() {
+        Timeout connectTimeout = Timeout.ofMilliseconds(properties.getConnectTimeoutMs());
+        PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setTlsStrategy(ClientTlsStrategyBuilder.create()
+                        .setSslContext(sslContext)
+                        .setHostnameVerifier(NoopHostnameVerifier.INSTANCE)
+                        .build())
+                .setDefaultTlsConfig(TlsConfig.custom()
+                        .setVersionPolicy(HttpVersionPolicy.NEGOTIATE)
+                        .setHandshakeTimeout(connectTimeout)
+                        .build())
+                .setDefaultConnectionConfig(connectionConfig())
+                .setDnsResolver(dnsResolver)
+                .setMaxConnTotal(Math.max(1, properties.getAsync().getMaxConnections()))
+                .setMaxConnPerRoute(Math.max(1, properties.getMaxPerRoute()))
+                .build();
+        register(AnalyzerMetrics.CLIENT_ASYNC, connectionManager);
+
+        return HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setIOReactorConfig(IOReactorConfig.custom()
+                        .setIoThreadCount(Math.max(1, properties.getAsync().getIoThreads()))
+                        .setSoTimeout(Timeout.ofMilliseconds(properties.getResponseTimeoutMs()))
+                        .build())
+                .setDefaultRequestConfig(requestConfig())
+                .setKeepAliveStrategy(keepAliveStrategy())
+                .disableAutomaticRetries()
+                .build();
+    }
+
+    /** Current limits and usage of each pool built so far. */
+    public List<PoolStatus> poolStatus() {
+        List<PoolStatus> statuses = new ArrayList<>();
+        Map<String, Integer> limits = new TreeMap<>(hostLimits);
+        synchronized (pools) {
+            pools.forEach((client, pool) -> {
+                PoolStats stats = pool.getTotalStats();
+                statuses.add(new PoolStatus(client, pool.getMaxTotal(), pool.getDefaultMaxPerRoute(), limits,
+                        stats.getLeased(), stats.getAvailable(), stats.getPending()));
+            });
+        }
+        return statuses;
+    }
+
+    /**
+     * Closes expired connections and those idle longer than {@code idle-evict-ms} in every
+     * pool, so a quiet period does not leave stale sockets for the next fetch to trip on.
+     */
+    public void evict() {
+        List<ConnPoolControl<HttpRoute>> all;
+        synchronized (pools) {
+            all = new ArrayList<>(pools.values());
+        }
+        for (ConnPoolControl<HttpRoute> pool : all) {
+            pool.closeExpired();
+            if (properties.getIdleEvictMs() > 0) {
+                pool.closeIdle(TimeValue.ofMilliseconds(properties.getIdleEvictMs()));
+            }
+        }
+    }
+
+    /**
+     * Changes the total and default per-host connection limits of every pool; null leaves
+     * a limit as it is. Leased connections over a lowered limit are closed on release.
+     */
+    public void resize(Integer maxTotal, Integer maxPerRoute) {
+        synchronized (pools) {
+            for (ConnPoolControl<HttpRoute> pool : pools.values()) {
+                if (maxTotal != null) {
+                    pool.setMaxTotal(Math.max(1, maxTotal));
+                }
+                if (maxPerRoute != null) {
+                    pool.setDefaultMaxPerRoute(Math.max(1, maxPerRoute));
+                }
+            }
+        }
+    }
+
+    /** Sets one host's connection limit, over http and https; a null or non-positive max reverts to the default. */
+    public void setHostLimit(String host, Integer max) {
+        String key = host.trim().toLowerCase(Locale.ROOT);
+        synchronized (pools) {
+            if (max == null || max <= 0) {
+                hostLimits.remove(key);
+            } else {
+                hostLimits.put(key, max);
+            }
+            for (ConnPoolControl<HttpRoute> pool : pools.values()) {
+                applyHostLimit(pool, key, max != null && max > 0 ? max : pool.getDefaultMaxPerRoute());
+            }
+        }
+    }
+
+    private void register(String client, ConnPoolControl<HttpRoute> pool) {
+        metrics.monitorPool(client, pool);
+        synchronized (pools) {
+            pools.put(client, pool);
+            hostLimits.forEach((host, max) -> applyHostLimit(pool, host, max));
+        }
+    }
+
+    /** Routes as the default route planner builds them: explicit default port, secure for https. */
+    private static void applyHostLimit(ConnPoolControl<HttpRoute> pool, String host, int max) {
+        pool.setMaxPerRoute(new HttpRoute(new HttpHost(URIScheme.HTTPS.id, host, 443), null, true), max);
+        pool.setMaxPerRoute(new HttpRoute(new HttpHost(URIScheme.HTTP.id, host, 80), null, false), max);
+    }
+
+    private ConnectionConfig connectionConfig() {
+        return ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(properties.getConnectTimeoutMs()))
+                .setSocketTimeout(Timeout.ofMilliseconds(properties.getResponseTimeoutMs()))
+                .setTimeToLive(properties.getConnectionTtlMs() > 0
+                        ? TimeValue.ofMilliseconds(properties.getConnectionTtlMs()) : TimeValue.NEG_ONE_MILLISECOND)
+                .setValidateAfterInactivity(TimeValue.ofMilliseconds(properties.getValidateAfterInactivityMs()))
+                .build();
+    }
+
+    private RequestConfig requestConfig() {
+        return RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(properties.getConnectionRequestTimeoutMs()))
+                .setResponseTimeout(Timeout.ofMilliseconds(properties.getResponseTimeoutMs()))
+                .build();
+    }
+
+    /** The server's Keep-Alive timeout if it sends one, capped at {@code keep-alive-ms}. */
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+        TimeValue cap = TimeValue.ofMilliseconds(properties.getKeepAliveMs());
+        return (response, context) -> {
+            TimeValue advertised = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return TimeValue.isPositive(advertised) && advertised.compareTo(cap) < 0 ? advertised : cap;
+        };
+    }
+
+    private static SSLContext trustAllContext() {
+        try {
+            // WARNING: In production, use proper certificate validation.
+            return SSLContextBuilder.create()
+                    .loadTrustMaterial((chain, authType) -> true)
+                    .build();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to create HTTP client", e);
+        }
+    }
+
+    /** Adds name resolution time to the fetch running on this thread. */
+    private static class TimedDnsResolver implements DnsResolver {
+        private final DnsResolver delegate;
+
+        TimedDnsResolver(DnsResolver delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public InetAddress[] resolve(String host) throws UnknownHostException {
+            long start = System.nanoTime();
+            try {
+                return delegate.resolve(host);
+            } finally {
+                FetchTimings timings = FetchTimings.current();
+                if (timings != null) {
+                    timings.dnsNanos += System.nanoTime() - start;
+                }
+            }
+        }
+
+        @Override
+        public String resolveCanonicalHostname(String host) throws UnknownHostException {
+            return delegate.resolveCanonicalHostname(host);
+        }
+    }
+
+    /** Adds TCP connect time to the fetch running on this thread. */
+    private static class TimedPlainSocketFactory extends PlainConnectionSocketFactory {
+        @Override
+        public Socket connectSocket(TimeValue connectTimeout, Socket socket, HttpHost host,
+                                    InetSocketAddress remoteAddress, InetSocketAddress localAddress,
+                                    HttpContext context) throws IOException {
+            long start = System.nanoTime();
+            try {
+                return super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+            } finally {
+                FetchTimings timings = FetchTimings.current();
+                if (timings != null) {
+                    timings.connectNanos += System.nanoTime() - start;
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits an HTTPS connect into TCP connect and TLS handshake time, and notes whether the
+     * handshake resumed a cached session: a resumed session keeps its original creation time.
+     */
+    private static class TimedSslSocketFactory extends SSLConnectionSocketFactory {
+        private final AnalyzerMetrics metrics;
+
+        TimedSslSocketFactory(SSLContext sslContext, HostnameVerifier hostnameVerifier, AnalyzerMetrics metrics) {
+            super(sslContext, hostnameVerifier);
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Socket connectSocket(Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+                                    InetSocketAddress localAddress, Timeout connectTimeout, Object attachment,
+                                    HttpContext context) throws IOException {
+            FetchTimings timings = FetchTimings.current();
+            long start = System.nanoTime();
+            long startMillis = System.currentTimeMillis();
+            long connectBefore = timings != null ? timings.connectNanos : 0;
+            try {
+                Socket connected = super.connectSocket(socket, host, remoteAddress, localAddress, connectTimeout,
+                        attachment, context);
+                if (connected instanceof SSLSocket) {
+                    boolean resumed = ((SSLSocket) connected).getSession().getCreationTime() < startMillis;
+                    metrics.recordTlsHandshake(resumed);
+                    if (timings != null) {
+                        timings.tlsHandshakes++;
+                        if (resumed) {
+                            timings.tlsResumptions++;
+                        }
+                    }
+                }
+                return connected;
+            } finally {
+                if (timings != null) {
+                    long tcp = timings.connectNanos - connectBefore;
+                    timings.tlsNanos += System.nanoTime() - start - tcp;
+                }
+            }
+        }
+
+        @Override
+        protected void connectSocket(Socket socket, InetSocketAddress remoteAddress, Timeout connectTimeout,
+                                     HttpContext context) throws IOException {
+            long start = System.nanoTime();
+            try {
+                super.connectSocket(socket, remoteAddress, connectTimeout, context);
+            } finally {
+                FetchTimings timings = FetchTimings.current();
+                if (timings != null) {
+                    timings.connectNanos += System.nanoTime() - start;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.analyzer.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code http.client.*} settings shared by both HTTP clients. Bound before the clients
+ * are built, so every value here is in effect from the first request. Timeouts left at 0
+ * fall back to {@code http.client.timeout}.
+ */
+@Component
+@ConfigurationProperties(prefix = "http.client")
+public class HttpClientProperties {
+
+    private int timeout = 15000;
+    private int connectTimeoutMs;
+    private int responseTimeoutMs;
+    private int connectionRequestTimeoutMs;
+    private int maxConnections = 200;
+    private int maxPerRoute = 20;
+    private long idleEvictMs = 30000;
+    private long connectionTtlMs = 300000;
+    private long keepAliveMs = 30000;
+    private long validateAfterInactivityMs = 2000;
+    private long evictIntervalMs = 5000;
+    private List<String> warmOrigins = new ArrayList<>();
+    private int warmConnections = 2;
+    private long warmIntervalMs = 20000;
+    private long maxBodyBytes = 5242880;
+    private String userAgent = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 "
+            + "(KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36";
+    private String accept = "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8";
+    private String acceptLanguage = "en-US,en;q=0.9";
+    private String acceptEncoding = "gzip, deflate, br";
+    private String connection = "keep-alive";
+    private final Async async = new Async();
+    private final Dns dns = new Dns();
+    private final Tls tls = new Tls();
+
+    /** Default for the connect, response and connection-request timeouts, in ms. */
+    public int getTimeout() { return timeout; }
+    public void setTimeout(int timeout) { this.timeout = timeout; }
+
+    /** TCP connect timeout (TLS handshake too on the async client). */
+    public int getConnectTimeoutMs() { return connectTimeoutMs > 0 ? connectTimeoutMs : timeout; }
+    public void setConnectTimeoutMs(int connectTimeoutMs) { this.connectTimeoutMs = connectTimeoutMs; }
+
+    /** Longest wait for response data once the request is sent. */
+    public int getResponseTimeoutMs() { return responseTimeoutMs > 0 ? responseTimeoutMs : timeout; }
+    public void setResponseTimeoutMs(int responseTimeoutMs) { this.responseTimeoutMs = responseTimeoutMs; }
+
+    /** Longest wait for a pooled connection when the pool is at its limit. */
+    public int getConnectionRequestTimeoutMs() {
+        return connectionRequestTimeoutMs > 0 ? connectionRequestTimeoutMs : timeout;
+    }
+    public void setConnectionRequestTimeoutMs(int connectionRequestTimeoutMs) {
+        this.connectionRequestTimeoutMs = connectionRequestTimeoutMs;
+    }
+
+    /** Pool size of the classic client. */
+    public int getMaxConnections() { return maxConnections; }
+    public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+
+    /** Initial per-host pool limit of both clients; adjustable at runtime via /admin/pool. */
+    public int getMaxPerRoute() { return maxPerRoute; }
+    public void setMaxPerRoute(int maxPerRoute) { this.maxPerRoute = maxPerRoute; }
+
+    /** Connections idle this long are closed by a background thread; 0 disables it. */
+    public long getIdleEvictMs() { return idleEvictMs; }
+    public void setIdleEvictMs(long idleEvictMs) { this.idleEvictMs = idleEvictMs; }
+
+    /** Connections older than this are not reused, so DNS changes are picked up; 0 for no limit. */
+    public long getConnectionTtlMs() { return connectionTtlMs; }
+    public void setConnectionTtlMs(long connectionTtlMs) { this.connectionTtlMs = connectionTtlMs; }
+
+    /** Cap on how long an idle connection is kept, whatever the server's Keep-Alive says. */
+    public long getKeepAliveMs() { return keepAliveMs; }
+    public void setKeepAliveMs(long keepAliveMs) { this.keepAliveMs = keepAliveMs; }
+
+    /** Pooled connections idle longer than this are checked for staleness before reuse. */
+    public long getValidateAfterInactivityMs() { return validateAfterInactivityMs; }
+    public void setValidateAfterInactivityMs(long validateAfterInactivityMs) {
+        this.validateAfterInactivityMs = validateAfterInactivityMs;
+    }
+
+    /** How often idle and expired connections are swept from the pools. */
+    public long getEvictIntervalMs() { return evictIntervalMs; }
+    public void setEvictIntervalMs(long evictIntervalMs) { this.evictIntervalMs = evictIntervalMs; }
+
+    /** Origins (e.g. {@code https://example.com}) whose connections are opened at startup and kept open. */
+    public List<String> getWarmOrigins() { return warmOrigins; }
+    public void setWarmOrigins(List<String> warmOrigins) { this.warmOrigins = warmOrigins; }
+
+    /** Connections kept open to each warm origin. */
+    public int getWarmConnections() { return warmConnections; }
+    public void setWarmConnections(int warmConnections) { this.warmConnections = warmConnections; }
+
+    /** Interval between keep-warm requests; below the keep-alive cap and idle eviction to be of use. */
+    public long getWarmIntervalMs() { return warmIntervalMs; }
+    public void setWarmIntervalMs(long warmIntervalMs) { this.warmIntervalMs = warmIntervalMs; }
+
+    /** Decoded body bytes read per page; the rest is skipped and the result marked truncated. */
+    public long getMaxBodyBytes() { return maxBodyBytes; }
+    public void setMaxBodyBytes(long maxBodyBytes) { this.maxBodyBytes = maxBodyBytes; }
+
+    public String getUserAgent() { return userAgent; }
+    public void setUserAgent(String userAgent) { this.userAgent = userAgent; }
+
+    public String getAccept() { return accept; }
+    public void setAccept(String accept) { this.accept = accept; }
+
+    public String getAcceptLanguage() { return acceptLanguage; }
+    public void setAcceptLanguage(String acceptLanguage) { this.acceptLanguage = acceptLanguage; }
+
+    public String getAcceptEncoding() { return acceptEncoding; }
+    public void setAcceptEncoding(String acceptEncoding) { this.acceptEncoding = acceptEncoding; }
+
+    public String getConnection() { return connection; }
+    public void setConnection(String connection) { this.connection = connection; }
+
+    /** {@code http.client.async.*}. */
+    public Async getAsync() { return async; }
+
+    /** {@code http.client.dns.*}. */
+    public Dns getDns() { return dns; }
+
+    /** {@code http.client.tls.*}. */
+    public Tls getTls() { return tls; }
+
+    /** Settings of the async client only. */
+    public static class Async {
+        private int maxConnections = 1000;
+        private int maxInFlight = 2000;
+        private int ioThreads = 2;
+
+        public int getMaxConnections() { return maxConnections; }
+        public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+
+        /** Requests started at once; further ones wait without holding a thread. */
+        public int getMaxInFlight() { return maxInFlight; }
+        public void setMaxInFlight(int maxInFlight) { this.maxInFlight = maxInFlight; }
+
+        public int getIoThreads() { return ioThreads; }
+        public void setIoThreads(int ioThreads) { this.ioThreads = ioThreads; }
+    }
+
+    /** Name resolution cache shared by both clients. */
+    public static class Dns {
+        private long cacheTtlMs = 60000;
+        private long negativeTtlMs = 5000;
+        private int maxEntries = 10000;
+
+        /** How long a resolved host is reused; 0 disables the cache. */
+        public long getCacheTtlMs() { return cacheTtlMs; }
+        public void setCacheTtlMs(long cacheTtlMs) { this.cacheTtlMs = cacheTtlMs; }
+
+        /** How long a host that failed to resolve keeps failing without a new lookup. */
+        public long getNegativeTtlMs() { return negativeTtlMs; }
+        public void setNegativeTtlMs(long negativeTtlMs) { this.negativeTtlMs = negativeTtlMs; }
+
+        public int getMaxEntries() { return maxEntries; }
+        public void setMaxEntries(int maxEntries) { this.maxEntries = maxEntries; }
+    }
+
+    /** TLS session cache of the SSL context shared by both clients. */
+    public static class Tls {
+        private int sessionCacheSize = 10000;
+        private int sessionTimeoutSeconds = 86400;
+
+        /** Sessions kept for resumption, one per host and port. */
+        public int getSessionCacheSize() { return sessionCacheSize; }
+        public void setSessionCacheSize(int sessionCacheSize) { this.sessionCacheSize = sessionCacheSize; }
+
+        public int getSessionTimeoutSeconds() { return sessionTimeoutSeconds; }
+        public void setSessionTimeoutSeconds(int sessionTimeoutSeconds) {
+            this.sessionTimeoutSeconds = sessionTimeoutSeconds;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.analyzer.service;
+
+import com.analyzer.model.JobStatus;
+import com.analyzer.model.Result;
+import com.analyzer.model.ResultPage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs bulk analysis jobs in the background. URLs are streamed from the job's spool
+ * file through a sliding window of in-flight analyses, and results are appended to
+ * the {@link JobStore} in input order, so memory stays flat regardless of job size.
+ * Jobs left queued or running by a shutdown are resumed on startup from their last
+ * stored result.
+ */
+@Service
+public class JobService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(JobService.class);
+
+    private final JobStore jobStore;
+    private final AnalysisExecutor analysisExecutor;
+    private final int window;
+    private final int checkpointInterval;
+    private final int maxPageSize;
+    private final ExecutorService runners;
+
+    /** Latest status of queued and running jobs; finished jobs are read from the store. */
+    private final Map<String, JobStatus> active = new ConcurrentHashMap<>();
+    private final Set<String> cancelled = ConcurrentHashMap.newKeySet();
+    private volatile boolean stopping;
+
+    @Autowired
+    public JobService(JobStore jobStore, AnalysisExecutor analysisExecutor,
+                      @Value("${analyzer.jobs.concurrency:1}") int concurrency,
+                      @Value("${analyzer.jobs.window:256}") int window,
+                      @Value("${analyzer.jobs.checkpoint-interval:200}") int checkpointInterval,
+                      @Value("${analyzer.jobs.max-page-size:1000}") int maxPageSize) {
+        this.jobStore = jobStore;
+        this.analysisExecutor = analysisExecutor;
+        this.window = Math.max(1, window);
+        this.checkpointInterval = Math.max(1, checkpointInterval);
+        this.maxPageSize = Math.max(1, maxPageSize);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.runners = Executors.newFixedThreadPool(Math.max(1, concurrency), r -> {
+            Thread t = new Thread(r, "analyzer-job-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        resumeUnfinished();
+    }
+
+    /** Stores the URLs and queues the job; returns immediately with its id. */
+    public JobStatus submit(Iterator<String> urls) throws IOException {
+        JobStatus status = jobStore.create(urls);
+        enqueue(status);
+        return status;
+    }
+
+    /** Returns the job's status, or null if there is no such job. */
+    public JobStatus status(String id) {
+        JobStatus status = active.get(id);
+        return status != null ? status : jobStore.readStatus(id);
+    }
+
+    public List<JobStatus> list() throws IOException {
+        List<JobStatus> statuses = new ArrayList<>();
+        for (String id : jobStore.jobIds()) {
+            JobStatus status = status(id);
+            if (status != null) {
+                statuses.add(status);
+            }
+        }
+        statuses.sort(Comparator.comparingLong(JobStatus::getCreatedAt).reversed());
+        return statuses;
+    }
+
+    /** Returns a page of stored results, or null if there is no such job. */
+    public ResultPage results(String id, long offset, int limit) throws IOException {
+        if (status(id) == null) {
+            return null;
+        }
+        long from = Math.max(0, offset);
+        int size = Math.min(Math.max(1, limit), maxPageSize);
+        List<Result> results = jobStore.readResults(id, from, size);
+        long processed = jobStore.resultCount(id);
+        long next = from + results.size();
+        return new ResultPage(id, from, processed, next < processed ? next : null, results);
+    }
+
+    /**
+     * Stops a queued or running job after the results already in flight. Returns the
+     * status, or null if there is no such job.
+     */
+    public JobStatus cancel(String id) throws IOException {
+        JobStatus status = status(id);
+        if (status == null) {
+            return null;
+        }
+        if (JobStatus.QUEUED.equals(status.getStatus()) || JobStatus.RUNNING.equals(status.getStatus())) {
+            cancelled.add(id);
+        }
+        return status;
+    }
+
+    private void resumeUnfinished() {
+        List<String> ids;
+        try {
+            ids = jobStore.jobIds();
+        } catch (IOException e) {
+            log.warn("Could not scan job store for unfinished jobs", e);
+            return;
+        }
+        for (String id : ids) {
+            // One unreadable job, e.g. a job.json cut short by a full disk, must not stop startup.
+            try {
+                JobStatus status = jobStore.readStatus(id);
+                if (status != null
+                        && (JobStatus.QUEUED.equals(status.getStatus()) || JobStatus.RUNNING.equals(status.getStatus()))) {
+                    log.info("Resuming job {} at {}/{}", id, jobStore.resultCount(id), status.getTotal());
+                    enqueue(status);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Skipping job {}: could not read it from the job store", id, e);
+            }
+        }
+    }
+
+    private void enqueue(JobStatus status) {
+        active.put(status.getId(), status);
+        runners.execute(() -> run(status));
+    }
+
+    private void run(JobStatus queued) {
+        String id = queued.getId();
+        JobStatus status = queued;
+        try (JobStore.Appender appender = jobStore.openAppender(id);
+             BufferedReader urls = jobStore.openUrls(id, jobStore.resultCount(id))) {
+            status = checkpoint(status, JobStatus.RUNNING, appender.count(), null);
+
+            // In input order; the head is written as soon as it completes while the rest keep running.
+            ArrayDeque<CompletableFuture<Result>> inFlight = new ArrayDeque<>(window);
+            boolean exhausted = false;
+            long sinceCheckpoint = 0;
+            while (!stopping && !cancelled.contains(id)) {
+                while (!exhausted && inFlight.size() < window) {
+                    String url = urls.readLine();
+                    if (url == null) {
+                        exhausted = true;
+                    } else {
+                        inFlight.add(analysisExecutor.analyze(url));
+                    }
+                }
+                if (inFlight.isEmpty()) {
+                    break;
+                }
+                appender.append(inFlight.poll().join());
+                appender.flush();
+                if (++sinceCheckpoint >= checkpointInterval) {
+                    status = checkpoint(status, JobStatus.RUNNING, appender.count(), null);
+                    sinceCheckpoint = 0;
+                } else {
+                    status = progress(status, appender.count());
+                }
+            }
+
+            appender.flush();
+            if (stopping) {
+                // Left as running so the next startup resumes it.
+                status = checkpoint(status, JobStatus.RUNNING, appender.count(), null);
+            } else if (cancelled.remove(id)) {
+                status = checkpoint(status, JobStatus.CANCELLED, appender.count(), null);
+            } else {
+                status = checkpoint(status, JobStatus.COMPLETED, appender.count(), null);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Job {} failed", id, e);
+            try {
+                checkpoint(status, JobStatus.FAILED, status.getProcessed(), e.toString());
+            } catch (IOException ignored) {
+            }
+        } finally {
+            active.remove(id);
+            cancelled.remove(id);
+        }
+    }
+
+    /** Publishes progress to pollers without rewriting job.json; resume relies on the index anyway. */
+    private JobStatus progress(JobStatus previous, long processed) {
+        JobStatus status = new JobStatus(previous.getId(), previous.getStatus(), previous.getTotal(), processed,
+                previous.getCreatedAt(), System.currentTimeMillis(), null);
+        active.put(status.getId(), status);
+        return status;
+    }
+
+    private JobStatus checkpoint(JobStatus previous, String state, long processed, String error) throws IOException {
+        JobStatus status = new JobStatus(previous.getId(), state, previous.getTotal(), processed,
+                previous.getCreatedAt(), System.currentTimeMillis(), error);
+        jobStore.writeStatus(status);
+        active.put(status.getId(), status);
+        return status;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        stopping = true;
+        runners.shutdown();
+        runners.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
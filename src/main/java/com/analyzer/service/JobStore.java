@@ -0,0 +1,250 @@
+package com.analyzer.service;
+
+import com.analyzer.model.JobStatus;
+import com.analyzer.model.Result;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * File-backed storage for bulk jobs, one directory per job:
+ * <ul>
+ *   <li>{@code urls.txt}: the submitted URLs, one per line</li>
+ *   <li>{@code results.ndjson}: append-only results, one JSON object per line, in input order</li>
+ *   <li>{@code results.idx}: the end offset of each result line as a big-endian long, so any
+ *       page can be located without scanning</li>
+ *   <li>{@code job.json}: the last checkpointed {@link JobStatus}</li>
+ * </ul>
+ * Nothing is held in memory beyond the page or chunk being read or written.
+ */
+@Component
+public class JobStore {
+
+    private static final Pattern JOB_ID = Pattern.compile("[0-9a-f]{32}");
+
+    private final Path root;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public JobStore(@Value("${analyzer.jobs.dir:data/jobs}") String dir, ObjectMapper objectMapper) {
+        this.root = Paths.get(dir);
+        this.objectMapper = objectMapper;
+    }
+
+    /** Spools {@code urls} to disk and records a queued job. Blank lines and {@code #} comments are skipped. */
+    public JobStatus create(Iterator<String> urls) throws IOException {
+        String id = UUID.randomUUID().toString().replace("-", "");
+        Path dir = root.resolve(id);
+        Files.createDirectories(dir);
+
+        long total = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(dir.resolve("urls.txt"), StandardCharsets.UTF_8)) {
+            while (urls.hasNext()) {
+                String url = urls.next();
+                if (url == null) {
+                    continue;
+                }
+                url = url.trim();
+                if (url.isEmpty() || url.startsWith("#")) {
+                    continue;
+                }
+                writer.write(url);
+                writer.newLine();
+                total++;
+            }
+        }
+        Files.createFile(dir.resolve("results.ndjson"));
+        Files.createFile(dir.resolve("results.idx"));
+
+        long now = System.currentTimeMillis();
+        JobStatus status = new JobStatus(id, JobStatus.QUEUED, total, 0, now, now, null);
+        writeStatus(status);
+        return status;
+    }
+
+    /** Returns the stored status, or null if there is no such job. */
+    public JobStatus readStatus(String id) {
+        Path dir = jobDir(id);
+        Path file = dir != null ? dir.resolve("job.json") : null;
+        if (file == null || !Files.exists(file)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), JobStatus.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Replaces job.json atomically so a crash never leaves a half-written status. */
+    public void writeStatus(JobStatus status) throws IOException {
+        Path dir = root.resolve(status.getId());
+        Path tmp = dir.resolve("job.json.tmp");
+        objectMapper.writeValue(tmp.toFile(), status);
+        Files.move(tmp, dir.resolve("job.json"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public List<String> jobIds() throws IOException {
+        List<String> ids = new ArrayList<>();
+        if (!Files.isDirectory(root)) {
+            return ids;
+        }
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root)) {
+            for (Path dir : dirs) {
+                String name = dir.getFileName().toString();
+                if (JOB_ID.matcher(name).matches() && Files.exists(dir.resolve("job.json"))) {
+                    ids.add(name);
+                }
+            }
+        }
+        return ids;
+    }
+
+    /** Opens the job's URL list positioned after the first {@code skip} URLs. */
+    public BufferedReader openUrls(String id, long skip) throws IOException {
+        BufferedReader reader = Files.newBufferedReader(root.resolve(id).resolve("urls.txt"), StandardCharsets.UTF_8);
+        long skipped = 0;
+        while (skipped < skip && reader.readLine() != null) {
+            skipped++;
+        }
+        return reader;
+    }
+
+    /**
+     * Opens the result log for appending. Bytes past the last indexed line (from a crash
+     * between writing a result and its index entry) are discarded first.
+     */
+    public Appender openAppender(String id) throws IOException {
+        Path dir = root.resolve(id);
+        Path results = dir.resolve("results.ndjson");
+        Path index = dir.resolve("results.idx");
+
+        long entries;
+        long end;
+        try (FileChannel idx = FileChannel.open(index, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            entries = idx.size() / Long.BYTES;
+            idx.truncate(entries * Long.BYTES);
+            end = entries > 0 ? readLong(idx, (entries - 1) * Long.BYTES) : 0;
+        }
+        try (FileChannel log = FileChannel.open(results, StandardOpenOption.WRITE)) {
+            log.truncate(end);
+        }
+        return new Appender(results, index, entries, end);
+    }
+
+    /** Number of results stored for the job. */
+    public long resultCount(String id) throws IOException {
+        return Files.size(root.resolve(id).resolve("results.idx")) / Long.BYTES;
+    }
+
+    /** Reads up to {@code limit} results starting at result {@code offset}. */
+    public List<Result> readResults(String id, long offset, int limit) throws IOException {
+        Path dir = root.resolve(id);
+        List<Result> page = new ArrayList<>();
+        try (FileChannel idx = FileChannel.open(dir.resolve("results.idx"), StandardOpenOption.READ);
+             FileChannel log = FileChannel.open(dir.resolve("results.ndjson"), StandardOpenOption.READ)) {
+            long entries = idx.size() / Long.BYTES;
+            if (offset >= entries || limit <= 0) {
+                return page;
+            }
+            long last = Math.min(entries, offset + limit) - 1;
+            long start = offset > 0 ? readLong(idx, (offset - 1) * Long.BYTES) : 0;
+            long end = readLong(idx, last * Long.BYTES);
+
+            ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+            while (bytes.hasRemaining() && log.read(bytes, start + bytes.position()) > 0) {
+            }
+            byte[] data = bytes.array();
+            int lineStart = 0;
+            for (int i = 0; i < data.length; i++) {
+                if (data[i] == '\n') {
+                    page.add(objectMapper.readValue(data, lineStart, i - lineStart, Result.class));
+                    lineStart = i + 1;
+                }
+            }
+        }
+        return page;
+    }
+
+    /** Returns the job's directory if {@code id} is a well-formed job id, else null. */
+    private Path jobDir(String id) {
+        return id != null && JOB_ID.matcher(id).matches() ? root.resolve(id) : null;
+    }
+
+    private static long readLong(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) > 0) {
+        }
+        buffer.flip();
+        return buffer.getLong();
+    }
+
+    /** Appends results and their index entries; {@link #flush()} makes them visible to readers. */
+    public class Appender implements Closeable {
+        private final OutputStream log;
+        private final DataOutputStream index;
+        private long count;
+        private long position;
+
+        private Appender(Path results, Path index, long count, long position) throws IOException {
+            this.log = new BufferedOutputStream(Files.newOutputStream(results, StandardOpenOption.APPEND), 64 * 1024);
+            this.index = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(index, StandardOpenOption.APPEND), 8 * 1024));
+            this.count = count;
+            this.position = position;
+        }
+
+        public void append(Result result) throws IOException {
+            byte[] line = objectMapper.writeValueAsBytes(result);
+            log.write(line);
+            log.write('\n');
+            position += line.length + 1;
+            index.writeLong(position);
+            count++;
+        }
+
+        /** Results first, then the index, so an indexed line is always complete on disk. */
+        public void flush() throws IOException {
+            log.flush();
+            index.flush();
+        }
+
+        public long count() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                log.close();
+                index.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.analyzer.service;
+
+import com.analyzer.model.LatencySamples;
+import org.HdrHistogram.Histogram;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a URL's time to first byte several times instead of once, so a single slow
+ * request (a GC pause on either side, a lost packet, a cold cache) does not decide its
+ * latency score. One unrecorded HEAD opens a keep-alive connection on the async client,
+ * then {@code samples} HEADs follow on it, {@code spacing-ms} apart. Samples of one URL
+ * run in sequence, while different URLs are sampled concurrently. Waiting between
+ * samples does not hold a thread.
+ */
+@Service
+public class LatencySampler {
+
+    private final AsyncFetcherService asyncFetcherService;
+    private final int samples;
+    private final long spacingMs;
+    private final Timeout timeout;
+    private final long highestMicros;
+
+    @Autowired
+    public LatencySampler(AsyncFetcherService asyncFetcherService,
+                          @Value("${analyzer.latency.samples:1}") int samples,
+                          @Value("${analyzer.latency.spacing-ms:100}") long spacingMs,
+                          @Value("${analyzer.latency.timeout-ms:5000}") long timeoutMs) {
+        this.asyncFetcherService = asyncFetcherService;
+        this.samples = samples;
+        this.spacingMs = Math.max(0, spacingMs);
+        this.timeout = Timeout.ofMilliseconds(timeoutMs);
+        this.highestMicros = Math.max(2, TimeUnit.MILLISECONDS.toMicros(timeoutMs));
+    }
+
+    /** Sampling is on when more than one sample is configured; one sample is what every analysis takes anyway. */
+    public boolean isEnabled() {
+        return samples > 1;
+    }
+
+    /**
+     * Samples {@code url}. Completes with null if the host did not answer the warm-up request
+     * or no sample got a response; never completes exceptionally.
+     */
+    public CompletableFuture<LatencySamples> sample(String url) {
+        return asyncFetcherService.timeToHeaders(url, timeout)
+                .thenCompose(warmupMs -> {
+                    if (warmupMs < 0) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    Series series = new Series();
+                    return take(url, series, samples).thenApply(done -> series.summary());
+                })
+                .exceptionally(ex -> null);
+    }
+
+    private CompletableFuture<Void> take(String url, Series series, int remaining) {
+        return asyncFetcherService.timeToHeaders(url, timeout).thenCompose(ms -> {
+            series.record(ms);
+            if (remaining <= 1) {
+                return CompletableFuture.completedFuture(null);
+            }
+            Executor later = CompletableFuture.delayedExecutor(spacingMs, TimeUnit.MILLISECONDS);
+            return CompletableFuture.runAsync(() -> { }, later)
+                    .thenCompose(ignored -> take(url, series, remaining - 1));
+        });
+    }
+
+    private static double round(double ms) {
+        return Math.round(ms * 10) / 10.0;
+    }
+
+    /** One URL's samples, in microseconds; written by one sample at a time. */
+    private class Series {
+        /** Two significant digits: percentiles are within 1%, and the histogram stays a few KB. */
+        final Histogram histogram = new Histogram(highestMicros, 2);
+        int failed;
+        double previousMs = -1;
+        double jitterSumMs;
+
+        synchronized void record(double ms) {
+            if (ms < 0) {
+                failed++;
+                return;
+            }
+            histogram.recordValue(Math.max(1, Math.min(highestMicros, Math.round(ms * 1000))));
+            if (previousMs >= 0) {
+                jitterSumMs += Math.abs(ms - previousMs);
+            }
+            previousMs = ms;
+        }
+
+        synchronized LatencySamples summary() {
+            long count = histogram.getTotalCount();
+            if (count == 0) {
+                return null;
+            }
+            return new LatencySamples((int) count, failed,
+                    round(histogram.getMinValue() / 1000.0),
+                    round(histogram.getValueAtPercentile(50) / 1000.0),
+                    round(histogram.getValueAtPercentile(90) / 1000.0),
+                    round(histogram.getValueAtPercentile(99) / 1000.0),
+                    round(histogram.getMaxValue() / 1000.0),
+                    count > 1 ? round(jitterSumMs / (count - 1)) : 0);
+        }
+    }
+}
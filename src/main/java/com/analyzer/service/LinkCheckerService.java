@@ -0,0 +1,209 @@
+package com.analyzer.service;
+
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks the links found on analyzed pages. Probes run concurrently on the async client,
+ * at most {@code per-host-limit} at a time per host, and their status is cached across
+ * requests so an asset shared by many pages (a CDN script, a logo) is probed once per TTL.
+ * Concurrent checks of the same link share one probe.
+ */
+@Service
+public class LinkCheckerService {
+
+    private final AsyncFetcherService asyncFetcherService;
+    private final AnalyzerMetrics metrics;
+    private final boolean enabled;
+    private final int maxPerPage;
+    private final int perHostLimit;
+    private final Timeout probeTimeout;
+    private final long budgetMs;
+    private final long ttlNanos;
+    private final long errorTtlNanos;
+    private final int maxEntries;
+
+    /** Access-ordered for LRU eviction; guarded by itself. */
+    private final LinkedHashMap<String, CachedStatus> statuses = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Integer>> inFlight = new ConcurrentHashMap<>();
+    /** Keyed by host and port; guarded by itself. */
+    private final Map<String, HostLane> lanes = new HashMap<>();
+
+    @Autowired
+    public LinkCheckerService(AsyncFetcherService asyncFetcherService, AnalyzerMetrics metrics,
+                              @Value("${analyzer.links.enabled:true}") boolean enabled,
+                              @Value("${analyzer.links.max-per-page:200}") int maxPerPage,
+                              @Value("${analyzer.links.per-host-limit:4}") int perHostLimit,
+                              @Value("${analyzer.links.timeout-ms:5000}") long timeoutMs,
+                              @Value("${analyzer.links.budget-ms:10000}") long budgetMs,
+                              @Value("${analyzer.links.cache-ttl-ms:600000}") long ttlMs,
+                              @Value("${analyzer.links.error-ttl-ms:60000}") long errorTtlMs,
+                              @Value("${analyzer.links.cache-max-entries:100000}") int maxEntries) {
+        this.asyncFetcherService = asyncFetcherService;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.maxPerPage = Math.max(0, maxPerPage);
+        this.perHostLimit = Math.max(1, perHostLimit);
+        this.probeTimeout = Timeout.ofMilliseconds(timeoutMs);
+        this.budgetMs = budgetMs;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.errorTtlNanos = TimeUnit.MILLISECONDS.toNanos(errorTtlMs);
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    public boolean isEnabled() {
+        return enabled && maxPerPage > 0;
+    }
+
+    /** Maximum number of links checked per page; links past it are not collected. */
+    public int getMaxPerPage() {
+        return maxPerPage;
+    }
+
+    /**
+     * Checks {@code links}. The report completes when every probe has answered or the
+     * configured budget runs out, whichever comes first, and never exceptionally. Probes
+     * still running at the deadline are left to finish and fill the cache, but are not
+     * counted as broken.
+     */
+    public CompletableFuture<LinkReport> check(List<String> links) {
+        int total = links.size();
+        if (!isEnabled() || links.isEmpty()) {
+            return CompletableFuture.completedFuture(new LinkReport(total, 0));
+        }
+        CompletableFuture<LinkReport> report = new CompletableFuture<>();
+        AtomicInteger broken = new AtomicInteger();
+        AtomicInteger pending = new AtomicInteger(total);
+        for (String link : links) {
+            status(link).whenComplete((status, ex) -> {
+                if (status != null && isBroken(status)) {
+                    broken.incrementAndGet();
+                }
+                if (pending.decrementAndGet() == 0) {
+                    report.complete(new LinkReport(total, broken.get()));
+                }
+            });
+        }
+        if (!report.isDone()) {
+            CompletableFuture.delayedExecutor(budgetMs, TimeUnit.MILLISECONDS)
+                    .execute(() -> report.complete(new LinkReport(total, broken.get())));
+        }
+        return report;
+    }
+
+    /** Status code of {@code link}, from the cache, a probe already in flight, or a new probe. */
+    private CompletableFuture<Integer> status(String link) {
+        synchronized (statuses) {
+            CachedStatus cached = statuses.get(link);
+            if (cached != null && System.nanoTime() < cached.expiresAtNanos) {
+                metrics.recordLinkLookup(true);
+                return CompletableFuture.completedFuture(cached.status);
+            }
+        }
+        metrics.recordLinkLookup(false);
+        CompletableFuture<Integer> probe = new CompletableFuture<>();
+        CompletableFuture<Integer> existing = inFlight.putIfAbsent(link, probe);
+        if (existing != null) {
+            return existing;
+        }
+        probe.whenComplete((status, ex) -> {
+            if (status != null) {
+                store(link, status);
+            }
+            inFlight.remove(link);
+        });
+        String host = URI.create(link).getRawAuthority();
+        acquire(host, () -> {
+            long start = System.nanoTime();
+            asyncFetcherService.probe(link, probeTimeout).whenComplete((status, ex) -> {
+                release(host);
+                metrics.recordLinkProbe(System.nanoTime() - start);
+                probe.complete(status != null ? status : -1);
+            });
+        });
+        return probe;
+    }
+
+    private void store(String link, int status) {
+        // Network failures are often transient, so they are retried sooner than real statuses.
+        long ttl = status < 0 ? errorTtlNanos : ttlNanos;
+        synchronized (statuses) {
+            statuses.put(link, new CachedStatus(status, System.nanoTime() + ttl));
+            while (statuses.size() > maxEntries) {
+                statuses.remove(statuses.keySet().iterator().next());
+            }
+        }
+    }
+
+    /** Runs {@code probe} now if the host has a free slot, otherwise queues it behind the host's lane. */
+    private void acquire(String host, Runnable probe) {
+        synchronized (lanes) {
+            HostLane lane = lanes.computeIfAbsent(host, h -> new HostLane());
+            if (lane.active >= perHostLimit) {
+                lane.queue.add(probe);
+                return;
+            }
+            lane.active++;
+        }
+        probe.run();
+    }
+
+    private void release(String host) {
+        Runnable next;
+        synchronized (lanes) {
+            HostLane lane = lanes.get(host);
+            next = lane.queue.poll();
+            if (next == null && --lane.active == 0) {
+                // Idle lanes are dropped so one-off hosts do not accumulate.
+                lanes.remove(host);
+            }
+        }
+        if (next != null) {
+            next.run();
+        }
+    }
+
+    private static boolean isBroken(int status) {
+        return status < 0 || status >= 400;
+    }
+
+    /** Probes for one host: the number running and the ones queued behind the limit. */
+    private static class HostLane {
+        final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+        int active;
+    }
+
+    private static class CachedStatus {
+        final int status;
+        final long expiresAtNanos;
+
+        CachedStatus(int status, long expiresAtNanos) {
+            this.status = status;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    /** Links checked on one page and how many of them are broken (status 400+ or unreachable). */
+    public static class LinkReport {
+        public final int total;
+        public final int broken;
+
+        public LinkReport(int total, int broken) {
+            this.total = total;
+            this.broken = broken;
+        }
+    }
+}
@@ -0,0 +1,552 @@
+package com.analyzer.service;
+
+import com.analyzer.model.MonitorEvent;
+import com.analyzer.model.MonitorReport;
+import com.analyzer.model.MonitorRequest;
+import com.analyzer.model.Result;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Re-analyzes registered URL sets in the background and reports what changed. Each URL of
+ * a monitor is checked once per interval, with start times spread evenly over the interval
+ * so a large set does not arrive at the host scheduler all at once. A check is a
+ * conditional GET with the validators of the last response; a {@code 304}, or a body with
+ * the same hash as last time, counts as unchanged and is not scored again. Changed pages
+ * are scored as usual and recorded in the history. Events are raised only when a score
+ * crosses the monitor's threshold, a watched header appears or disappears, or the URL
+ * stops or starts answering; the first check of a URL sets its baseline.
+ * <p>
+ * Monitor definitions are saved to {@code analyzer.monitor.file} and resumed on restart;
+ * baselines, counters and events are kept in memory.
+ */
+@Service
+public class MonitorService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(MonitorService.class);
+
+    public static final String EVENT_SCORE_DROPPED = "score_dropped";
+    public static final String EVENT_SCORE_RECOVERED = "score_recovered";
+    public static final String EVENT_HEADER_ADDED = "header_added";
+    public static final String EVENT_HEADER_REMOVED = "header_removed";
+    public static final String EVENT_UNREACHABLE = "unreachable";
+    public static final String EVENT_REACHABLE = "reachable";
+    static final String[] EVENT_TYPES = {EVENT_SCORE_DROPPED, EVENT_SCORE_RECOVERED, EVENT_HEADER_ADDED,
+            EVENT_HEADER_REMOVED, EVENT_UNREACHABLE, EVENT_REACHABLE};
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+    private static final String[] SCORES = {"total", "performance", "security", "seo"};
+
+    private final FetcherService fetcherService;
+    private final AnalysisService analysisService;
+    private final HostScheduler hostScheduler;
+    private final HistoryStore historyStore;
+    private final AnalyzerMetrics metrics;
+    private final ObjectMapper objectMapper;
+    private final Path file;
+    private final long defaultIntervalMs;
+    private final long minIntervalMs;
+    private final int defaultThreshold;
+    private final int maxUrls;
+    private final int maxEvents;
+    private final String[] watchedHeaders;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers;
+
+    /** Monitors by name; guarded by itself. */
+    private final Map<String, Monitor> monitors = new TreeMap<>();
+    /** The latest events, oldest first; guarded by itself. */
+    private final ArrayDeque<MonitorEvent> events = new ArrayDeque<>();
+
+    @Autowired
+    public MonitorService(FetcherService fetcherService, AnalysisService analysisService,
+                          HostScheduler hostScheduler, HistoryStore historyStore, AnalyzerMetrics metrics,
+                          ObjectMapper objectMapper,
+                          @Value("${analyzer.monitor.file:data/monitors.json}") String file,
+                          @Value("${analyzer.monitor.default-interval-ms:3600000}") long defaultIntervalMs,
+                          @Value("${analyzer.monitor.min-interval-ms:60000}") long minIntervalMs,
+                          @Value("${analyzer.monitor.default-threshold:50}") int defaultThreshold,
+                          @Value("${analyzer.monitor.max-urls:10000}") int maxUrls,
+                          @Value("${analyzer.monitor.max-events:10000}") int maxEvents,
+                          @Value("${analyzer.monitor.watched-headers:Strict-Transport-Security,Content-Security-Policy}")
+                                  String[] watchedHeaders,
+                          @Value("${analyzer.monitor.concurrency:4}") int concurrency) {
+        this.fetcherService = fetcherService;
+        this.analysisService = analysisService;
+        this.hostScheduler = hostScheduler;
+        this.historyStore = historyStore;
+        this.metrics = metrics;
+        this.objectMapper = objectMapper;
+        this.file = Paths.get(file);
+        this.minIntervalMs = Math.max(1000, minIntervalMs);
+        this.defaultIntervalMs = Math.max(this.minIntervalMs, defaultIntervalMs);
+        this.defaultThreshold = defaultThreshold;
+        this.maxUrls = Math.max(1, maxUrls);
+        this.maxEvents = Math.max(1, maxEvents);
+        this.watchedHeaders = watchedHeaders;
+
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "analyzer-monitor-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, concurrency), r -> {
+            Thread t = new Thread(r, "analyzer-monitor-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        resume();
+    }
+
+    /**
+     * Registers a monitor, or replaces the one with the same name; URLs it keeps keep their
+     * baselines. Returns null if the name, URLs, interval or threshold is invalid.
+     */
+    public MonitorReport register(String name, MonitorRequest request) throws IOException {
+        Monitor monitor = create(name, request);
+        if (monitor == null) {
+            return null;
+        }
+        synchronized (monitors) {
+            // Saved before it starts, so a monitor that runs is one that survives a restart.
+            Monitor previous = monitors.put(name, monitor);
+            try {
+                save();
+            } catch (IOException e) {
+                if (previous != null) {
+                    monitors.put(name, previous);
+                } else {
+                    monitors.remove(name);
+                }
+                throw e;
+            }
+            if (previous != null) {
+                previous.stop();
+                monitor.adopt(previous);
+            }
+            monitor.start();
+        }
+        return monitor.report();
+    }
+
+    /** Stops and removes a monitor; null if there is none by that name. */
+    public MonitorReport remove(String name) throws IOException {
+        Monitor monitor;
+        synchronized (monitors) {
+            monitor = monitors.remove(name);
+            if (monitor == null) {
+                return null;
+            }
+            try {
+                save();
+            } catch (IOException e) {
+                monitors.put(name, monitor);
+                throw e;
+            }
+            monitor.stop();
+        }
+        return monitor.report();
+    }
+
+    public MonitorReport report(String name) {
+        Monitor monitor;
+        synchronized (monitors) {
+            monitor = monitors.get(name);
+        }
+        return monitor != null ? monitor.report() : null;
+    }
+
+    /** All monitors, by name. */
+    public List<MonitorReport> list() {
+        List<Monitor> all;
+        synchronized (monitors) {
+            all = new ArrayList<>(monitors.values());
+        }
+        List<MonitorReport> reports = new ArrayList<>(all.size());
+        for (Monitor monitor : all) {
+            reports.add(monitor.report());
+        }
+        return reports;
+    }
+
+    /**
+     * Retained events after {@code since} (epoch milliseconds), oldest first and at most
+     * {@code limit}; only {@code monitor}'s if it is not null.
+     */
+    public List<MonitorEvent> events(String monitor, long since, int limit) {
+        List<MonitorEvent> page = new ArrayList<>();
+        synchronized (events) {
+            for (MonitorEvent event : events) {
+                if (page.size() >= limit) {
+                    break;
+                }
+                if (event.getTime() > since && (monitor == null || monitor.equals(event.getMonitor()))) {
+                    page.add(event);
+                }
+            }
+        }
+        return page;
+    }
+
+    private Monitor create(String name, MonitorRequest request) {
+        if (name == null || !NAME.matcher(name).matches() || name.equals("events") || request.getUrls() == null) {
+            return null;
+        }
+        Set<String> urls = new LinkedHashSet<>();
+        for (String rawUrl : request.getUrls()) {
+            String url = fetcherService.normalizeUrl(rawUrl);
+            if (!url.isEmpty()) {
+                urls.add(url);
+            }
+        }
+        long intervalMs = request.getIntervalMs() != null ? request.getIntervalMs() : defaultIntervalMs;
+        int threshold = request.getThreshold() != null ? request.getThreshold() : defaultThreshold;
+        if (urls.isEmpty() || urls.size() > maxUrls || intervalMs < minIntervalMs
+                || threshold < 1 || threshold > 100) {
+            return null;
+        }
+        return new Monitor(name, new ArrayList<>(urls), intervalMs, threshold);
+    }
+
+    /** Starts the monitors saved by the previous run. */
+    private void resume() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            MonitorRequest[] saved = objectMapper.readValue(file.toFile(), MonitorRequest[].class);
+            synchronized (monitors) {
+                for (MonitorRequest request : saved) {
+                    Monitor monitor = create(request.getName(), request);
+                    if (monitor == null) {
+                        log.warn("Skipping invalid saved monitor {}", request.getName());
+                        continue;
+                    }
+                    monitors.put(monitor.name, monitor);
+                    monitor.start();
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not read saved monitors from {}: {}", file, e.toString());
+        }
+    }
+
+    /** Writes all definitions; the caller holds the monitors lock. */
+    private void save() throws IOException {
+        List<MonitorRequest> definitions = new ArrayList<>(monitors.size());
+        for (Monitor monitor : monitors.values()) {
+            definitions.add(new MonitorRequest(monitor.name, monitor.urls, monitor.intervalMs, monitor.threshold));
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = parent.resolve(file.getFileName() + ".tmp");
+        objectMapper.writeValue(tmp.toFile(), definitions);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Runs on the timer: queues one check of {@code target} behind its host unless the last is still running. */
+    private void check(Monitor monitor, Target target) {
+        if (monitor.stopped) {
+            return;
+        }
+        if (!target.running.compareAndSet(false, true)) {
+            overrun(monitor);
+            return;
+        }
+        try {
+            hostScheduler.submit(target.url, permit -> CompletableFuture.supplyAsync(() -> {
+                FetcherService.FetchResult fetch = fetcherService.fetchPage(target.url, target.validators());
+                permit.release(fetch);
+                return fetch;
+            }, workers)).thenCompose(fetch -> inspect(monitor, target, fetch)).whenComplete((ignored, ex) -> {
+                target.running.set(false);
+                if (ex != null) {
+                    log.warn("Monitor {} check of {} failed: {}", monitor.name, target.url, ex.toString());
+                }
+            });
+        } catch (RuntimeException e) {
+            // Thrown out of a periodic task it would cancel the schedule.
+            target.running.set(false);
+            log.warn("Monitor {} could not check {}: {}", monitor.name, target.url, e.toString());
+        }
+    }
+
+    /**
+     * Counts a check skipped because the URL's previous one is still running, and warns at
+     * most once per interval: checks take longer than the interval, or the pool is too small.
+     */
+    private void overrun(Monitor monitor) {
+        long total = monitor.overrun.incrementAndGet();
+        metrics.recordMonitorCheck(AnalyzerMetrics.CHECK_OVERRUN);
+        long now = System.currentTimeMillis();
+        long last = monitor.overrunLoggedAt.get();
+        if (now - last >= monitor.intervalMs && monitor.overrunLoggedAt.compareAndSet(last, now)) {
+            log.warn("Monitor {} skipped a check of a URL whose previous check was still running ({} so far); "
+                    + "raise its interval or analyzer.monitor.concurrency", monitor.name, total);
+        }
+    }
+
+    /**
+     * Compares a check's fetch with the URL's baseline, scoring it if the page changed. The
+     * baseline is read and updated under the target's lock, but the scoring, which waits on
+     * link checks and asset downloads, runs outside it and holds no thread.
+     */
+    private CompletableFuture<Void> inspect(Monitor monitor, Target target, FetcherService.FetchResult fetch) {
+        List<MonitorEvent> found = new ArrayList<>();
+        String outcome;
+        long hash = 0;
+        synchronized (target) {
+            boolean baselined = target.baselined;
+            target.baselined = true;
+            HttpResponse response = fetch.response;
+            if (response == null || fetch.error != null) {
+                if (baselined && target.reachable) {
+                    found.add(event(System.currentTimeMillis(), monitor, target, EVENT_UNREACHABLE, null, null,
+                            fetch.error));
+                }
+                target.reachable = false;
+                outcome = AnalyzerMetrics.CHECK_FAILED;
+            } else {
+                if (baselined && !target.reachable) {
+                    found.add(event(System.currentTimeMillis(), monitor, target, EVENT_REACHABLE, null, null, null));
+                }
+                target.reachable = true;
+                if (response.getCode() == HttpStatus.SC_NOT_MODIFIED) {
+                    outcome = AnalyzerMetrics.CHECK_UNCHANGED;
+                } else {
+                    target.etag = headerValue(response, HttpHeaders.ETAG);
+                    target.lastModified = headerValue(response, HttpHeaders.LAST_MODIFIED);
+                    compareHeaders(monitor, target, response, found);
+                    hash = UrlHashSet.hash(fetch.htmlContent != null ? fetch.htmlContent : "");
+                    outcome = target.scores != null && hash == target.contentHash
+                            ? AnalyzerMetrics.CHECK_UNCHANGED : AnalyzerMetrics.CHECK_ANALYZED;
+                }
+            }
+        }
+        if (!AnalyzerMetrics.CHECK_ANALYZED.equals(outcome)) {
+            finish(monitor, outcome, found);
+            return CompletableFuture.completedFuture(null);
+        }
+        long contentHash = hash;
+        return analysisService.score(target.url, fetch, workers).thenAccept(result -> {
+            historyStore.record(target.url, result);
+            synchronized (target) {
+                compareScores(monitor, target, result, found);
+                target.contentHash = contentHash;
+            }
+            finish(monitor, outcome, found);
+        });
+    }
+
+    private void finish(Monitor monitor, String outcome, List<MonitorEvent> found) {
+        monitor.lastCheckAt = System.currentTimeMillis();
+        monitor.checks.incrementAndGet();
+        (AnalyzerMetrics.CHECK_FAILED.equals(outcome) ? monitor.failed
+                : AnalyzerMetrics.CHECK_UNCHANGED.equals(outcome) ? monitor.unchanged : monitor.analyzed)
+                .incrementAndGet();
+        metrics.recordMonitorCheck(outcome);
+        for (MonitorEvent event : found) {
+            publish(monitor, event);
+        }
+    }
+
+    /** Adds header events against the previous full response, then makes this one the baseline. */
+    private void compareHeaders(Monitor monitor, Target target, HttpResponse response, List<MonitorEvent> found) {
+        Map<String, String> current = new HashMap<>();
+        for (String name : watchedHeaders) {
+            String value = headerValue(response, name);
+            if (value != null) {
+                current.put(name, value);
+            }
+        }
+        if (target.headers != null) {
+            long now = System.currentTimeMillis();
+            for (String name : watchedHeaders) {
+                String before = target.headers.get(name);
+                String after = current.get(name);
+                if (before == null && after != null) {
+                    found.add(event(now, monitor, target, EVENT_HEADER_ADDED, name, null, after));
+                } else if (before != null && after == null) {
+                    found.add(event(now, monitor, target, EVENT_HEADER_REMOVED, name, before, null));
+                }
+            }
+        }
+        target.headers = current;
+    }
+
+    /** Adds an event for every score that crossed the threshold since the last scoring, then keeps these scores. */
+    private void compareScores(Monitor monitor, Target target, Result result, List<MonitorEvent> found) {
+        int[] current = {result.getTotal(), result.getPerformance(), result.getSecurity(), result.getSeo()};
+        if (target.scores != null) {
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < SCORES.length; i++) {
+                int before = target.scores[i];
+                int after = current[i];
+                if (before >= monitor.threshold && after < monitor.threshold) {
+                    found.add(event(now, monitor, target, EVENT_SCORE_DROPPED, SCORES[i],
+                            String.valueOf(before), String.valueOf(after)));
+                } else if (before < monitor.threshold && after >= monitor.threshold) {
+                    found.add(event(now, monitor, target, EVENT_SCORE_RECOVERED, SCORES[i],
+                            String.valueOf(before), String.valueOf(after)));
+                }
+            }
+        }
+        target.scores = current;
+    }
+
+    private static MonitorEvent event(long time, Monitor monitor, Target target, String type, String subject,
+                                      String previous, String current) {
+        return new MonitorEvent(time, monitor.name, target.url, type, subject, previous, current);
+    }
+
+    private void publish(Monitor monitor, MonitorEvent event) {
+        synchronized (events) {
+            events.addLast(event);
+            while (events.size() > maxEvents) {
+                events.removeFirst();
+            }
+        }
+        monitor.events.incrementAndGet();
+        metrics.recordMonitorEvent(event.getType());
+        log.info("Monitor {}: {} {} {} ({} -> {})", monitor.name, event.getUrl(), event.getType(),
+                event.getSubject() != null ? event.getSubject() : "", event.getPrevious(), event.getCurrent());
+    }
+
+    private static String headerValue(HttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header != null ? header.getValue() : null;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        timer.shutdownNow();
+        workers.shutdown();
+        workers.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /** A registered URL set and its checks' counters. */
+    private class Monitor {
+        final String name;
+        final List<String> urls;
+        final long intervalMs;
+        final int threshold;
+        final Map<String, Target> targets = new LinkedHashMap<>();
+        final List<ScheduledFuture<?>> schedules = new ArrayList<>();
+        final AtomicLong checks = new AtomicLong();
+        final AtomicLong unchanged = new AtomicLong();
+        final AtomicLong analyzed = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong overrun = new AtomicLong();
+        final AtomicLong overrunLoggedAt = new AtomicLong(Long.MIN_VALUE / 2);
+        final AtomicLong events = new AtomicLong();
+        volatile long lastCheckAt;
+        volatile boolean stopped;
+
+        Monitor(String name, List<String> urls, long intervalMs, int threshold) {
+            this.name = name;
+            this.urls = Collections.unmodifiableList(urls);
+            this.intervalMs = intervalMs;
+            this.threshold = threshold;
+            for (String url : urls) {
+                targets.put(url, new Target(url));
+            }
+        }
+
+        /** Takes over the targets, and so the baselines, of the URLs {@code previous} shares with this monitor. */
+        void adopt(Monitor previous) {
+            targets.replaceAll((url, target) -> previous.targets.getOrDefault(url, target));
+        }
+
+        /** Schedules every URL once per interval, the i-th of n starting i/n of an interval from now. */
+        void start() {
+            int n = targets.size();
+            int i = 0;
+            for (Target target : targets.values()) {
+                long offsetMs = intervalMs * i++ / n;
+                schedules.add(timer.scheduleAtFixedRate(() -> check(this, target),
+                        offsetMs, intervalMs, TimeUnit.MILLISECONDS));
+            }
+        }
+
+        void stop() {
+            stopped = true;
+            for (ScheduledFuture<?> schedule : schedules) {
+                schedule.cancel(false);
+            }
+        }
+
+        MonitorReport report() {
+            return new MonitorReport(name, urls, intervalMs, threshold, checks.get(), unchanged.get(),
+                    analyzed.get(), failed.get(), overrun.get(), events.get(), lastCheckAt);
+        }
+    }
+
+    /** One monitored URL's baseline; checks of it never overlap, and read or update it under its lock. */
+    private static class Target {
+        final String url;
+        final AtomicBoolean running = new AtomicBoolean();
+        boolean baselined;
+        boolean reachable = true;
+        String etag;
+        String lastModified;
+        long contentHash;
+        /** Total, performance, security and SEO of the last scoring; null before the first. */
+        int[] scores;
+        /** Watched headers present in the last full response; null before the first. */
+        Map<String, String> headers;
+
+        Target(String url) {
+            this.url = url;
+        }
+
+        synchronized Map<String, String> validators() {
+            if (etag == null && lastModified == null) {
+                return Collections.emptyMap();
+            }
+            Map<String, String> headers = new HashMap<>();
+            if (etag != null) {
+                headers.put(HttpHeaders.IF_NONE_MATCH, etag);
+            }
+            if (lastModified != null) {
+                headers.put(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+            }
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.analyzer.service;
+
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Fetches and caches the per-origin resources behind the robots.txt and sitemap checks.
+ * An origin's robots.txt and sitemaps are fetched once per TTL and shared by every URL on
+ * it; concurrent lookups for an origin being fetched wait for that fetch instead of
+ * starting their own. Robots.txt is cached on its own too, for callers that only need
+ * its rules. Sitemaps are streamed, so multi-megabyte gzipped indexes are safe. Resources
+ * are loaded on a pool of their own, so scoring never waits on a sitemap download.
+ */
+@Service
+public class OriginResourceService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(OriginResourceService.class);
+
+    /** Robots.txt content past this is ignored, as major crawlers do (RFC 9309 asks for at least 500 KiB). */
+    private static final int MAX_ROBOTS_LINES = 20_000;
+
+    private final FetcherService fetcherService;
+    private final boolean enabled;
+    private final int maxSitemaps;
+    private final long maxSitemapBytes;
+
+    private final OriginCache<RobotsTxt> robotsCache;
+    private final OriginCache<OriginResources> resourceCache;
+    private final ExecutorService loaders;
+
+    @Autowired
+    public OriginResourceService(FetcherService fetcherService,
+                                 @Value("${analyzer.origin.enabled:true}") boolean enabled,
+                                 @Value("${analyzer.origin.ttl-ms:3600000}") long ttlMs,
+                                 @Value("${analyzer.origin.max-entries:10000}") int maxEntries,
+                                 @Value("${analyzer.origin.max-sitemaps:5}") int maxSitemaps,
+                                 @Value("${analyzer.origin.max-sitemap-bytes:52428800}") long maxSitemapBytes,
+                                 @Value("${analyzer.origin.threads:8}") int threads) {
+        this.fetcherService = fetcherService;
+        this.enabled = enabled;
+        this.maxSitemaps = Math.max(1, maxSitemaps);
+        this.maxSitemapBytes = maxSitemapBytes;
+        long ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.robotsCache = new OriginCache<>(ttlNanos, Math.max(1, maxEntries));
+        this.resourceCache = new OriginCache<>(ttlNanos, Math.max(1, maxEntries));
+        AtomicInteger threadCount = new AtomicInteger();
+        this.loaders = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "analyzer-origin-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Returns the resources of {@code pageUrl}'s origin, already complete if cached and
+     * otherwise loaded on the origin pool; completes with null if disabled.
+     */
+    public CompletableFuture<OriginResources> resources(String pageUrl) {
+        String origin = originOf(pageUrl);
+        if (!enabled || origin == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return resourceCache.getAsync(origin, this::fetch, loaders);
+    }
+
+    /**
+     * Returns {@code pageUrl}'s robots.txt, {@link RobotsTxt#EMPTY} if it has none, or null if
+     * disabled. Cheaper than {@link #resources}, which also reads the sitemaps.
+     */
+    public RobotsTxt robots(String pageUrl) {
+        String origin = originOf(pageUrl);
+        if (!enabled || origin == null) {
+            return null;
+        }
+        return robotsCache.get(origin, this::fetchRobots);
+    }
+
+    private RobotsTxt fetchRobots(String origin) {
+        try {
+            RobotsTxt robots = fetcherService.stream(origin + "/robots.txt", (response, body) ->
+                    isSuccess(response) && !isHtml(response)
+                            ? RobotsTxt.parse(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)),
+                                    MAX_ROBOTS_LINES)
+                            : null);
+            return robots != null ? robots : RobotsTxt.EMPTY;
+        } catch (IOException e) {
+            log.debug("Could not fetch robots.txt for {}: {}", origin, e.toString());
+            return RobotsTxt.EMPTY;
+        }
+    }
+
+    private OriginResources fetch(String origin) {
+        RobotsTxt robots = robotsCache.get(origin, this::fetchRobots);
+
+        // Sitemaps declared in robots.txt, else the conventional location; index children are followed.
+        ArrayDeque<String> pending = new ArrayDeque<>();
+        if (!robots.getSitemaps().isEmpty()) {
+            pending.addAll(robots.getSitemaps());
+        } else {
+            pending.add(origin + "/sitemap.xml");
+        }
+        Set<String> seen = new LinkedHashSet<>();
+        boolean hasSitemap = false;
+        long sitemapUrls = 0;
+        while (!pending.isEmpty() && seen.size() < maxSitemaps) {
+            String location = pending.poll();
+            if (!seen.add(location)) {
+                continue;
+            }
+            try {
+                SitemapReader.Sitemap sitemap = fetcherService.stream(location, (response, body) ->
+                        isSuccess(response) ? SitemapReader.read(body, maxSitemapBytes, maxSitemaps) : null);
+                if (sitemap != null) {
+                    hasSitemap = true;
+                    if (sitemap.index) {
+                        pending.addAll(sitemap.children);
+                    } else {
+                        sitemapUrls += sitemap.entries;
+                    }
+                }
+            } catch (IOException e) {
+                log.debug("Could not fetch sitemap {}: {}", location, e.toString());
+            }
+        }
+        return new OriginResources(origin, robots != RobotsTxt.EMPTY, robots, hasSitemap, sitemapUrls);
+    }
+
+    /** {@code scheme://host[:port]} of a URL, lower-cased, or null if it has no host. */
+    static String originOf(String url) {
+        try {
+            URI uri = URI.create(url);
+            if (uri.getScheme() == null || uri.getRawAuthority() == null) {
+                return null;
+            }
+            return (uri.getScheme() + "://" + uri.getRawAuthority()).toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean isSuccess(HttpResponse response) {
+        return response.getCode() >= 200 && response.getCode() < 300;
+    }
+
+    /** Many sites answer a missing robots.txt with their HTML error page and a 200. */
+    private static boolean isHtml(HttpResponse response) {
+        Header contentType = response.getFirstHeader(HttpHeaders.CONTENT_TYPE);
+        return contentType != null && contentType.getValue().toLowerCase(Locale.ROOT).contains("html");
+    }
+
+    /** What was found at one origin. */
+    public static class OriginResources {
+        public final String origin;
+        public final boolean hasRobotsTxt;
+        /** The parsed robots.txt, {@link RobotsTxt#EMPTY} if there is none. */
+        public final RobotsTxt robots;
+        public final boolean hasSitemap;
+        /** URLs listed across the sitemaps read, which may stop short on very large sites. */
+        public final long sitemapUrls;
+
+        public OriginResources(String origin, boolean hasRobotsTxt, RobotsTxt robots, boolean hasSitemap,
+                               long sitemapUrls) {
+            this.origin = origin;
+            this.hasRobotsTxt = hasRobotsTxt;
+            this.robots = robots;
+            this.hasSitemap = hasSitemap;
+            this.sitemapUrls = sitemapUrls;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        loaders.shutdownNow();
+    }
+
+    /**
+     * Bounded LRU of per-origin values with a TTL. A miss is loaded on the calling thread, or
+     * on an executor by {@link #getAsync}; callers arriving while it loads share that load
+     * rather than starting their own.
+     */
+    private static class OriginCache<V> {
+        private final long ttlNanos;
+        private final int maxEntries;
+        /** Access-ordered for LRU eviction; guarded by itself. */
+        private final LinkedHashMap<String, Stamped<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final Map<String, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+
+        OriginCache(long ttlNanos, int maxEntries) {
+            this.ttlNanos = ttlNanos;
+            this.maxEntries = maxEntries;
+        }
+
+        V get(String origin, Function<String, V> loader) {
+            synchronized (entries) {
+                Stamped<V> cached = entries.get(origin);
+                if (cached != null && System.nanoTime() - cached.loadedAtNanos < ttlNanos) {
+                    return cached.value;
+                }
+            }
+            CompletableFuture<V> mine = new CompletableFuture<>();
+            CompletableFuture<V> existing = loading.putIfAbsent(origin, mine);
+            if (existing != null) {
+                return existing.join();
+            }
+            try {
+                V value = loader.apply(origin);
+                put(origin, value);
+                mine.complete(value);
+                return value;
+            } catch (RuntimeException e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                loading.remove(origin);
+            }
+        }
+
+        /** As {@link #get}, but a miss is loaded on {@code executor} and no caller waits for it. */
+        CompletableFuture<V> getAsync(String origin, Function<String, V> loader, Executor executor) {
+            synchronized (entries) {
+                Stamped<V> cached = entries.get(origin);
+                if (cached != null && System.nanoTime() - cached.loadedAtNanos < ttlNanos) {
+                    return CompletableFuture.completedFuture(cached.value);
+                }
+            }
+            CompletableFuture<V> mine = new CompletableFuture<>();
+            CompletableFuture<V> existing = loading.putIfAbsent(origin, mine);
+            if (existing != null) {
+                return existing;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        V value = loader.apply(origin);
+                        put(origin, value);
+                        mine.complete(value);
+                    } catch (RuntimeException e) {
+                        mine.completeExceptionally(e);
+                    } finally {
+                        loading.remove(origin);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                loading.remove(origin);
+                mine.completeExceptionally(e);
+            }
+            return mine;
+        }
+
+        private void put(String origin, V value) {
+            synchronized (entries) {
+                entries.put(origin, new Stamped<>(value, System.nanoTime()));
+                while (entries.size() > maxEntries) {
+                    entries.remove(entries.keySet().iterator().next());
+                }
+            }
+        }
+    }
+
+    private static class Stamped<V> {
+        final V value;
+        final long loadedAtNanos;
+
+        Stamped(V value, long loadedAtNanos) {
+            this.value = value;
+            this.loadedAtNanos = loadedAtNanos;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.analyzer.service;
+
+import com.analyzer.html.SubresourceCollector;
+import com.analyzer.model.AssetWeight;
+import com.analyzer.model.PageWeight;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures full page weight: downloads a page's subresources on the async client, a few
+ * at a time per page, and totals their wire bytes by type along with how many are served
+ * compressed and cacheable. Each page is capped in assets, bytes and time, so a heavy page
+ * cannot monopolize the fetcher; what was not measured by then is reported as skipped.
+ * Measured assets are cached across pages, so shared ones (a CDN script, a logo) are
+ * downloaded once per TTL.
+ */
+@Service
+public class PageWeightService {
+
+    private final AsyncFetcherService asyncFetcherService;
+    private final boolean enabled;
+    private final int maxAssets;
+    private final long maxBytes;
+    private final int concurrency;
+    private final Timeout assetTimeout;
+    private final long budgetMs;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    /** Access-ordered for LRU eviction; guarded by itself. */
+    private final LinkedHashMap<String, CachedAsset> assets = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Autowired
+    public PageWeightService(AsyncFetcherService asyncFetcherService,
+                             @Value("${analyzer.page-weight.enabled:false}") boolean enabled,
+                             @Value("${analyzer.page-weight.max-assets:50}") int maxAssets,
+                             @Value("${analyzer.page-weight.max-bytes:20971520}") long maxBytes,
+                             @Value("${analyzer.page-weight.concurrency:6}") int concurrency,
+                             @Value("${analyzer.page-weight.timeout-ms:5000}") long timeoutMs,
+                             @Value("${analyzer.page-weight.budget-ms:15000}") long budgetMs,
+                             @Value("${analyzer.page-weight.cache-ttl-ms:600000}") long ttlMs,
+                             @Value("${analyzer.page-weight.cache-max-entries:20000}") int maxEntries) {
+        this.asyncFetcherService = asyncFetcherService;
+        this.enabled = enabled;
+        this.maxAssets = Math.max(0, maxAssets);
+        this.maxBytes = Math.max(0, maxBytes);
+        this.concurrency = Math.max(1, concurrency);
+        this.assetTimeout = Timeout.ofMilliseconds(timeoutMs);
+        this.budgetMs = Math.max(1, budgetMs);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    public boolean isEnabled() {
+        return enabled && maxAssets > 0;
+    }
+
+    /** Maximum number of assets measured per page; further ones are only counted. */
+    public int getMaxAssets() {
+        return maxAssets;
+    }
+
+    /**
+     * Starts measuring {@code resources} of a page whose document took {@code documentBytes}
+     * on the wire. The future completes when all are measured or the time budget runs out,
+     * whichever comes first, and never exceptionally.
+     */
+    public CompletableFuture<PageWeight> measure(long documentBytes, List<SubresourceCollector.Subresource> resources,
+                                                 int skipped) {
+        Measurement measurement = new Measurement(documentBytes, resources, skipped);
+        measurement.start();
+        return measurement.result;
+    }
+
+    private CachedAsset cached(String url) {
+        synchronized (assets) {
+            CachedAsset cached = assets.get(url);
+            return cached != null && System.nanoTime() < cached.expiresAtNanos ? cached : null;
+        }
+    }
+
+    private void store(String url, CachedAsset asset) {
+        synchronized (assets) {
+            assets.put(url, asset);
+            while (assets.size() > maxEntries) {
+                assets.remove(assets.keySet().iterator().next());
+            }
+        }
+    }
+
+    /** True for text-based types a server should compress. */
+    private static boolean isCompressible(String type, HttpResponse response) {
+        if (SubresourceCollector.SCRIPT.equals(type) || SubresourceCollector.STYLESHEET.equals(type)) {
+            return true;
+        }
+        Header contentType = response.getFirstHeader("Content-Type");
+        return contentType != null && contentType.getValue().toLowerCase(Locale.ROOT).contains("svg");
+    }
+
+    private static boolean isCompressed(HttpResponse response) {
+        Header encoding = response.getFirstHeader("Content-Encoding");
+        return encoding != null && !encoding.getValue().trim().equalsIgnoreCase("identity");
+    }
+
+    /** Same reading of Cache-Control as the document's caching score, with max-age=0 and no-store excluded. */
+    private static boolean isCacheable(HttpResponse response) {
+        Header header = response.getFirstHeader("Cache-Control");
+        if (header == null) {
+            return false;
+        }
+        String cacheControl = header.getValue().toLowerCase(Locale.ROOT);
+        if (cacheControl.contains("no-store") || cacheControl.contains("max-age=0")) {
+            return false;
+        }
+        return cacheControl.contains("public") || cacheControl.contains("immutable")
+                || cacheControl.contains("max-age");
+    }
+
+    private static int percent(int part, int whole) {
+        return whole > 0 ? Math.round(part * 100f / whole) : -1;
+    }
+
+    /** One page's measurement; all fields are guarded by this. */
+    private class Measurement {
+        final CompletableFuture<PageWeight> result = new CompletableFuture<>();
+        final long documentBytes;
+        final ArrayDeque<SubresourceCollector.Subresource> queue;
+        final AtomicLong byteBudget = new AtomicLong(maxBytes);
+        final Map<String, AssetWeight> byType = new LinkedHashMap<>();
+        long totalBytes;
+        int requests = 1;
+        int failed;
+        int skipped;
+        int compressible;
+        int compressed;
+        int cacheable;
+        int active;
+        boolean truncated;
+
+        Measurement(long documentBytes, List<SubresourceCollector.Subresource> resources, int skipped) {
+            this.documentBytes = Math.max(0, documentBytes);
+            this.totalBytes = this.documentBytes;
+            this.queue = new ArrayDeque<>(resources);
+            this.skipped = skipped;
+            this.truncated = skipped > 0;
+        }
+
+        void start() {
+            CompletableFuture.delayedExecutor(budgetMs, TimeUnit.MILLISECONDS).execute(this::finishEarly);
+            for (int i = 0; i < concurrency; i++) {
+                next();
+            }
+        }
+
+        /** Starts the next queued asset, answering from the cache where possible. */
+        void next() {
+            startNext();
+            completeIfIdle();
+        }
+
+        private void startNext() {
+            while (true) {
+                SubresourceCollector.Subresource resource;
+                synchronized (this) {
+                    if (result.isDone() || queue.isEmpty()) {
+                        return;
+                    }
+                    resource = queue.poll();
+                    CachedAsset cached = cached(resource.url);
+                    if (cached != null) {
+                        add(resource.type, cached);
+                        continue;
+                    }
+                    if (byteBudget.get() <= 0) {
+                        skipped += queue.size() + 1;
+                        queue.clear();
+                        truncated = true;
+                        return;
+                    }
+                    active++;
+                }
+                asyncFetcherService.download(resource.url, byteBudget, assetTimeout)
+                        .thenAccept(fetch -> completed(resource, fetch));
+                return;
+            }
+        }
+
+        void completed(SubresourceCollector.Subresource resource, FetcherService.FetchResult fetch) {
+            HttpResponse response = fetch.response;
+            CachedAsset asset = response == null
+                    ? new CachedAsset(0, true, false, false, false, 0)
+                    : new CachedAsset(Math.max(0, fetch.wireBytes), fetch.error != null,
+                            isCompressible(resource.type, response), isCompressed(response), isCacheable(response),
+                            System.nanoTime() + ttlNanos);
+            if (response != null && fetch.error == null && !fetch.truncated) {
+                store(resource.url, asset);
+            }
+            synchronized (this) {
+                active--;
+                add(resource.type, asset);
+                truncated |= fetch.truncated;
+            }
+            next();
+        }
+
+        /**
+         * Completes the result once nothing is queued or downloading. Every path that drains
+         * the queue or finishes a download ends here, whether the queue emptied through a
+         * download, cache hits or the byte budget.
+         */
+        void completeIfIdle() {
+            synchronized (this) {
+                if (result.isDone() || active > 0 || !queue.isEmpty()) {
+                    return;
+                }
+            }
+            result.complete(snapshot());
+        }
+
+        void add(String type, CachedAsset asset) {
+            requests++;
+            totalBytes += asset.bytes;
+            AssetWeight weight = byType.computeIfAbsent(type, t -> new AssetWeight(0, 0));
+            weight.setRequests(weight.getRequests() + 1);
+            weight.setBytes(weight.getBytes() + asset.bytes);
+            if (asset.failed) {
+                failed++;
+                return;
+            }
+            if (asset.compressible) {
+                compressible++;
+                if (asset.compressed) {
+                    compressed++;
+                }
+            }
+            if (asset.cacheable) {
+                cacheable++;
+            }
+        }
+
+        /** Called when the time budget runs out; assets still queued or downloading are reported as skipped. */
+        void finishEarly() {
+            synchronized (this) {
+                if (result.isDone()) {
+                    return;
+                }
+                skipped += queue.size() + active;
+                truncated |= !queue.isEmpty() || active > 0;
+                queue.clear();
+            }
+            result.complete(snapshot());
+        }
+
+        synchronized PageWeight snapshot() {
+            Map<String, AssetWeight> types = new LinkedHashMap<>();
+            byType.forEach((type, weight) -> types.put(type, new AssetWeight(weight.getRequests(), weight.getBytes())));
+            int measured = requests - 1 - failed;
+            return new PageWeight(totalBytes, requests, types, failed, skipped,
+                    percent(compressed, compressible), percent(cacheable, measured), truncated);
+        }
+    }
+
+    /** What one asset weighed; failures are kept for the current page only, never cached. */
+    private static class CachedAsset {
+        final long bytes;
+        final boolean failed;
+        final boolean compressible;
+        final boolean compressed;
+        final boolean cacheable;
+        final long expiresAtNanos;
+
+        CachedAsset(long bytes, boolean failed, boolean compressible, boolean compressed, boolean cacheable,
+                    long expiresAtNanos) {
+            this.bytes = bytes;
+            this.failed = failed;
+            this.compressible = compressible;
+            this.compressed = compressed;
+            this.cacheable = cacheable;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
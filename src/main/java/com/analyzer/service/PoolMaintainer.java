@@ -0,0 +1,127 @@
+package com.analyzer.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background upkeep of the HTTP connection pools. Idle and expired connections are swept
+ * on a timer, so after a quiet period fetches open fresh sockets instead of failing on
+ * stale ones. Connections to the configured warm origins are opened at startup and kept
+ * open with periodic HEAD requests, so their fetches skip TCP and TLS setup and their
+ * {@code latencyMs} is not inflated by it. Only the classic client, which pages are
+ * fetched with, is warmed.
+ */
+@Component
+public class PoolMaintainer implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PoolMaintainer.class);
+
+    private final HttpClientFactory httpClientFactory;
+    private final FetcherService fetcherService;
+    private final AnalyzerMetrics metrics;
+    private final List<String> warmOrigins = new ArrayList<>();
+    private final int warmConnections;
+    private final long warmTimeoutMs;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService warmers;
+
+    @Autowired
+    public PoolMaintainer(HttpClientFactory httpClientFactory, FetcherService fetcherService,
+                          AnalyzerMetrics metrics) {
+        HttpClientProperties properties = httpClientFactory.getProperties();
+        this.httpClientFactory = httpClientFactory;
+        this.fetcherService = fetcherService;
+        this.metrics = metrics;
+        this.warmConnections = Math.max(1, properties.getWarmConnections());
+        this.warmTimeoutMs = properties.getConnectTimeoutMs() + properties.getResponseTimeoutMs();
+        for (String origin : properties.getWarmOrigins()) {
+            String normalized = OriginResourceService.originOf(fetcherService.normalizeUrl(origin));
+            if (normalized != null) {
+                warmOrigins.add(normalized);
+            }
+        }
+
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "analyzer-pool-maintainer");
+            t.setDaemon(true);
+            return t;
+        });
+        long evictMs = Math.max(100, properties.getEvictIntervalMs());
+        timer.scheduleWithFixedDelay(this::evict, evictMs, evictMs, TimeUnit.MILLISECONDS);
+
+        if (warmOrigins.isEmpty()) {
+            this.warmers = null;
+        } else {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.warmers = Executors.newFixedThreadPool(Math.min(warmConnections * warmOrigins.size(), 32), r -> {
+                Thread t = new Thread(r, "analyzer-pool-warmer-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            long warmMs = Math.max(1000, properties.getWarmIntervalMs());
+            timer.scheduleWithFixedDelay(this::warm, 0, warmMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void evict() {
+        try {
+            httpClientFactory.evict();
+        } catch (RuntimeException e) {
+            log.warn("Connection pool sweep failed", e);
+        }
+    }
+
+    /**
+     * Sends {@code warm-connections} concurrent HEADs per origin. Running at once, they each
+     * lease a separate connection, reusing the pooled ones and opening the rest.
+     */
+    private void warm() {
+        List<CompletableFuture<Void>> requests = new ArrayList<>();
+        for (String origin : warmOrigins) {
+            for (int i = 0; i < warmConnections; i++) {
+                requests.add(CompletableFuture.runAsync(() -> warm(origin), warmers));
+            }
+        }
+        try {
+            CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0]))
+                    .get(warmTimeoutMs + 1000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException | ExecutionException e) {
+            log.debug("Keep-warm round did not finish: {}", e.toString());
+        }
+    }
+
+    private void warm(String origin) {
+        try {
+            fetcherService.head(origin + "/");
+            metrics.recordWarmup(true);
+        } catch (IOException | RuntimeException e) {
+            metrics.recordWarmup(false);
+            log.debug("Could not warm {}: {}", origin, e.toString());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        timer.shutdownNow();
+        if (warmers != null) {
+            warmers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.analyzer.service;
+
+import com.analyzer.model.CacheStats;
+import com.analyzer.model.Result;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of scored results keyed by normalized URL. Entries are fresh for
+ * a fixed TTL; once stale they are kept (until evicted) so the next request can
+ * revalidate with the stored {@code ETag}/{@code Last-Modified} instead of refetching.
+ * Eviction is by entry count and by an estimate of retained bytes.
+ */
+@Component
+public class ResultCache {
+
+    /** Rough retained size of a Result and its three detail objects. */
+    private static final long BASE_ENTRY_WEIGHT = 1024;
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long maxWeightBytes;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weightBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public ResultCache(@Value("${analyzer.cache.enabled:true}") boolean enabled,
+                       @Value("${analyzer.cache.max-entries:10000}") int maxEntries,
+                       @Value("${analyzer.cache.max-bytes:67108864}") long maxWeightBytes,
+                       @Value("${analyzer.cache.ttl-ms:300000}") long ttlMs) {
+        this.enabled = enabled;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxWeightBytes = Math.max(BASE_ENTRY_WEIGHT, maxWeightBytes);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Returns the entry for {@code url}, fresh or stale, or null. Does not touch the counters. */
+    public synchronized Entry get(String url) {
+        return enabled ? entries.get(url) : null;
+    }
+
+    public void put(String url, Result result, HttpResponse response, long transferBytes, long decodedBytes) {
+        if (!enabled || url.isEmpty()) {
+            return;
+        }
+        Entry entry = new Entry(result, response, transferBytes, decodedBytes, System.nanoTime());
+        synchronized (this) {
+            Entry previous = entries.put(url, entry);
+            if (previous != null) {
+                weightBytes -= previous.weight;
+            }
+            weightBytes += entry.weight;
+
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || weightBytes > maxWeightBytes) && eldest.hasNext()) {
+                Entry evicted = eldest.next().getValue();
+                if (evicted == entry) {
+                    break;
+                }
+                eldest.remove();
+                weightBytes -= evicted.weight;
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public void recordHit() {
+        hits.incrementAndGet();
+    }
+
+    public void recordMiss() {
+        misses.incrementAndGet();
+    }
+
+    public void recordRevalidation() {
+        revalidations.incrementAndGet();
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(entries.size(), weightBytes, hits.get(), misses.get(),
+                revalidations.get(), evictions.get());
+    }
+
+    public class Entry {
+        public final Result result;
+        /** Status line and headers of the response the result was scored from. */
+        public final HttpResponse response;
+        public final String etag;
+        public final String lastModified;
+        public final long transferBytes;
+        public final long decodedBytes;
+        private final long storedAtNanos;
+        private final long weight;
+
+        private Entry(Result result, HttpResponse response, long transferBytes, long decodedBytes,
+                      long storedAtNanos) {
+            this.result = result;
+            this.response = response;
+            this.transferBytes = transferBytes;
+            this.decodedBytes = decodedBytes;
+            this.etag = headerValue(response, HttpHeaders.ETAG);
+            this.lastModified = headerValue(response, HttpHeaders.LAST_MODIFIED);
+            this.storedAtNanos = storedAtNanos;
+
+            long headerChars = 0;
+            for (Header header : response.getHeaders()) {
+                headerChars += header.getName().length() + header.getValue().length();
+            }
+            this.weight = BASE_ENTRY_WEIGHT + 2 * (result.getUrl().length() + headerChars);
+        }
+
+        public boolean isFresh() {
+            return System.nanoTime() - storedAtNanos < ttlNanos;
+        }
+
+        /** Request headers for a conditional GET, empty if the origin sent no validators. */
+        public Map<String, String> validators() {
+            if (etag == null && lastModified == null) {
+                return Collections.emptyMap();
+            }
+            Map<String, String> headers = new HashMap<>();
+            if (etag != null) {
+                headers.put(HttpHeaders.IF_NONE_MATCH, etag);
+            }
+            if (lastModified != null) {
+                headers.put(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+            }
+            return headers;
+        }
+    }
+
+    private static String headerValue(HttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header != null ? header.getValue() : null;
+    }
+}
@@ -0,0 +1,273 @@
+package com.analyzer.service;
+
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.core5.http.ConnectionClosedException;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.NoHttpResponseException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.net.ssl.SSLException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides what happens after a failed page fetch, for both fetchers. Failures are
+ * classified; only transient ones (a dropped connection, 502/503/504, a 429 with a short
+ * Retry-After) are retried, with jittered exponential backoff. HTTPS falls back to HTTP
+ * only when the TLS handshake fails or port 443 refuses, never after a timeout, so a dead
+ * host costs one timeout rather than several. Retries draw on a global budget earned by
+ * first attempts, so they cannot multiply load during an outage, and a per-host circuit
+ * breaker makes hosts that keep failing at the transport level fail fast for a while.
+ */
+@Component
+public class RetryPolicy {
+
+    /** Why a fetch attempt failed. */
+    public enum Failure {
+        DNS, REFUSED, CONNECT_TIMEOUT, TLS, TIMEOUT, RESET, SERVER_ERROR, RATE_LIMITED, OTHER;
+
+        /** Lower-case name, used as a metric tag. */
+        public String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        /** True if the host could not be talked to at all, as opposed to answering badly. */
+        boolean isTransport() {
+            return this == DNS || this == REFUSED || this == CONNECT_TIMEOUT || this == TIMEOUT || this == TLS;
+        }
+    }
+
+    private final AnalyzerMetrics metrics;
+    private final int maxAttempts;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final double budgetRatio;
+    private final double budgetMaxTokens;
+    private final int breakerFailures;
+    private final long breakerOpenNanos;
+    private final int breakerMaxHosts;
+
+    /** Retry tokens; each first attempt adds {@code budgetRatio}, each retry takes one. Guarded by this. */
+    private double tokens;
+    /** Hosts with recent transport failures, access-ordered; guarded by itself. */
+    private final LinkedHashMap<String, Breaker> breakers = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Autowired
+    public RetryPolicy(AnalyzerMetrics metrics,
+                       @Value("${analyzer.retry.max-attempts:3}") int maxAttempts,
+                       @Value("${analyzer.retry.base-backoff-ms:250}") long baseBackoffMs,
+                       @Value("${analyzer.retry.max-backoff-ms:4000}") long maxBackoffMs,
+                       @Value("${analyzer.retry.budget-ratio:0.1}") double budgetRatio,
+                       @Value("${analyzer.retry.budget-max-tokens:50}") double budgetMaxTokens,
+                       @Value("${analyzer.retry.breaker-failures:5}") int breakerFailures,
+                       @Value("${analyzer.retry.breaker-open-ms:30000}") long breakerOpenMs,
+                       @Value("${analyzer.retry.breaker-max-hosts:10000}") int breakerMaxHosts) {
+        this.metrics = metrics;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoffMs = Math.max(1, baseBackoffMs);
+        this.maxBackoffMs = Math.max(this.baseBackoffMs, maxBackoffMs);
+        this.budgetRatio = Math.max(0, budgetRatio);
+        this.budgetMaxTokens = Math.max(0, budgetMaxTokens);
+        this.tokens = this.budgetMaxTokens;
+        this.breakerFailures = Math.max(1, breakerFailures);
+        this.breakerOpenNanos = TimeUnit.MILLISECONDS.toNanos(breakerOpenMs);
+        this.breakerMaxHosts = Math.max(1, breakerMaxHosts);
+        metrics.monitorRetries(this);
+    }
+
+    /** Classifies a fetch exception, unwrapping the async client's wrappers. */
+    public static Failure classify(Throwable error) {
+        Throwable e = error;
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        if (e instanceof UnknownHostException) {
+            return Failure.DNS;
+        }
+        if (e instanceof ConnectTimeoutException) {
+            return Failure.CONNECT_TIMEOUT;
+        }
+        if (e instanceof ConnectException) {
+            return Failure.REFUSED;
+        }
+        if (e instanceof SSLException) {
+            return Failure.TLS;
+        }
+        if (e instanceof InterruptedIOException) {
+            return Failure.TIMEOUT;
+        }
+        if (e instanceof NoHttpResponseException || e instanceof ConnectionClosedException
+                || e instanceof SocketException) {
+            return Failure.RESET;
+        }
+        return Failure.OTHER;
+    }
+
+    /** The retryable failure a received response stands for, or null if there is none. */
+    public static Failure classify(HttpResponse response) {
+        if (response == null) {
+            return null;
+        }
+        switch (response.getCode()) {
+            case HttpStatus.SC_TOO_MANY_REQUESTS:
+                return Failure.RATE_LIMITED;
+            case HttpStatus.SC_BAD_GATEWAY:
+            case HttpStatus.SC_SERVICE_UNAVAILABLE:
+            case HttpStatus.SC_GATEWAY_TIMEOUT:
+                return Failure.SERVER_ERROR;
+            default:
+                return null;
+        }
+    }
+
+    /** True if an HTTPS failure of this kind is worth one attempt over plain HTTP. */
+    public boolean shouldFallBackToHttp(Failure failure) {
+        return failure == Failure.TLS || failure == Failure.REFUSED;
+    }
+
+    /**
+     * Returns how long to wait before retrying after attempt number {@code attempt} (from 1)
+     * failed, or -1 to give up. {@code response} is the failed response, if one arrived.
+     */
+    public long retryDelayMs(Failure failure, int attempt, HttpResponse response) {
+        if (failure == null || attempt >= maxAttempts) {
+            return -1;
+        }
+        long delayMs;
+        switch (failure) {
+            case RESET:
+                delayMs = jitteredBackoff(attempt);
+                break;
+            case SERVER_ERROR:
+            case RATE_LIMITED: {
+                long retryAfterMs = response != null
+                        ? TimeUnit.NANOSECONDS.toMillis(HostScheduler.retryAfterNanos(response)) : 0;
+                if (retryAfterMs > maxBackoffMs || (retryAfterMs <= 0 && failure == Failure.RATE_LIMITED)) {
+                    // Not worth holding a worker for; the host scheduler pauses the host instead.
+                    return -1;
+                }
+                delayMs = retryAfterMs > 0 ? retryAfterMs : jitteredBackoff(attempt);
+                break;
+            }
+            default:
+                return -1;
+        }
+        if (!withdrawToken()) {
+            metrics.recordRetryDenied();
+            return -1;
+        }
+        metrics.recordRetry(failure);
+        return delayMs;
+    }
+
+    /** Call once per fetch, before its first attempt; earns part of a retry for the budget. */
+    public synchronized void onFirstAttempt() {
+        tokens = Math.min(budgetMaxTokens, tokens + budgetRatio);
+    }
+
+    /**
+     * False if {@code host}'s circuit is open and the fetch should fail without a request.
+     * Once the open period ends, one trial fetch is let through to probe the host.
+     */
+    public boolean allowRequest(String host) {
+        long now = System.nanoTime();
+        synchronized (breakers) {
+            Breaker breaker = breakers.get(host);
+            if (breaker == null || breaker.openUntilNanos == 0) {
+                return true;
+            }
+            if (now - breaker.openUntilNanos < 0 || breaker.trialInFlight) {
+                metrics.recordShortCircuit();
+                return false;
+            }
+            breaker.trialInFlight = true;
+            return true;
+        }
+    }
+
+    /** Records a fetch's final outcome for {@code host}; {@code failure} is null on success. */
+    public void recordOutcome(String host, Failure failure) {
+        synchronized (breakers) {
+            if (failure == null || !failure.isTransport()) {
+                breakers.remove(host);
+                return;
+            }
+            Breaker breaker = breakers.get(host);
+            if (breaker == null) {
+                breaker = new Breaker();
+                breakers.put(host, breaker);
+                while (breakers.size() > breakerMaxHosts) {
+                    breakers.remove(breakers.keySet().iterator().next());
+                }
+            }
+            breaker.failures++;
+            if (breaker.trialInFlight || breaker.failures >= breakerFailures) {
+                breaker.openUntilNanos = System.nanoTime() + breakerOpenNanos;
+                breaker.trialInFlight = false;
+            }
+        }
+    }
+
+    /** Hosts whose circuit is currently open. */
+    public int openCircuits() {
+        long now = System.nanoTime();
+        synchronized (breakers) {
+            int open = 0;
+            for (Breaker breaker : breakers.values()) {
+                if (breaker.openUntilNanos != 0 && now - breaker.openUntilNanos < 0) {
+                    open++;
+                }
+            }
+            return open;
+        }
+    }
+
+    public synchronized double availableRetries() {
+        return tokens;
+    }
+
+    /** Full jitter: uniform in [0, min(max, base * 2^(attempt-1))]. */
+    private long jitteredBackoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private synchronized boolean withdrawToken() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    private static class Breaker {
+        int failures;
+        /** 0 while closed. */
+        long openUntilNanos;
+        boolean trialInFlight;
+    }
+
+    /** Outcome of a fetch with its retries: a received response, or the error of the last attempt. */
+    static class Attempt {
+        final FetcherService.FetchResult result;
+        final Failure failure;
+        final String error;
+
+        Attempt(FetcherService.FetchResult result, Failure failure, String error) {
+            this.result = result;
+            this.failure = failure;
+            this.error = error;
+        }
+    }
+}
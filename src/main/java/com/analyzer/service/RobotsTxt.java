@@ -0,0 +1,169 @@
+package com.analyzer.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The parts of a robots.txt that apply to the analyzer: the {@code Sitemap:} lines, and the
+ * {@code Allow}/{@code Disallow} rules and {@code Crawl-delay} of the {@code User-agent: *}
+ * group(s). Rules match as in RFC 9309: longest pattern wins, {@code Allow} on a tie, with
+ * {@code *} and a trailing {@code $} supported.
+ */
+public class RobotsTxt {
+
+    /** Longer Allow/Disallow patterns are dropped; no real path rule comes close. */
+    private static final int MAX_PATTERN_LENGTH = 1024;
+
+    /** Used when an origin has no robots.txt: everything is allowed. */
+    public static final RobotsTxt EMPTY = new RobotsTxt(Collections.emptyList(), Collections.emptyList(), -1);
+
+    private final List<String> sitemaps;
+    private final List<Rule> rules;
+    private final double crawlDelaySeconds;
+
+    private RobotsTxt(List<String> sitemaps, List<Rule> rules, double crawlDelaySeconds) {
+        this.sitemaps = sitemaps;
+        this.rules = rules;
+        this.crawlDelaySeconds = crawlDelaySeconds;
+    }
+
+    /** Parses at most {@code maxLines} lines; malformed lines are ignored. */
+    public static RobotsTxt parse(BufferedReader reader, int maxLines) throws IOException {
+        List<String> sitemaps = new ArrayList<>();
+        List<Rule> rules = new ArrayList<>();
+        double crawlDelay = -1;
+
+        boolean inGroupHeader = false;
+        boolean appliesToUs = false;
+        String line;
+        int lines = 0;
+        while (lines++ < maxLines && (line = reader.readLine()) != null) {
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String field = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+
+            switch (field) {
+                case "user-agent":
+                    // Consecutive user-agent lines share one group; any other line ends the header.
+                    if (!inGroupHeader) {
+                        appliesToUs = false;
+                        inGroupHeader = true;
+                    }
+                    appliesToUs |= value.equals("*");
+                    continue;
+                case "sitemap":
+                    if (!value.isEmpty()) {
+                        sitemaps.add(value);
+                    }
+                    continue;
+                default:
+                    inGroupHeader = false;
+                    break;
+            }
+            if (!appliesToUs) {
+                continue;
+            }
+            switch (field) {
+                case "allow":
+                case "disallow":
+                    // An empty Disallow allows everything, i.e. it adds no rule; overlong patterns are ignored.
+                    if (!value.isEmpty() && value.length() <= MAX_PATTERN_LENGTH) {
+                        rules.add(new Rule(value, field.equals("allow")));
+                    }
+                    break;
+                case "crawl-delay":
+                    try {
+                        crawlDelay = Math.max(crawlDelay, Double.parseDouble(value));
+                    } catch (NumberFormatException e) {
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return new RobotsTxt(sitemaps, rules, crawlDelay);
+    }
+
+    /** Absolute sitemap URLs declared in the file, in order. */
+    public List<String> getSitemaps() {
+        return Collections.unmodifiableList(sitemaps);
+    }
+
+    /** Crawl-delay in seconds for {@code *}, or -1 if none was given. */
+    public double getCrawlDelaySeconds() {
+        return crawlDelaySeconds;
+    }
+
+    /** Whether {@code pathAndQuery} (starting with "/") may be fetched. */
+    public boolean isAllowed(String pathAndQuery) {
+        Rule best = null;
+        for (Rule rule : rules) {
+            if (rule.matches(pathAndQuery) && (best == null
+                    || rule.length() > best.length()
+                    || (rule.length() == best.length() && rule.allow))) {
+                best = rule;
+            }
+        }
+        return best == null || best.allow;
+    }
+
+    private static class Rule {
+        final String pattern;
+        final boolean allow;
+
+        Rule(String pattern, boolean allow) {
+            this.pattern = pattern;
+            this.allow = allow;
+        }
+
+        int length() {
+            return pattern.length();
+        }
+
+        /**
+         * Wildcard match that, on a mismatch, resumes after the most recent {@code *} with one
+         * more path character consumed: O(pattern x path) however many {@code *} there are.
+         * Without a trailing {@code $} a pattern only has to match a prefix of the path.
+         */
+        boolean matches(String path) {
+            boolean anchored = pattern.endsWith("$");
+            int end = anchored ? pattern.length() - 1 : pattern.length();
+            int p = 0;
+            int i = 0;
+            int star = -1;
+            int resumeAt = 0;
+            while (i < path.length()) {
+                if (p == end && !anchored) {
+                    return true;
+                }
+                if (p < end && pattern.charAt(p) == '*') {
+                    star = p++;
+                    resumeAt = i;
+                } else if (p < end && pattern.charAt(p) == path.charAt(i)) {
+                    p++;
+                    i++;
+                } else if (star >= 0) {
+                    p = star + 1;
+                    i = ++resumeAt;
+                } else {
+                    return false;
+                }
+            }
+            while (p < end && pattern.charAt(p) == '*') {
+                p++;
+            }
+            return p == end;
+        }
+    }
+}
@@ -1,66 +1,45 @@
 package com.analyzer.service;
 
+import com.analyzer.html.SeoSignals;
+import com.analyzer.model.LatencySamples;
+import com.analyzer.model.PageWeight;
 import com.analyzer.model.PerformanceDetails;
 import com.analyzer.model.SEODetails;
 import com.analyzer.model.SecurityDetails;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import com.analyzer.scoring.Metric;
+import com.analyzer.scoring.RuleSet;
+import com.analyzer.scoring.ScoreCategory;
 import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpResponse;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
-/** Service for scoring website performance, security, and SEO. */
+/**
+ * Service for scoring website performance, security, and SEO. Each scorer measures its
+ * category's {@link Metric}s; the scores themselves come from the {@link ScoringRules}.
+ */
 @Service
 public class ScorerService {
 
-    @Value("${analyzer.performance.threshold.200}")
-    private int threshold200;
-    
-    @Value("${analyzer.performance.threshold.500}")
-    private int threshold500;
-    
-    @Value("${analyzer.performance.threshold.1000}")
-    private int threshold1000;
-    
-    @Value("${analyzer.performance.threshold.2000}")
-    private int threshold2000;
-    
-    @Value("${analyzer.performance.default-score}")
-    private int defaultScore;
-    
-    @Value("${analyzer.content-size.threshold.300000}")
-    private int contentSizeBonus300k;
-    
-    @Value("${analyzer.content-size.threshold.1000000}")
-    private int contentSizeBonus1m;
-    
-    private Map<Integer, Integer> getPerformanceThresholds() {
-        Map<Integer, Integer> thresholds = new HashMap<>();
-        thresholds.put(200, threshold200);
-        thresholds.put(500, threshold500);
-        thresholds.put(1000, threshold1000);
-        thresholds.put(2000, threshold2000);
-        return thresholds;
-    }
-    
-    private Map<Integer, Integer> getContentSizeLimits() {
-        Map<Integer, Integer> limits = new HashMap<>();
-        limits.put(300_000, contentSizeBonus300k);
-        limits.put(1_000_000, contentSizeBonus1m);
-        return limits;
+    private final AnalyzerMetrics metrics;
+    private final ScoringRules scoringRules;
+
+    @Autowired
+    public ScorerService(AnalyzerMetrics metrics, ScoringRules scoringRules) {
+        this.metrics = metrics;
+        this.scoringRules = scoringRules;
     }
 
-    public BackendProtocol getBackendAndProtocol(CloseableHttpResponse response, String url) {
+    public BackendProtocol getBackendAndProtocol(HttpResponse response, String url) {
         if (response == null) {
             return new BackendProtocol("Unknown", "Unknown");
         }
@@ -71,7 +50,7 @@ public class ScorerService {
         return new BackendProtocol(backend, protocol);
     }
 
-    private String getBackendInfo(CloseableHttpResponse response) {
+    private String getBackendInfo(HttpResponse response) {
         Header serverHeader = response.getFirstHeader("Server");
         Header poweredHeader = response.getFirstHeader("X-Powered-By");
         
@@ -83,7 +62,7 @@ public class ScorerService {
         return parts.isEmpty() ? "Unknown" : String.join(", ", parts);
     }
 
-    private String getProtocolInfo(CloseableHttpResponse response, String url) {
+    private String getProtocolInfo(HttpResponse response, String url) {
         String httpVersion = "HTTP/1.1";
         try {
             if (response.getVersion() != null) {
@@ -96,7 +75,49 @@ public class ScorerService {
         return isHttps ? httpVersion + " over TLS" : httpVersion;
     }
 
-    public ScoringResult<PerformanceDetails> scorePerformance(Double elapsedMs, CloseableHttpResponse response, String htmlContent, String baseUrl) {
+    /**
+     * Scores latency, compression, caching and content size. {@code transferBytes} and
+     * {@code decodedBytes} are the body sizes measured on the wire and after decoding,
+     * or -1 when unknown; content size falls back to {@code Content-Length} in that case.
+     */
+    public ScoringResult<PerformanceDetails> scorePerformance(Double elapsedMs, HttpResponse response,
+                                                              long transferBytes, long decodedBytes) {
+        return scorePerformance(elapsedMs, null, response, transferBytes, decodedBytes, null);
+    }
+
+    /**
+     * As above, with the fetch's phase breakdown. When {@code timings} is present latency
+     * is scored on time-to-first-byte, which excludes pool waits, DNS, connect and TLS,
+     * so the score reflects the target server rather than the analyzer's own load.
+     * {@code links} fills the broken/total link counts; they are reported, not scored.
+     */
+    public ScoringResult<PerformanceDetails> scorePerformance(Double elapsedMs, FetchTimings timings,
+                                                              HttpResponse response,
+                                                              long transferBytes, long decodedBytes,
+                                                              LinkCheckerService.LinkReport links) {
+        return scorePerformance(elapsedMs, timings, response, transferBytes, decodedBytes, links, null, null);
+    }
+
+    /**
+     * As above; when {@code pageWeight} is known, content size is scored on the whole page
+     * (document and subresources) instead of the document alone, and when {@code samples}
+     * are known, latency is scored on their median instead of the single fetch.
+     */
+    public ScoringResult<PerformanceDetails> scorePerformance(Double elapsedMs, FetchTimings timings,
+                                                              HttpResponse response,
+                                                              long transferBytes, long decodedBytes,
+                                                              LinkCheckerService.LinkReport links,
+                                                              PageWeight pageWeight, LatencySamples samples) {
+        return metrics.timeScorer(AnalyzerMetrics.SCORER_PERFORMANCE,
+                () -> computePerformance(elapsedMs, timings, response, transferBytes, decodedBytes, links,
+                        pageWeight, samples));
+    }
+
+    private ScoringResult<PerformanceDetails> computePerformance(Double elapsedMs, FetchTimings timings,
+                                                                 HttpResponse response,
+                                                                 long transferBytes, long decodedBytes,
+                                                                 LinkCheckerService.LinkReport links,
+                                                                 PageWeight pageWeight, LatencySamples samples) {
         if (elapsedMs == null) {
             return new ScoringResult<>(0, new PerformanceDetails(
                 0, 0, "N/A", "", 0, 0, 0, 0
@@ -106,21 +127,13 @@ public class ScorerService {
         String compression = "none";
         String cacheControl = "";
         int contentLengthKb = 0;
-        int latencyScore = 0;
-        int compressionScore = 0;
-        int cachingScore = 0;
-        int contentSizeScore = 0;
-
-        if (elapsedMs <= 200) {
-            latencyScore = 100;
-        } else if (elapsedMs <= 500) {
-            latencyScore = 80;
-        } else if (elapsedMs <= 1000) {
-            latencyScore = 60;
-        } else if (elapsedMs <= 2000) {
-            latencyScore = 40;
-        } else {
-            latencyScore = 0;
+
+        RuleSet.Inputs inputs = scoringRules.current().inputs(ScoreCategory.PERFORMANCE, response);
+        double scoredLatencyMs = samples != null ? samples.getMedianMs()
+                : timings != null ? timings.getTtfbMs() : elapsedMs;
+        inputs.set(Metric.LATENCY_MS, scoredLatencyMs);
+        if (links != null) {
+            inputs.set(Metric.BROKEN_LINKS, links.broken).set(Metric.TOTAL_LINKS, links.total);
         }
 
         if (response != null) {
@@ -128,10 +141,8 @@ public class ScorerService {
             if (encodingHeader != null) {
                 String encoding = encodingHeader.getValue().toLowerCase();
                 if (encoding.contains("br")) {
-                    compressionScore = 100;
                     compression = "br";
                 } else if (encoding.contains("gzip")) {
-                    compressionScore = 50;
                     compression = "gzip";
                 }
             }
@@ -139,153 +150,191 @@ public class ScorerService {
             Header cacheHeader = response.getFirstHeader("Cache-Control");
             if (cacheHeader != null) {
                 cacheControl = cacheHeader.getValue();
-                if (cacheControl.contains("public") || cacheControl.contains("immutable")) {
-                    cachingScore = 100;
-                } else if (cacheControl.contains("max-age")) {
-                    cachingScore = 50;
-                }
             }
 
+            long contentLength = transferBytes;
             Header contentLengthHeader = response.getFirstHeader("Content-Length");
             if (contentLengthHeader != null) {
                 try {
-                    long contentLength = Long.parseLong(contentLengthHeader.getValue());
-                    contentLengthKb = (int) (contentLength / 1024);
-                    
-                    if (contentLength <= 300_000) {
-                        contentSizeScore = 100;
-                    } else if (contentLength <= 1_000_000) {
-                        contentSizeScore = 50;
-                    }
+                    contentLength = Math.max(contentLength, Long.parseLong(contentLengthHeader.getValue()));
                 } catch (NumberFormatException e) {
                 }
             }
+            if (contentLength >= 0) {
+                contentLengthKb = (int) (contentLength / 1024);
+                inputs.set(Metric.CONTENT_BYTES, contentLength);
+            }
+        }
+        if (pageWeight != null) {
+            inputs.set(Metric.PAGE_BYTES, pageWeight.getTotalBytes());
         }
 
-        int finalScore = (latencyScore + compressionScore + cachingScore + contentSizeScore) / 4;
-        finalScore = Math.max(0, Math.min(100, finalScore));
-        
-        return new ScoringResult<>(finalScore, new PerformanceDetails(
-            elapsedMs, latencyScore, compression, cacheControl, contentLengthKb, 0, 0, finalScore
-        ));
+        int finalScore = inputs.evaluate();
+        int latencyScore = inputs.score("latency");
+
+        PerformanceDetails details = new PerformanceDetails(
+            elapsedMs, latencyScore, compression, cacheControl, contentLengthKb,
+            links != null ? links.broken : 0, links != null ? links.total : 0, finalScore
+        );
+        details.setTransferBytes(transferBytes);
+        details.setDecodedBytes(decodedBytes);
+        details.setPageWeight(pageWeight);
+        details.setLatencySamples(samples);
+        details.setChecks(inputs.checks());
+        if (timings != null) {
+            details.setDnsMs(timings.getDnsMs());
+            details.setConnectMs(timings.getConnectMs());
+            details.setTlsMs(timings.getTlsMs());
+            details.setTtfbMs(timings.getTtfbMs());
+            details.setDownloadMs(timings.getDownloadMs());
+            details.setConnectionReused(timings.isConnectionReused());
+            details.setDnsCached(timings.isDnsCached());
+            details.setTlsResumed(timings.isTlsResumed());
+        }
+        return new ScoringResult<>(finalScore, details);
     }
 
-    public ScoringResult<SecurityDetails> scoreSecurity(String url, CloseableHttpResponse response) {
+    public ScoringResult<SecurityDetails> scoreSecurity(String url, HttpResponse response) {
+        return metrics.timeScorer(AnalyzerMetrics.SCORER_SECURITY, () -> computeSecurity(url, response));
+    }
+
+    private ScoringResult<SecurityDetails> computeSecurity(String url, HttpResponse response) {
         if (response == null) {
             return new ScoringResult<>(0, new SecurityDetails(
                 false, false, false, false, false, false, 0
             ));
         }
 
-        int httpsScore = 0;
-        int hstsScore = 0;
-        int cspScore = 0;
-        int xContentTypeScore = 0;
-        int xFrameScore = 0;
-
         boolean https = url.toLowerCase().startsWith("https://");
-        httpsScore = https ? 100 : 0;
+        RuleSet.Inputs inputs = scoringRules.current().inputs(ScoreCategory.SECURITY, response);
+        int finalScore = inputs.set(Metric.HTTPS, https).evaluate();
 
         boolean hsts = response.getFirstHeader("Strict-Transport-Security") != null;
-        hstsScore = hsts ? 100 : 0;
-
         boolean csp = response.getFirstHeader("Content-Security-Policy") != null;
-        cspScore = csp ? 100 : 0;
 
         Header xContentTypeHeader = response.getFirstHeader("X-Content-Type-Options");
         boolean xContentTypeOptions = xContentTypeHeader != null && 
                 xContentTypeHeader.getValue().toLowerCase().equals("nosniff");
-        xContentTypeScore = xContentTypeOptions ? 100 : 0;
 
         Header xfoHeader = response.getFirstHeader("X-Frame-Options");
         Header cspHeader = response.getFirstHeader("Content-Security-Policy");
         boolean xFrameOptions = xfoHeader != null || 
-                (cspHeader != null && cspHeader.getValue().contains("frame-ancestors"));
-        xFrameScore = xFrameOptions ? 100 : 0;
+                (cspHeader != null && RuleSet.containsIgnoreCase(cspHeader.getValue(), "frame-ancestors"));
 
-        int finalScore = (httpsScore + hstsScore + cspScore + xContentTypeScore + xFrameScore) / 5;
-        finalScore = Math.max(0, Math.min(100, finalScore));
-
-        return new ScoringResult<>(finalScore, new SecurityDetails(
+        SecurityDetails details = new SecurityDetails(
             https, hsts, csp, xContentTypeOptions, xFrameOptions, false, finalScore
-        ));
+        );
+        details.setChecks(inputs.checks());
+        return new ScoringResult<>(finalScore, details);
     }
 
+    /**
+     * Reference SEO scorer: builds a full Jsoup DOM and queries it. The analysis pipeline
+     * uses {@link #scoreSEO(SeoSignals)} instead; both must produce the same result.
+     */
     public ScoringResult<SEODetails> scoreSEO(String htmlContent) {
         if (htmlContent == null || htmlContent.isEmpty()) {
-            return new ScoringResult<>(0, new SEODetails(
-                false, false, false, false, false, false, 0, false, false, 0
-            ));
+            return scoreSEO((SeoSignals) null);
         }
 
-        int pageTitleScore = 0;
-        int metaDescScore = 0;
-        int headingScore = 0;
-        int mobileScore = 0;
-        int altTextScore = 0;
-
+        long parseStart = System.nanoTime();
         Document doc = Jsoup.parse(htmlContent);
-        
-        Element titleTag = doc.selectFirst("title");
-        boolean hasPageTitle = false;
-        if (titleTag != null) {
-            int titleLength = titleTag.text().length();
-            if (titleLength >= 20 && titleLength <= 60) {
-                pageTitleScore = 100;
-                hasPageTitle = true;
-            } else if (titleLength > 0) {
-                pageTitleScore = 50;
-            }
-        }
+        metrics.recordParse(AnalyzerMetrics.PARSER_JSOUP, System.nanoTime() - parseStart);
 
+        Element titleTag = doc.selectFirst("title");
         Element metaDescription = doc.selectFirst("meta[name=description]");
-        boolean hasMetaTags = metaDescription != null;
-        boolean hasMetaDescriptionOptimal = false;
-        if (metaDescription != null) {
-            String description = metaDescription.attr("content");
-            int descLength = description.length();
-            if (descLength >= 120 && descLength <= 160) {
-                metaDescScore = 100;
-                hasMetaDescriptionOptimal = true;
-            } else if (descLength > 0) {
-                metaDescScore = 50;
-            }
-        }
-
         Elements h1Tags = doc.select("h1");
         Elements h2Tags = doc.select("h2");
-        boolean hasHeadingStructure = h1Tags.size() > 0 && h2Tags.size() > 0;
-        if (h1Tags.size() > 0 && h2Tags.size() > 0) {
-            headingScore = 100;
-        } else if (h1Tags.size() > 0) {
-            headingScore = 50;
-        }
-
         Element viewportTag = doc.selectFirst("meta[name=viewport]");
-        boolean isMobileFriendly = viewportTag != null;
-        mobileScore = isMobileFriendly ? 100 : 0;
+        Element canonicalTag = doc.selectFirst("link[rel=canonical][href]");
 
         Elements images = doc.select("img");
-        int imagesWithAlt = 0;
+        int altCount = 0;
         for (Element img : images) {
             if (img.hasAttr("alt") && !img.attr("alt").isEmpty()) {
-                imagesWithAlt++;
+                altCount++;
             }
         }
-        int imageAltTextPercentage = images.size() > 0 ? 
-            Math.round((imagesWithAlt * 100f) / images.size()) : 0;
-        altTextScore = imageAltTextPercentage;
+        int imagesWithAlt = altCount;
+
+        return metrics.timeScorer(AnalyzerMetrics.SCORER_SEO, () -> computeSEO(
+            titleTag != null ? titleTag.text() : null,
+            metaDescription != null ? metaDescription.attr("content") : null,
+            h1Tags.size(), h2Tags.size(), viewportTag != null,
+            images.size(), imagesWithAlt,
+            canonicalTag != null && !canonicalTag.attr("href").trim().isEmpty(), null, null
+        ));
+    }
 
-        int finalScore = (pageTitleScore + metaDescScore + headingScore + mobileScore + altTextScore) / 5;
-        finalScore = Math.max(0, Math.min(100, finalScore));
-        
-        return new ScoringResult<>(finalScore, new SEODetails(
-            hasMetaTags, hasHeadingStructure, isMobileFriendly, false,
-            false, false, imageAltTextPercentage, hasPageTitle,
-            hasMetaDescriptionOptimal, finalScore
+    /** Scores signals collected by a single {@link com.analyzer.html.HtmlScanner} pass; null means no HTML. */
+    public ScoringResult<SEODetails> scoreSEO(SeoSignals signals) {
+        return scoreSEO(signals, null);
+    }
+
+    /** As above, with the robots.txt and sitemap findings for the page's origin, if known. */
+    public ScoringResult<SEODetails> scoreSEO(SeoSignals signals, OriginResourceService.OriginResources origin) {
+        return scoreSEO(signals, origin, null);
+    }
+
+    /** As above; header rules of the SEO category test {@code response}, if given. */
+    public ScoringResult<SEODetails> scoreSEO(SeoSignals signals, OriginResourceService.OriginResources origin,
+                                              HttpResponse response) {
+        if (signals == null) {
+            return new ScoringResult<>(0, new SEODetails(
+                false, false, false, false, false, false, 0, false, false, 0
+            ));
+        }
+        return metrics.timeScorer(AnalyzerMetrics.SCORER_SEO, () -> computeSEO(
+            signals.getTitle(), signals.getMetaDescription(),
+            signals.getH1Count(), signals.getH2Count(), signals.hasViewport(),
+            signals.getImageCount(), signals.getImagesWithAlt(), signals.hasCanonical(), origin, response
         ));
     }
 
+    private ScoringResult<SEODetails> computeSEO(String title, String metaDescription, int h1Count, int h2Count,
+                                                 boolean hasViewport, int imageCount, int imagesWithAlt,
+                                                 boolean hasCanonical,
+                                                 OriginResourceService.OriginResources origin,
+                                                 HttpResponse response) {
+        int imageAltTextPercentage = imageCount > 0 ?
+            Math.round((imagesWithAlt * 100f) / imageCount) : 0;
+
+        RuleSet.Inputs inputs = scoringRules.current().inputs(ScoreCategory.SEO, response);
+        if (title != null) {
+            inputs.set(Metric.TITLE_LENGTH, title.length());
+        }
+        if (metaDescription != null) {
+            inputs.set(Metric.META_DESCRIPTION_LENGTH, metaDescription.length());
+        }
+        inputs.set(Metric.H1_COUNT, h1Count)
+                .set(Metric.H2_COUNT, h2Count)
+                .set(Metric.VIEWPORT, hasViewport)
+                .set(Metric.CANONICAL, hasCanonical)
+                .set(Metric.IMAGE_COUNT, imageCount)
+                .set(Metric.IMAGE_ALT_PERCENT, imageAltTextPercentage);
+        if (origin != null) {
+            inputs.set(Metric.ROBOTS_TXT, origin.hasRobotsTxt).set(Metric.SITEMAP, origin.hasSitemap);
+        }
+        int finalScore = inputs.evaluate();
+
+        boolean hasPageTitle = title != null && title.length() >= 20 && title.length() <= 60;
+        boolean hasMetaTags = metaDescription != null;
+        boolean hasMetaDescriptionOptimal = metaDescription != null
+                && metaDescription.length() >= 120 && metaDescription.length() <= 160;
+        boolean hasHeadingStructure = h1Count > 0 && h2Count > 0;
+
+        SEODetails details = new SEODetails(
+            hasMetaTags, hasHeadingStructure, hasViewport, hasCanonical,
+            origin != null && origin.hasRobotsTxt, origin != null && origin.hasSitemap,
+            imageAltTextPercentage, hasPageTitle, hasMetaDescriptionOptimal, finalScore
+        );
+        if (origin != null) {
+            details.setSitemapUrls(origin.sitemapUrls);
+        }
+        details.setChecks(inputs.checks());
+        return new ScoringResult<>(finalScore, details);
+    }
+
     public static class BackendProtocol {
         public final String backend;
         public final String protocol;
@@ -0,0 +1,60 @@
+package com.analyzer.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latency and content size thresholds set as properties rather than in a rule file:
+ * {@code analyzer.performance.threshold.<ms>=<score>}, {@code analyzer.performance.default-score}
+ * and {@code analyzer.content-size.score.<bytes>=<score>}. When set, they replace the
+ * matching cases of the built-in rules; scores are 0-100, like every check's.
+ */
+@Component
+@ConfigurationProperties(prefix = "analyzer")
+public class ScoringProperties {
+
+    private final Performance performance = new Performance();
+    private final ContentSize contentSize = new ContentSize();
+
+    public Performance getPerformance() { return performance; }
+
+    public ContentSize getContentSize() { return contentSize; }
+
+    /** Whether any threshold property is set. */
+    public boolean isSet() {
+        return !performance.threshold.isEmpty() || performance.defaultScore != null
+                || !contentSize.score.isEmpty();
+    }
+
+    public static class Performance {
+        private Map<Long, Integer> threshold = new LinkedHashMap<>();
+        private Integer defaultScore;
+
+        /** Latency score by upper bound in ms; a page takes the score of the lowest bound it is within. */
+        public Map<Long, Integer> getThreshold() { return threshold; }
+        public void setThreshold(Map<Long, Integer> threshold) { this.threshold = threshold; }
+
+        /** Latency score above every bound. */
+        public Integer getDefaultScore() { return defaultScore; }
+        public void setDefaultScore(Integer defaultScore) { this.defaultScore = defaultScore; }
+    }
+
+    public static class ContentSize {
+        private Map<Long, Integer> score = new LinkedHashMap<>();
+        private Map<Long, Integer> threshold = new LinkedHashMap<>();
+
+        /** Content size score by upper bound in bytes, when page weight is not measured. */
+        public Map<Long, Integer> getScore() { return score; }
+        public void setScore(Map<Long, Integer> score) { this.score = score; }
+
+        /**
+         * The old {@code analyzer.content-size.threshold.*} bonus points, added on top of a
+         * score. Only read to reject them: as 0-100 scores they would rate small pages 10.
+         */
+        public Map<Long, Integer> getThreshold() { return threshold; }
+        public void setThreshold(Map<Long, Integer> threshold) { this.threshold = threshold; }
+    }
+}
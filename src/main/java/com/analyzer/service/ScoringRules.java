@@ -0,0 +1,230 @@
+package com.analyzer.service;
+
+import com.analyzer.model.ScoringRulesStatus;
+import com.analyzer.scoring.CaseDefinition;
+import com.analyzer.scoring.CheckDefinition;
+import com.analyzer.scoring.RuleSet;
+import com.analyzer.scoring.RuleSetDefinition;
+import com.analyzer.scoring.ScoreCategory;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the scoring rules in use. They come from {@code scoring-rules.json} on the classpath,
+ * or from {@code analyzer.scoring.rules-file} when set; that file is checked every
+ * {@code analyzer.scoring.reload-interval-ms} and recompiled when it changes, without a
+ * restart. A file that does not parse or compile is reported in {@link #status()} and the
+ * previous rules stay in use. Scorers read {@link #current()} once per page, so a page is
+ * always scored by a single version. The thresholds in {@link ScoringProperties} adjust the
+ * built-in rules; with a rule file they belong in the file, and setting them is an error.
+ */
+@Component
+public class ScoringRules implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ScoringRules.class);
+
+    static final String BUILT_IN = "scoring-rules.json";
+
+    private final ObjectReader reader;
+    private final ScoringProperties thresholds;
+    private final Path file;
+    private final ScheduledExecutorService watcher;
+    private volatile RuleSet current;
+
+    // Guarded by this.
+    private long version;
+    private String error;
+    private FileTime lastModified;
+    private long lastSize = -1;
+
+    @Autowired
+    public ScoringRules(ScoringProperties thresholds,
+                        @Value("${analyzer.scoring.rules-file:}") String file,
+                        @Value("${analyzer.scoring.reload-interval-ms:5000}") long reloadIntervalMs) {
+        // A typo in a rule file must be an error, not a silently ignored field.
+        this.reader = new ObjectMapper()
+                .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .readerFor(RuleSetDefinition.class);
+        this.thresholds = thresholds;
+        this.file = file.trim().isEmpty() ? null : Paths.get(file.trim());
+        if (!thresholds.getContentSize().getThreshold().isEmpty()) {
+            throw new IllegalStateException("analyzer.content-size.threshold.* (bonus points) is no longer read: "
+                    + "content size is scored 0-100 like every other check. Set the scores as "
+                    + "analyzer.content-size.score.<bytes>=<score>, e.g. analyzer.content-size.score.300000=100, "
+                    + "or remove the old properties to keep the built-in rules");
+        }
+        if (this.file != null && thresholds.isSet()) {
+            throw new IllegalStateException("analyzer.performance.threshold.*, analyzer.performance.default-score and "
+                    + "analyzer.content-size.score.* only adjust the built-in scoring rules; put the thresholds in "
+                    + this.file + " instead");
+        }
+        try {
+            this.current = load();
+            this.version = 1;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid scoring rules in " + source() + ": " + e.getMessage(), e);
+        }
+        if (this.file != null && reloadIntervalMs > 0) {
+            this.watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "analyzer-scoring-rules");
+                t.setDaemon(true);
+                return t;
+            });
+            watcher.scheduleWithFixedDelay(this::poll, reloadIntervalMs, reloadIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.watcher = null;
+        }
+    }
+
+    public RuleSet current() {
+        return current;
+    }
+
+    /** Reloads the rules now; on failure the previous rules stay and the status carries the error. */
+    public synchronized ScoringRulesStatus reload() {
+        try {
+            RuleSet rules = load();
+            current = rules;
+            version++;
+            error = null;
+            log.info("Loaded scoring rules version {} from {}", version, rules.getSource());
+        } catch (IOException | IllegalArgumentException e) {
+            error = describe(e);
+            log.warn("Rejected scoring rules from {}, keeping version {}: {}", source(), version, error);
+        }
+        return status();
+    }
+
+    public synchronized ScoringRulesStatus status() {
+        RuleSet rules = current;
+        Map<String, Integer> checks = new LinkedHashMap<>();
+        for (ScoreCategory category : ScoreCategory.values()) {
+            checks.put(category.key(), rules.checkCount(category));
+        }
+        return new ScoringRulesStatus(rules.getSource(), version, rules.getLoadedAt(), checks, error);
+    }
+
+    private RuleSet load() throws IOException {
+        if (file == null) {
+            try (InputStream in = new ClassPathResource(BUILT_IN).getInputStream()) {
+                RuleSetDefinition definition = reader.readValue(in);
+                applyThresholds(definition);
+                return RuleSet.compile(definition, source());
+            }
+        }
+        // Remembered before reading, so a bad file is not retried until it changes again.
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        lastModified = attributes.lastModifiedTime();
+        lastSize = attributes.size();
+        return RuleSet.compile(reader.readValue(Files.readAllBytes(file)), source());
+    }
+
+    /**
+     * Replaces the cases of the built-in latency check, and the content size cases that apply
+     * without page weight, with the configured thresholds, lowest bound first.
+     */
+    private void applyThresholds(RuleSetDefinition definition) {
+        for (CheckDefinition check : definition.getPerformance()) {
+            if (check.getId().equals("latency")) {
+                if (!thresholds.getPerformance().getThreshold().isEmpty()) {
+                    check.setCases(cases(thresholds.getPerformance().getThreshold()));
+                }
+                if (thresholds.getPerformance().getDefaultScore() != null) {
+                    check.setOtherwise(thresholds.getPerformance().getDefaultScore());
+                }
+            } else if (check.getId().equals("content_size") && !thresholds.getContentSize().getScore().isEmpty()) {
+                List<CaseDefinition> cases = new ArrayList<>();
+                for (CaseDefinition c : check.getCases()) {
+                    // The page_bytes cases, which name their metric.
+                    if (c.getMetric() != null) {
+                        cases.add(c);
+                    }
+                }
+                cases.addAll(cases(thresholds.getContentSize().getScore()));
+                check.setCases(cases);
+            }
+        }
+    }
+
+    private static List<CaseDefinition> cases(Map<Long, Integer> scoreByBound) {
+        List<CaseDefinition> cases = new ArrayList<>();
+        for (Map.Entry<Long, Integer> bound : new TreeMap<>(scoreByBound).entrySet()) {
+            CaseDefinition c = new CaseDefinition();
+            c.setMax(bound.getKey().doubleValue());
+            c.setScore(bound.getValue());
+            cases.add(c);
+        }
+        return cases;
+    }
+
+    /** Reloads when the rule file's modification time or size has changed. */
+    private synchronized void poll() {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (attributes.lastModifiedTime().equals(lastModified) && attributes.size() == lastSize) {
+                return;
+            }
+        } catch (IOException e) {
+            String message = "Cannot read " + file + ": " + e;
+            if (!message.equals(error)) {
+                error = message;
+                log.warn("{}; keeping scoring rules version {}", message, version);
+            }
+            return;
+        }
+        reload();
+    }
+
+    /** Jackson's message without the echoed file content, which can be the whole rule file. */
+    private static String describe(Exception e) {
+        if (e instanceof JsonProcessingException) {
+            JsonProcessingException json = (JsonProcessingException) e;
+            JsonLocation location = json.getLocation();
+            return location == null ? json.getOriginalMessage()
+                    : json.getOriginalMessage() + " (line " + location.getLineNr() + ", column " + location.getColumnNr() + ")";
+        }
+        return e.getMessage();
+    }
+
+    private String source() {
+        if (file != null) {
+            return file.toString();
+        }
+        return "classpath:" + BUILT_IN + (thresholds.isSet() ? " with analyzer.* thresholds" : "");
+    }
+
+    @Override
+    public void destroy() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.analyzer.service;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streaming reader for sitemaps and sitemap indexes (sitemaps.org). The document is pulled
+ * through StAX one event at a time, so memory stays flat however large it is; only the
+ * child sitemap locations of an index are kept, up to a limit. Gzip files ({@code .xml.gz},
+ * served without a {@code Content-Encoding}) are detected by their magic bytes.
+ */
+public final class SitemapReader {
+
+    private static final XMLInputFactory XML = XMLInputFactory.newFactory();
+
+    static {
+        XML.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XML.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    }
+
+    private SitemapReader() {
+    }
+
+    /**
+     * Reads at most {@code maxBytes} of (decompressed) XML. Returns null if the document is
+     * not a sitemap; a sitemap cut short by the limit or by malformed XML keeps what was read.
+     */
+    public static Sitemap read(InputStream body, long maxBytes, int maxChildren) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(body, 16 * 1024);
+        in.mark(2);
+        int b1 = in.read();
+        int b2 = in.read();
+        in.reset();
+        InputStream xml = b1 == 0x1f && b2 == 0x8b ? new GZIPInputStream(in, 16 * 1024) : in;
+        LimitedInputStream limited = new LimitedInputStream(xml, maxBytes);
+
+        XMLStreamReader reader;
+        try {
+            reader = XML.createXMLStreamReader(limited);
+        } catch (XMLStreamException e) {
+            return null;
+        }
+        Boolean index = null;
+        long entries = 0;
+        List<String> children = new ArrayList<>();
+        boolean inLoc = false;
+        StringBuilder loc = new StringBuilder();
+        boolean complete = false;
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if (index == null) {
+                        if (!name.equals("urlset") && !name.equals("sitemapindex")) {
+                            return null;
+                        }
+                        index = name.equals("sitemapindex");
+                    } else if (name.equals(index ? "sitemap" : "url")) {
+                        entries++;
+                    } else if (index && name.equals("loc")) {
+                        inLoc = true;
+                        loc.setLength(0);
+                    }
+                } else if (inLoc && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA)) {
+                    loc.append(reader.getText());
+                } else if (inLoc && event == XMLStreamConstants.END_ELEMENT) {
+                    inLoc = false;
+                    String child = loc.toString().trim();
+                    if (!child.isEmpty() && children.size() < maxChildren) {
+                        children.add(child);
+                    }
+                }
+            }
+            complete = true;
+        } catch (XMLStreamException e) {
+            if (index == null) {
+                return null;
+            }
+        } finally {
+            try {
+                reader.close();
+            } catch (XMLStreamException ignored) {
+            }
+        }
+        if (index == null) {
+            return null;
+        }
+        return new Sitemap(index, entries, children, !complete || limited.exhausted);
+    }
+
+    /** A sitemap's entry count; for an index, entries are child sitemaps and some are listed. */
+    public static class Sitemap {
+        public final boolean index;
+        public final long entries;
+        public final List<String> children;
+        /** True if the document was cut short by the size limit or by malformed XML. */
+        public final boolean truncated;
+
+        public Sitemap(boolean index, long entries, List<String> children, boolean truncated) {
+            this.index = index;
+            this.entries = entries;
+            this.children = children;
+            this.truncated = truncated;
+        }
+    }
+
+    /** Ends the stream after {@code limit} bytes, so an oversized sitemap is cut short, not read in full. */
+    private static class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+        private boolean exhausted;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                exhausted = true;
+                return -1;
+            }
+            int b = super.read();
+            if (b != -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                exhausted = true;
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+    }
+}
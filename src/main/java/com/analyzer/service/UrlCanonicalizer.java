@@ -0,0 +1,88 @@
+package com.analyzer.service;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reduces equivalent URLs to one spelling so a crawl visits each page once. Beyond
+ * {@link FetcherService#normalizeUrl}: scheme and host are lower-cased, default ports,
+ * fragments and {@code .}/{@code ..} segments are removed, an empty path becomes "/",
+ * and query parameters are sorted with common tracking parameters dropped.
+ */
+public final class UrlCanonicalizer {
+
+    private UrlCanonicalizer() {
+    }
+
+    /** Returns the canonical form of an absolute http(s) URL, or null if it is not one. */
+    public static String canonicalize(String url) {
+        if (url == null) {
+            return null;
+        }
+        URI uri;
+        try {
+            uri = new URI(url.trim().replace(" ", "%20")).normalize();
+        } catch (URISyntaxException e) {
+            return null;
+        }
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : null;
+        String host = uri.getHost() != null ? uri.getHost().toLowerCase(Locale.ROOT) : null;
+        if (host == null || !("http".equals(scheme) || "https".equals(scheme))) {
+            return null;
+        }
+
+        StringBuilder out = new StringBuilder(url.length());
+        out.append(scheme).append("://").append(host);
+        int port = uri.getPort();
+        if (port != -1 && !(port == 80 && scheme.equals("http")) && !(port == 443 && scheme.equals("https"))) {
+            out.append(':').append(port);
+        }
+        String path = uri.getRawPath();
+        out.append(path == null || path.isEmpty() ? "/" : path);
+        String query = canonicalQuery(uri.getRawQuery());
+        if (query != null) {
+            out.append('?').append(query);
+        }
+        return out.toString();
+    }
+
+    /** {@code scheme://host[:port]} of a canonical URL. */
+    public static String originOf(String canonicalUrl) {
+        int pathStart = canonicalUrl.indexOf('/', canonicalUrl.indexOf("://") + 3);
+        return pathStart >= 0 ? canonicalUrl.substring(0, pathStart) : canonicalUrl;
+    }
+
+    /** Path and query of a canonical URL, as robots.txt rules match them. */
+    public static String pathAndQueryOf(String canonicalUrl) {
+        int pathStart = canonicalUrl.indexOf('/', canonicalUrl.indexOf("://") + 3);
+        return pathStart >= 0 ? canonicalUrl.substring(pathStart) : "/";
+    }
+
+    private static String canonicalQuery(String query) {
+        if (query == null || query.isEmpty()) {
+            return null;
+        }
+        List<String> params = new ArrayList<>();
+        for (String param : query.split("&")) {
+            if (!param.isEmpty() && !isTrackingParameter(param)) {
+                params.add(param);
+            }
+        }
+        if (params.isEmpty()) {
+            return null;
+        }
+        Collections.sort(params);
+        return String.join("&", params);
+    }
+
+    private static boolean isTrackingParameter(String param) {
+        int eq = param.indexOf('=');
+        String name = (eq >= 0 ? param.substring(0, eq) : param).toLowerCase(Locale.ROOT);
+        return name.startsWith("utm_") || name.equals("gclid") || name.equals("fbclid")
+                || name.equals("msclkid") || name.equals("mc_cid") || name.equals("mc_eid");
+    }
+}
@@ -0,0 +1,88 @@
+package com.analyzer.service;
+
+/**
+ * Set of URLs held only as 64-bit hashes in an open-addressing {@code long[]}, about 16-32
+ * bytes per URL instead of a few hundred for a {@code HashSet<String>}. With 64 bits a false
+ * "already seen" is vanishingly unlikely below billions of URLs, which is fine for a crawl
+ * frontier where the cost of one is a skipped page. Not thread-safe.
+ */
+public class UrlHashSet {
+
+    private long[] table;
+    private int size;
+
+    public UrlHashSet(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        this.table = new long[capacity];
+    }
+
+    /** Adds {@code url}; returns false if it (or a URL with the same hash) was already present. */
+    public boolean add(String url) {
+        if ((size + 1) * 2 > table.length) {
+            grow();
+        }
+        return insert(table, hash(url));
+    }
+
+    public boolean contains(String url) {
+        long hash = hash(url);
+        int mask = table.length - 1;
+        for (int i = spread(hash) & mask; table[i] != 0; i = (i + 1) & mask) {
+            if (table[i] == hash) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private boolean insert(long[] slots, long hash) {
+        int mask = slots.length - 1;
+        int i = spread(hash) & mask;
+        while (slots[i] != 0) {
+            if (slots[i] == hash) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        slots[i] = hash;
+        size++;
+        return true;
+    }
+
+    private void grow() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        size = 0;
+        for (long hash : old) {
+            if (hash != 0) {
+                insert(table, hash);
+            }
+        }
+    }
+
+    private static int spread(long hash) {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /** FNV-1a over the UTF-16 code units with a murmur3 finalizer; 0 is reserved for empty slots. */
+    static long hash(CharSequence s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h != 0 ? h : 1;
+    }
+}
@@ -11,10 +11,10 @@ document.getElementById("analyzeBtn").addEventListener("click", async () => {
     return;
   }
 
-  resultsDiv.innerHTML = "<p>Analyzing...</p>";
+  resultsDiv.innerHTML = `<p>Analyzing... (0 / ${urls.length})</p>`;
 
   try {
-    const response = await fetch("http://localhost:8080/analyze", {
+    const response = await fetch("http://localhost:8080/analyze/stream", {
       method: "POST",
       headers: { "Content-Type": "application/json" },
       body: JSON.stringify({ urls })
@@ -22,13 +22,60 @@ document.getElementById("analyzeBtn").addEventListener("click", async () => {
     if (!response.ok) {
       throw new Error(`HTTP ${response.status}`);
     }
-    const results = await response.json();
 
-    results.forEach(r => r.total = Math.round((r.performance + r.security + r.seo) / 3));
-    results.sort((a, b) => b.total - a.total);
+    // Results arrive as newline-delimited JSON; re-render the ranking as each one lands.
+    const results = [];
+    const openDetails = new Set();
+    const reader = response.body.getReader();
+    const decoder = new TextDecoder();
+    let buffered = "";
+    let renderPending = false;
 
-    // Build table
-    let tableHTML = `
+    const scheduleRender = () => {
+      if (!renderPending) {
+        renderPending = true;
+        requestAnimationFrame(() => {
+          renderPending = false;
+          renderTable(resultsDiv, results, urls.length, openDetails);
+        });
+      }
+    };
+
+    while (true) {
+      const { done, value } = await reader.read();
+      if (done) break;
+      buffered += decoder.decode(value, { stream: true });
+      let newline;
+      while ((newline = buffered.indexOf("\n")) >= 0) {
+        const line = buffered.slice(0, newline).trim();
+        buffered = buffered.slice(newline + 1);
+        if (line) {
+          const r = JSON.parse(line);
+          r.total = Math.round((r.performance + r.security + r.seo) / 3);
+          results.push(r);
+        }
+      }
+      scheduleRender();
+    }
+    if (buffered.trim()) {
+      const r = JSON.parse(buffered);
+      r.total = Math.round((r.performance + r.security + r.seo) / 3);
+      results.push(r);
+    }
+    renderTable(resultsDiv, results, urls.length, openDetails);
+  } catch (e) {
+    console.error(e);
+    resultsDiv.innerHTML = `<p>Error: ${e.message}. Is the API running at http://localhost:8000? Check the URL list and try again.</p>`;
+  }
+});
+
+function renderTable(resultsDiv, results, expected, openDetails) {
+  const ranked = results.slice().sort((a, b) => b.total - a.total);
+
+  let tableHTML = results.length < expected
+    ? `<p>Analyzing... (${results.length} / ${expected})</p>`
+    : "";
+  tableHTML += `
     <table class="rank-table">
       <thead>
         <tr>
@@ -44,84 +91,93 @@ document.getElementById("analyzeBtn").addEventListener("click", async () => {
       <tbody>
   `;
 
-    results.forEach((r, i) => {
-      tableHTML += `
-      <tr>
-        <td>${i + 1}</td>
-        <td>${r.url}</td>
-        <td>${r.performance}</td>
-        <td>${r.security}</td>
-        <td>${r.seo}</td>
-        <td><strong>${r.total}</strong></td>
-        <td><button class="toggle-btn" data-target="details-${i}">Show</button></td>
-      </tr>
-      <tr id="details-${i}" class="details-row" style="display:none;">
-        <td colspan="7">
-          <div style="padding: 15px; text-align: left;">
-            <h4>Backend & Protocol</h4>
-            <p><strong>Backend:</strong> ${r.backend}</p>
-            <p><strong>Protocols:</strong> ${r.protocols}</p>
-            <p><strong>Response Time:</strong> ${r.response_time}</p>
+  ranked.forEach((r, i) => {
+    const open = openDetails.has(r.url);
+    tableHTML += `
+    <tr>
+      <td>${i + 1}</td>
+      <td>${r.url}</td>
+      <td>${r.performance}</td>
+      <td>${r.security}</td>
+      <td>${r.seo}</td>
+      <td><strong>${r.total}</strong></td>
+      <td><button class="toggle-btn" data-url="${r.url}" data-target="details-${i}">${open ? "Hide" : "Show"}</button></td>
+    </tr>
+    <tr id="details-${i}" class="details-row" style="display:${open ? "table-row" : "none"};">
+      <td colspan="7">
+        <div style="padding: 15px; text-align: left;">
+          <h4>Backend & Protocol</h4>
+          <p><strong>Backend:</strong> ${r.backend}</p>
+          <p><strong>Protocols:</strong> ${r.protocols}</p>
+          <p><strong>Response Time:</strong> ${r.response_time}</p>
 
-            <h4 style="margin-top: 15px;">Performance Details</h4>
-            <ul>
-              <li><strong>Latency:</strong> ${r.performance_details.latency_ms.toFixed(0)} ms (Score: ${r.performance_details.latency_score})</li>
-              <li><strong>Compression:</strong> ${r.performance_details.compression}</li>
-              <li><strong>Cache-Control:</strong> ${r.performance_details.cache_control || 'Not set'}</li>
-              <li><strong>Content Size:</strong> ${r.performance_details.content_length_kb} KB</li>
-              <li><strong>Broken Links:</strong> ${r.performance_details.broken_links} / ${r.performance_details.total_links}</li>
-              <li><strong>Overall Score:</strong> ${r.performance_details.overall_score}</li>
-            </ul>
+          <h4 style="margin-top: 15px;">Performance Details</h4>
+          <ul>
+            <li><strong>Latency:</strong> ${r.performance_details.latency_ms.toFixed(0)} ms (Score: ${r.performance_details.latency_score})</li>
+            ${timingBreakdown(r.performance_details)}
+            <li><strong>Compression:</strong> ${r.performance_details.compression}</li>
+            <li><strong>Cache-Control:</strong> ${r.performance_details.cache_control || 'Not set'}</li>
+            <li><strong>Content Size:</strong> ${r.performance_details.content_length_kb} KB</li>
+            <li><strong>Broken Links:</strong> ${r.performance_details.broken_links} / ${r.performance_details.total_links}</li>
+            <li><strong>Overall Score:</strong> ${r.performance_details.overall_score}</li>
+          </ul>
 
-            <h4 style="margin-top: 15px;">Security Headers</h4>
-            <ul>
-              <li><strong>HTTPS:</strong> ${r.security_details.https ? '✓' : '✗'}</li>
-              <li><strong>HSTS:</strong> ${r.security_details.hsts ? '✓' : '✗'}</li>
-              <li><strong>CSP:</strong> ${r.security_details.csp ? '✓' : '✗'}</li>
-              <li><strong>X-Content-Type-Options:</strong> ${r.security_details.x_content_type_options ? '✓' : '✗'}</li>
-              <li><strong>X-Frame-Options:</strong> ${r.security_details.x_frame_options ? '✓' : '✗'}</li>
-              <li><strong>Referrer-Policy:</strong> ${r.security_details.referrer_policy ? '✓' : '✗'}</li>
-              <li><strong>Overall Score:</strong> ${r.security_details.overall_score}</li>
-            </ul>
+          <h4 style="margin-top: 15px;">Security Headers</h4>
+          <ul>
+            <li><strong>HTTPS:</strong> ${r.security_details.https ? '✓' : '✗'}</li>
+            <li><strong>HSTS:</strong> ${r.security_details.hsts ? '✓' : '✗'}</li>
+            <li><strong>CSP:</strong> ${r.security_details.csp ? '✓' : '✗'}</li>
+            <li><strong>X-Content-Type-Options:</strong> ${r.security_details.x_content_type_options ? '✓' : '✗'}</li>
+            <li><strong>X-Frame-Options:</strong> ${r.security_details.x_frame_options ? '✓' : '✗'}</li>
+            <li><strong>Referrer-Policy:</strong> ${r.security_details.referrer_policy ? '✓' : '✗'}</li>
+            <li><strong>Overall Score:</strong> ${r.security_details.overall_score}</li>
+          </ul>
 
-            <h4 style="margin-top: 15px;">SEO Details</h4>
-            <ul>
-              <li><strong>Page Title:</strong> ${r.seo_details.has_page_title ? '✓' : '✗'}</li>
-              <li><strong>Meta Description:</strong> ${r.seo_details.has_meta_description ? '✓' : '✗'}</li>
-              <li><strong>Meta Tags:</strong> ${r.seo_details.has_meta_tags ? '✓' : '✗'}</li>
-              <li><strong>Heading Structure:</strong> ${r.seo_details.has_heading_structure ? '✓' : '✗'}</li>
-              <li><strong>Mobile-Friendly:</strong> ${r.seo_details.mobile_friendly ? '✓' : '✗'}</li>
-              <li><strong>Canonical Tag:</strong> ${r.seo_details.has_canonical_tag ? '✓' : '✗'}</li>
-              <li><strong>Robots.txt:</strong> ${r.seo_details.has_robots_txt ? '✓' : '✗'}</li>
-              <li><strong>Sitemap.xml:</strong> ${r.seo_details.has_sitemap_xml ? '✓' : '✗'}</li>
-              <li><strong>Image Alt Text:</strong> ${r.seo_details.image_alt_text_percentage}%</li>
-              <li><strong>Overall Score:</strong> ${r.seo_details.overall_score}</li>
-            </ul>
-          </div>
-        </td>
-      </tr>
-    `;
-    });
+          <h4 style="margin-top: 15px;">SEO Details</h4>
+          <ul>
+            <li><strong>Page Title:</strong> ${r.seo_details.has_page_title ? '✓' : '✗'}</li>
+            <li><strong>Meta Description:</strong> ${r.seo_details.has_meta_description ? '✓' : '✗'}</li>
+            <li><strong>Meta Tags:</strong> ${r.seo_details.has_meta_tags ? '✓' : '✗'}</li>
+            <li><strong>Heading Structure:</strong> ${r.seo_details.has_heading_structure ? '✓' : '✗'}</li>
+            <li><strong>Mobile-Friendly:</strong> ${r.seo_details.mobile_friendly ? '✓' : '✗'}</li>
+            <li><strong>Canonical Tag:</strong> ${r.seo_details.has_canonical_tag ? '✓' : '✗'}</li>
+            <li><strong>Robots.txt:</strong> ${r.seo_details.has_robots_txt ? '✓' : '✗'}</li>
+            <li><strong>Sitemap.xml:</strong> ${r.seo_details.has_sitemap_xml ? '✓' : '✗'}</li>
+            <li><strong>Image Alt Text:</strong> ${r.seo_details.image_alt_text_percentage}%</li>
+            <li><strong>Overall Score:</strong> ${r.seo_details.overall_score}</li>
+          </ul>
+        </div>
+      </td>
+    </tr>
+  `;
+  });
 
-    tableHTML += "</tbody></table>";
-    resultsDiv.innerHTML = tableHTML;
+  tableHTML += "</tbody></table>";
+  resultsDiv.innerHTML = tableHTML;
 
-    // Add toggle functionality
-    document.querySelectorAll(".toggle-btn").forEach(btn => {
-      btn.addEventListener("click", () => {
-        const targetId = btn.getAttribute("data-target");
-        const row = document.getElementById(targetId);
-        if (row.style.display === "none") {
-          row.style.display = "table-row";
-          btn.textContent = "Hide";
-        } else {
-          row.style.display = "none";
-          btn.textContent = "Show";
-        }
-      });
+  // Add toggle functionality
+  resultsDiv.querySelectorAll(".toggle-btn").forEach(btn => {
+    btn.addEventListener("click", () => {
+      const targetId = btn.getAttribute("data-target");
+      const row = document.getElementById(targetId);
+      if (row.style.display === "none") {
+        row.style.display = "table-row";
+        btn.textContent = "Hide";
+        openDetails.add(btn.getAttribute("data-url"));
+      } else {
+        row.style.display = "none";
+        btn.textContent = "Show";
+        openDetails.delete(btn.getAttribute("data-url"));
+      }
     });
-  } catch (e) {
-    console.error(e);
-    resultsDiv.innerHTML = `<p>Error: ${e.message}. Is the API running at http://localhost:8000? Check the URL list and try again.</p>`;
+  });
+}
+
+function timingBreakdown(d) {
+  if (d.ttfb_ms === undefined || d.ttfb_ms < 0) {
+    return "";
   }
-});
+  const ms = v => `${v.toFixed(0)} ms`;
+  return `<li><strong>Timing:</strong> DNS ${ms(d.dns_ms)}, Connect ${ms(d.connect_ms)}, TLS ${ms(d.tls_ms)}, ` +
+    `TTFB ${ms(d.ttfb_ms)}, Download ${ms(d.download_ms)}${d.connection_reused ? " (reused connection)" : ""}</li>`;
+}